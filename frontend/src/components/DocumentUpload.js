@@ -38,6 +38,11 @@ const DocumentUpload = ({ username, onDocumentUploaded }) => {
 
         try {
             const response = await chatService.uploadDocument(file, username);
+            const status = await chatService.waitForDocument(response.documentId, username);
+
+            if (status.status === 'FAILED') {
+                throw new Error(status.message || 'Document processing failed');
+            }
 
             setUploadStatus({
                 type: 'success',
@@ -54,7 +59,9 @@ const DocumentUpload = ({ username, onDocumentUploaded }) => {
         } catch (error) {
             setUploadStatus({
                 type: 'error',
-                message: 'An error occurred while uploading the file. Please try again.'
+                message: error.code === 'DOCUMENT_TIMEOUT'
+                    ? 'Document processing is taking too long. Please try again later.'
+                    : 'An error occurred while uploading the file. Please try again.'
             });
         } finally {
             setIsUploading(false);
@@ -41,6 +41,35 @@ export const chatService = {
         }
     },
 
+    getDocumentStatus: async (documentId, username = 'burak') => {
+        try {
+            const response = await api.get(`/documents/${documentId}/status`, {
+                headers: {
+                    'username': username
+                }
+            });
+            return response.data;
+        } catch (error) {
+            console.error('Document status error:', error);
+            throw error;
+        }
+    },
+
+    // Polls the ingestion job until the document is ACTIVE or FAILED, giving up after maxWaitMs
+    waitForDocument: async (documentId, username = 'burak', intervalMs = 1500, maxWaitMs = 5 * 60 * 1000) => {
+        const deadline = Date.now() + maxWaitMs;
+        while (Date.now() < deadline) {
+            const status = await chatService.getDocumentStatus(documentId, username);
+            if (status.status === 'ACTIVE' || status.status === 'FAILED') {
+                return status;
+            }
+            await new Promise(resolve => setTimeout(resolve, intervalMs));
+        }
+        const error = new Error('Document processing timed out');
+        error.code = 'DOCUMENT_TIMEOUT';
+        throw error;
+    },
+
     // Enhanced quiz generation with quiz settings support
     generateQuizRAG: async (username = 'burak', questionCount = 5, difficulty = 'medium') => {
         try {
@@ -0,0 +1,151 @@
+package com.burak.openai.advisor;
+
+import com.burak.openai.cache.CacheStats;
+import com.burak.openai.cache.CacheStatsProvider;
+import com.burak.openai.cache.LruCache;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Local vector cache of model answers for {@link SemanticResponseCacheAdvisor}.
+ * <p>
+ * Answers are grouped by {@link Scope}; a lookup only scans the entries of its own scope
+ * and returns the answer whose prompt vector is most similar to the query vector, if that
+ * similarity reaches the threshold. Scopes are kept in an LRU bounded by the approximate
+ * bytes of their vectors and answers, each scope holds a bounded number of answers, and
+ * answers expire a fixed time after they were stored.
+ * <p>
+ * Besides hits and misses the cache counts the model latency each hit avoided, i.e. the
+ * time the original call took.
+ */
+@Component
+public class SemanticResponseCache implements CacheStatsProvider {
+
+	private static final long ENTRY_OVERHEAD_BYTES = 96;
+
+	private final boolean enabled;
+	private final int maxEntriesPerScope;
+	private final long ttlNanos;
+	private final LruCache<Scope, Entry[]> cache;
+
+	private final AtomicLong hits = new AtomicLong();
+	private final AtomicLong misses = new AtomicLong();
+	private final AtomicLong savedNanos = new AtomicLong();
+
+	public SemanticResponseCache(@Value("${chat.response-cache.enabled:true}") boolean enabled,
+	                             @Value("${chat.response-cache.max-size:16MB}") DataSize maxSize,
+	                             @Value("${chat.response-cache.ttl:30m}") Duration ttl,
+	                             @Value("${chat.response-cache.max-entries-per-scope:64}") int maxEntriesPerScope) {
+		this.enabled = enabled;
+		this.maxEntriesPerScope = maxEntriesPerScope;
+		this.ttlNanos = ttl.toNanos();
+		this.cache = new LruCache<>("chat-semantic-responses", maxSize.toBytes(), SemanticResponseCache::sizeBytes, ttl);
+	}
+
+	public boolean isEnabled() {
+		return enabled;
+	}
+
+	/**
+	 * Returns the most similar answer of the scope that is younger than {@code maxAge} and
+	 * at least {@code threshold} similar to the (normalised) vector, or {@code null}.
+	 */
+	public String find(Scope scope, float[] vector, double threshold, Duration maxAge) {
+		Entry[] entries = cache.get(scope);
+		long now = System.nanoTime();
+		long maxAgeNanos = Math.min(ttlNanos, maxAge.toNanos());
+		Entry best = null;
+		double bestSimilarity = threshold;
+		if (entries != null) {
+			for (Entry entry : entries) {
+				if (now - entry.storedAt() >= maxAgeNanos || entry.vector().length != vector.length) {
+					continue;
+				}
+				double similarity = dot(entry.vector(), vector);
+				if (similarity >= bestSimilarity) {
+					bestSimilarity = similarity;
+					best = entry;
+				}
+			}
+		}
+		if (best == null) {
+			misses.incrementAndGet();
+			return null;
+		}
+		hits.incrementAndGet();
+		savedNanos.addAndGet(best.latencyNanos());
+		return best.answer();
+	}
+
+	/**
+	 * Stores an answer; the oldest answer of the scope is dropped when the scope is full.
+	 *
+	 * @param latencyNanos how long the model call that produced the answer took
+	 */
+	public void put(Scope scope, float[] vector, String answer, long latencyNanos) {
+		Entry[] previous = cache.get(scope);
+		List<Entry> entries = new ArrayList<>(previous != null ? List.of(previous) : List.of());
+		entries.add(new Entry(vector, answer, latencyNanos, System.nanoTime()));
+		while (entries.size() > maxEntriesPerScope) {
+			entries.remove(0);
+		}
+		cache.put(scope, entries.toArray(Entry[]::new));
+	}
+
+	@Override
+	public List<CacheStats> cacheStats() {
+		CacheStats scopes = cache.stats();
+		return List.of(CacheStats.of(scopes.name(), hits.get(), misses.get(), scopes.entries(), scopes.weight(),
+				scopes.evictions())
+			.withSavedMillis(TimeUnit.NANOSECONDS.toMillis(savedNanos.get())));
+	}
+
+	static float[] normalize(float[] vector) {
+		double norm = 0;
+		for (float value : vector) {
+			norm += value * value;
+		}
+		float[] normalized = new float[vector.length];
+		if (norm == 0) {
+			return normalized;
+		}
+		float scale = (float) (1.0 / Math.sqrt(norm));
+		for (int i = 0; i < vector.length; i++) {
+			normalized[i] = vector[i] * scale;
+		}
+		return normalized;
+	}
+
+	private static double dot(float[] a, float[] b) {
+		double sum = 0;
+		for (int i = 0; i < a.length; i++) {
+			sum += a[i] * b[i];
+		}
+		return sum;
+	}
+
+	private static long sizeBytes(Entry[] entries) {
+		long bytes = 0;
+		for (Entry entry : entries) {
+			bytes += ENTRY_OVERHEAD_BYTES + (long) entry.vector().length * Float.BYTES + 2L * entry.answer().length();
+		}
+		return bytes;
+	}
+
+	/**
+	 * Answers are only shared within one chat client, user, state generation (documents or
+	 * tickets) and system prompt.
+	 */
+	public record Scope(String client, String username, long generation, String systemPromptHash) {
+	}
+
+	private record Entry(float[] vector, String answer, long latencyNanos, long storedAt) {
+	}
+}
@@ -0,0 +1,339 @@
+package com.burak.openai.advisor;
+
+import com.burak.openai.rag.RetrievalContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.ai.chat.client.ChatClientMessageAggregator;
+import org.springframework.ai.chat.client.ChatClientRequest;
+import org.springframework.ai.chat.client.ChatClientResponse;
+import org.springframework.ai.chat.client.advisor.api.Advisor;
+import org.springframework.ai.chat.client.advisor.api.CallAdvisor;
+import org.springframework.ai.chat.client.advisor.api.CallAdvisorChain;
+import org.springframework.ai.chat.client.advisor.api.StreamAdvisor;
+import org.springframework.ai.chat.client.advisor.api.StreamAdvisorChain;
+import org.springframework.ai.chat.messages.AssistantMessage;
+import org.springframework.ai.chat.messages.Message;
+import org.springframework.ai.chat.messages.MessageType;
+import org.springframework.ai.chat.messages.UserMessage;
+import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.ai.chat.model.Generation;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.util.Assert;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.text.Normalizer;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.function.ToLongFunction;
+
+/**
+ * Answers near-paraphrases of earlier questions from the {@link SemanticResponseCache}
+ * instead of calling the model.
+ * <p>
+ * The user message is embedded, which for RAG clients reuses the query embedding that
+ * retrieval computes anyway, and compared with earlier prompts of the same scope: chat
+ * client, username, state generation and system prompt hash. The advisor runs inside the
+ * chat memory advisor, so a cached answer is still added to the conversation, and before
+ * retrieval, so a hit skips retrieval too.
+ * <p>
+ * The conversation history is not part of the scope, so a self-contained question hits on
+ * any turn. Follow-ups that only make sense with the history, i.e. messages on a later
+ * turn that are at most {@value #FOLLOW_UP_MAX_WORDS} words long or refer back to it
+ * ("what about the second one?"), are neither looked up nor stored.
+ * <p>
+ * The generation is read before the call and the answer is only stored if it is still
+ * current afterwards, so an answer whose call changed the user's state, e.g. created a
+ * help-desk ticket, is never replayed. Requests without a username, or with the
+ * {@link #BYPASS} parameter set, are passed through. Streaming calls are served and
+ * filled the same way.
+ */
+public class SemanticResponseCacheAdvisor implements CallAdvisor, StreamAdvisor {
+
+	private static final Logger logger = LoggerFactory.getLogger(SemanticResponseCacheAdvisor.class);
+
+	/** Advisor parameter that, when {@code true}, skips the cache for the request. */
+	public static final String BYPASS = "response_cache_bypass";
+
+	/** Messages of at most this many words on a later turn are treated as follow-ups. */
+	static final int FOLLOW_UP_MAX_WORDS = 4;
+
+	/** English and Turkish words that refer back to earlier turns. */
+	private static final Set<String> REFERENCE_WORDS = Set.of(
+		"it", "its", "this", "that", "these", "those", "they", "them", "their", "above", "previous",
+		"earlier", "again", "more", "same", "second", "former", "latter",
+		"bu", "bunu", "bunun", "bunlar", "bunlari", "onu", "onun", "onlar", "onlari", "yukaridaki",
+		"onceki", "tekrar", "daha", "ayni", "ikinci");
+
+	/** Inside the chat memory advisor, before retrieval augmentation (order 0). */
+	public static final int DEFAULT_ORDER = Advisor.DEFAULT_CHAT_MEMORY_PRECEDENCE_ORDER + 1000;
+
+	private final String clientName;
+	private final EmbeddingModel embeddingModel;
+	private final SemanticResponseCache cache;
+	private final ToLongFunction<String> generation;
+	private final String usernameParam;
+	private final double similarityThreshold;
+	private final Duration maxAge;
+	private final int order;
+
+	private SemanticResponseCacheAdvisor(String clientName, EmbeddingModel embeddingModel, SemanticResponseCache cache,
+	                                     ToLongFunction<String> generation, String usernameParam,
+	                                     double similarityThreshold, Duration maxAge, int order) {
+		this.clientName = clientName;
+		this.embeddingModel = embeddingModel;
+		this.cache = cache;
+		this.generation = generation;
+		this.usernameParam = usernameParam;
+		this.similarityThreshold = similarityThreshold;
+		this.maxAge = maxAge;
+		this.order = order;
+	}
+
+	@Override
+	public ChatClientResponse adviseCall(ChatClientRequest chatClientRequest, CallAdvisorChain callAdvisorChain) {
+		Lookup lookup = lookup(chatClientRequest);
+		if (lookup.cached() != null) {
+			return cachedResponse(chatClientRequest, lookup.cached());
+		}
+		if (lookup.scope() == null) {
+			return callAdvisorChain.nextCall(chatClientRequest);
+		}
+
+		long start = System.nanoTime();
+		ChatClientResponse chatClientResponse = callAdvisorChain.nextCall(chatClientRequest);
+		store(lookup, chatClientResponse, System.nanoTime() - start);
+		return chatClientResponse;
+	}
+
+	/**
+	 * Streaming variant: the lookup, which may embed the prompt, runs on a bounded elastic
+	 * thread, a hit is emitted as a single response, and a miss is stored once the stream
+	 * has completed.
+	 */
+	@Override
+	public Flux<ChatClientResponse> adviseStream(ChatClientRequest chatClientRequest,
+	                                             StreamAdvisorChain streamAdvisorChain) {
+		return Mono.fromCallable(() -> lookup(chatClientRequest))
+			.subscribeOn(Schedulers.boundedElastic())
+			.flatMapMany(lookup -> {
+				if (lookup.cached() != null) {
+					return Flux.just(cachedResponse(chatClientRequest, lookup.cached()));
+				}
+				if (lookup.scope() == null) {
+					return streamAdvisorChain.nextStream(chatClientRequest);
+				}
+				long start = System.nanoTime();
+				return new ChatClientMessageAggregator().aggregateChatClientResponse(
+					streamAdvisorChain.nextStream(chatClientRequest),
+					aggregated -> store(lookup, aggregated, System.nanoTime() - start));
+			});
+	}
+
+	/**
+	 * Resolves the scope and prompt vector of the request and looks up a cached answer; the
+	 * scope is {@code null} when the request bypasses the cache.
+	 */
+	private Lookup lookup(ChatClientRequest chatClientRequest) {
+		Object bypass = chatClientRequest.context().get(BYPASS);
+		Object username = chatClientRequest.context().get(usernameParam);
+		UserMessage userMessage = chatClientRequest.prompt().getUserMessage();
+		if (!cache.isEnabled() || Boolean.TRUE.equals(bypass) || "true".equals(bypass)
+			|| !(username instanceof String user) || user.isBlank()
+			|| userMessage == null || userMessage.getText() == null || userMessage.getText().isBlank()) {
+			return Lookup.NONE;
+		}
+		List<Message> messages = chatClientRequest.prompt().getInstructions();
+		if (isFollowUp(messages, userMessage.getText())) {
+			logger.debug("Response cache skipped for {}, follow-up to earlier turns", clientName);
+			return Lookup.NONE;
+		}
+
+		SemanticResponseCache.Scope scope = new SemanticResponseCache.Scope(clientName, user,
+			generation.applyAsLong(user), systemPromptHash(messages));
+		float[] vector;
+		try {
+			vector = SemanticResponseCache.normalize(embeddingModel.embed(userMessage.getText()));
+		} catch (Exception e) {
+			logger.warn("Response cache skipped for {}, query embedding failed: {}", clientName, e.getMessage());
+			return Lookup.NONE;
+		}
+
+		String cached = cache.find(scope, vector, similarityThreshold, maxAge);
+		if (cached != null) {
+			logger.info("Answered {} request of user {} from the response cache", clientName, user);
+		}
+		return new Lookup(scope, vector, cached);
+	}
+
+	private void store(Lookup lookup, ChatClientResponse chatClientResponse, long latencyNanos) {
+		String answer = answerText(chatClientResponse);
+		SemanticResponseCache.Scope scope = lookup.scope();
+		if (answer != null && !answer.isBlank() && generation.applyAsLong(scope.username()) == scope.generation()) {
+			cache.put(scope, lookup.vector(), answer, latencyNanos);
+		}
+	}
+
+	private static ChatClientResponse cachedResponse(ChatClientRequest chatClientRequest, String answer) {
+		return ChatClientResponse.builder()
+			.chatResponse(new ChatResponse(List.of(new Generation(new AssistantMessage(answer)))))
+			.context(new HashMap<>(chatClientRequest.context()))
+			.build();
+	}
+
+	private static String answerText(ChatClientResponse chatClientResponse) {
+		ChatResponse chatResponse = chatClientResponse.chatResponse();
+		if (chatResponse == null || chatResponse.getResult() == null || chatResponse.hasToolCalls()) {
+			return null;
+		}
+		return chatResponse.getResult().getOutput().getText();
+	}
+
+	/**
+	 * Returns true when the prompt already holds an earlier answer and the message is short
+	 * or contains a word referring back to the conversation.
+	 */
+	static boolean isFollowUp(List<Message> messages, String text) {
+		boolean hasHistory = messages.stream().anyMatch(message -> message.getMessageType() == MessageType.ASSISTANT);
+		if (!hasHistory) {
+			return false;
+		}
+		String folded = Normalizer.normalize(text.replace('ı', 'i'), Normalizer.Form.NFD)
+			.replaceAll("\\p{M}", "")
+			.toLowerCase(Locale.ROOT);
+		List<String> words = Arrays.stream(folded.split("[^\\p{L}\\p{N}]+"))
+			.filter(word -> !word.isEmpty())
+			.toList();
+		return words.size() <= FOLLOW_UP_MAX_WORDS || words.stream().anyMatch(REFERENCE_WORDS::contains);
+	}
+
+	private static String systemPromptHash(List<Message> messages) {
+		MessageDigest digest;
+		try {
+			digest = MessageDigest.getInstance("SHA-256");
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException("SHA-256 is not available", e);
+		}
+		for (Message message : messages) {
+			if (message.getMessageType() == MessageType.SYSTEM && message.getText() != null) {
+				digest.update(message.getText().getBytes(StandardCharsets.UTF_8));
+			}
+		}
+		return HexFormat.of().formatHex(digest.digest());
+	}
+
+	private record Lookup(SemanticResponseCache.Scope scope, float[] vector, String cached) {
+
+		static final Lookup NONE = new Lookup(null, null, null);
+	}
+
+	@Override
+	public String getName() {
+		return "SemanticResponseCacheAdvisor";
+	}
+
+	@Override
+	public int getOrder() {
+		return order;
+	}
+
+	public static Builder builder() {
+		return new Builder();
+	}
+
+	public static class Builder {
+		private String clientName;
+		private EmbeddingModel embeddingModel;
+		private SemanticResponseCache cache;
+		private ToLongFunction<String> generation = username -> 0;
+		private String usernameParam = RetrievalContext.USERNAME;
+		private double similarityThreshold = 0.95;
+		private Duration maxAge = Duration.ofMinutes(30);
+		private int order = DEFAULT_ORDER;
+
+		private Builder() {}
+
+		/**
+		 * Name of the chat client; answers are never shared between clients.
+		 */
+		public Builder clientName(String clientName) {
+			this.clientName = clientName;
+			return this;
+		}
+
+		/**
+		 * Model for the prompt vectors; use the query-caching embedding model so that the
+		 * vector retrieval computes for the same text is reused.
+		 */
+		public Builder embeddingModel(EmbeddingModel embeddingModel) {
+			this.embeddingModel = embeddingModel;
+			return this;
+		}
+
+		public Builder cache(SemanticResponseCache cache) {
+			this.cache = cache;
+			return this;
+		}
+
+		/**
+		 * Per-user generation of the state the answers depend on; a new generation makes
+		 * the user's earlier answers unreachable.
+		 */
+		public Builder generation(ToLongFunction<String> generation) {
+			this.generation = generation;
+			return this;
+		}
+
+		/**
+		 * Advisor parameter holding the username; defaults to the retrieval user.
+		 */
+		public Builder usernameParam(String usernameParam) {
+			this.usernameParam = usernameParam;
+			return this;
+		}
+
+		/**
+		 * Minimum cosine similarity between two prompts for the answer to be reused.
+		 */
+		public Builder similarityThreshold(double similarityThreshold) {
+			if (similarityThreshold <= 0.0 || similarityThreshold > 1.0) {
+				throw new IllegalArgumentException("similarityThreshold must be greater than 0.0 and at most 1.0");
+			}
+			this.similarityThreshold = similarityThreshold;
+			return this;
+		}
+
+		/**
+		 * Maximum age of reused answers for this client, capped by the cache TTL.
+		 */
+		public Builder maxAge(Duration maxAge) {
+			this.maxAge = maxAge;
+			return this;
+		}
+
+		public Builder order(int order) {
+			this.order = order;
+			return this;
+		}
+
+		public SemanticResponseCacheAdvisor build() {
+			Assert.hasText(clientName, "clientName cannot be empty");
+			Assert.notNull(embeddingModel, "embeddingModel must be set");
+			Assert.notNull(cache, "cache must be set");
+			Assert.notNull(generation, "generation must be set");
+			Assert.hasText(usernameParam, "usernameParam cannot be empty");
+			Assert.notNull(maxAge, "maxAge must be set");
+			return new SemanticResponseCacheAdvisor(clientName, embeddingModel, cache, generation, usernameParam,
+				similarityThreshold, maxAge, order);
+		}
+	}
+}
@@ -0,0 +1,188 @@
+package com.burak.openai.advisor;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.ai.chat.client.ChatClientAttributes;
+import org.springframework.ai.chat.client.ChatClientRequest;
+import org.springframework.ai.chat.client.ChatClientResponse;
+import org.springframework.ai.chat.client.advisor.api.CallAdvisor;
+import org.springframework.ai.chat.client.advisor.api.CallAdvisorChain;
+import org.springframework.ai.chat.messages.Message;
+import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.ai.chat.prompt.ChatOptions;
+import org.springframework.core.Ordered;
+import org.springframework.util.Assert;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Coalesces identical in-flight model calls of a chat client: the first request (the
+ * leader) calls the model and every identical request arriving while it runs (a follower)
+ * waits for and shares the leader's response.
+ * <p>
+ * Requests are identical when the SHA-256 of the client name, the resolved prompt
+ * messages, the portable chat options and the structured output format match. The advisor runs
+ * after retrieval augmentation, so the resolved prompt already contains the retrieved
+ * documents and two users only share a call when they would have sent the same prompt.
+ * The shared {@link ChatResponse} is returned with each follower's own advisor context.
+ * If the leader fails, followers call the model themselves.
+ */
+public class SingleFlightAdvisor implements CallAdvisor {
+
+	private static final Logger logger = LoggerFactory.getLogger(SingleFlightAdvisor.class);
+
+	/** After retrieval augmentation and other prompt-changing advisors, right before the model call. */
+	public static final int DEFAULT_ORDER = Ordered.LOWEST_PRECEDENCE - 1000;
+
+	private final String clientName;
+	private final boolean enabled;
+	private final int order;
+	private final ConcurrentMap<String, CompletableFuture<ChatResponse>> inFlight = new ConcurrentHashMap<>();
+	private final AtomicLong leaders = new AtomicLong();
+	private final AtomicLong followers = new AtomicLong();
+
+	private SingleFlightAdvisor(String clientName, boolean enabled, int order) {
+		this.clientName = clientName;
+		this.enabled = enabled;
+		this.order = order;
+	}
+
+	@Override
+	public ChatClientResponse adviseCall(ChatClientRequest chatClientRequest, CallAdvisorChain callAdvisorChain) {
+		if (!enabled) {
+			return callAdvisorChain.nextCall(chatClientRequest);
+		}
+		String key = requestKey(chatClientRequest);
+		CompletableFuture<ChatResponse> flight = new CompletableFuture<>();
+		CompletableFuture<ChatResponse> leader = inFlight.putIfAbsent(key, flight);
+		if (leader != null) {
+			return follow(leader, chatClientRequest, callAdvisorChain);
+		}
+
+		leaders.incrementAndGet();
+		try {
+			ChatClientResponse chatClientResponse = callAdvisorChain.nextCall(chatClientRequest);
+			flight.complete(chatClientResponse.chatResponse());
+			return chatClientResponse;
+		} catch (RuntimeException e) {
+			flight.completeExceptionally(e);
+			throw e;
+		} finally {
+			inFlight.remove(key, flight);
+		}
+	}
+
+	private ChatClientResponse follow(CompletableFuture<ChatResponse> leader, ChatClientRequest chatClientRequest,
+	                                  CallAdvisorChain callAdvisorChain) {
+		ChatResponse chatResponse;
+		try {
+			chatResponse = leader.join();
+		} catch (CompletionException e) {
+			logger.warn("Coalesced {} call failed, calling the model directly: {}", clientName,
+				e.getCause() != null ? e.getCause().getMessage() : e.getMessage());
+			return callAdvisorChain.nextCall(chatClientRequest);
+		}
+		long coalesced = followers.incrementAndGet();
+		logger.info("Coalesced identical {} call into an in-flight one ({} coalesced, {} model calls so far)",
+			clientName, coalesced, leaders.get());
+		return ChatClientResponse.builder()
+			.chatResponse(chatResponse)
+			.context(new HashMap<>(chatClientRequest.context()))
+			.build();
+	}
+
+	private String requestKey(ChatClientRequest chatClientRequest) {
+		MessageDigest digest;
+		try {
+			digest = MessageDigest.getInstance("SHA-256");
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException("SHA-256 is not available", e);
+		}
+		update(digest, clientName);
+		for (Message message : chatClientRequest.prompt().getInstructions()) {
+			update(digest, message.getMessageType().name());
+			update(digest, message.getText());
+		}
+		ChatOptions options = chatClientRequest.prompt().getOptions();
+		if (options != null) {
+			// Only the portable options; option objects are copied per request and need not implement toString
+			update(digest, options.getModel());
+			update(digest, String.valueOf(options.getTemperature()));
+			update(digest, String.valueOf(options.getMaxTokens()));
+			update(digest, String.valueOf(options.getTopP()));
+			update(digest, String.valueOf(options.getTopK()));
+			update(digest, String.valueOf(options.getFrequencyPenalty()));
+			update(digest, String.valueOf(options.getPresencePenalty()));
+			update(digest, String.valueOf(options.getStopSequences()));
+		}
+		update(digest, String.valueOf(chatClientRequest.context().get(ChatClientAttributes.OUTPUT_FORMAT.getKey())));
+		return HexFormat.of().formatHex(digest.digest());
+	}
+
+	/**
+	 * Adds a length-prefixed value, so that different splits of the same text differ.
+	 */
+	private static void update(MessageDigest digest, String value) {
+		byte[] bytes = (value != null ? value : "").getBytes(StandardCharsets.UTF_8);
+		digest.update(Integer.toString(bytes.length).getBytes(StandardCharsets.US_ASCII));
+		digest.update((byte) ':');
+		digest.update(bytes);
+	}
+
+	@Override
+	public String getName() {
+		return "SingleFlightAdvisor";
+	}
+
+	@Override
+	public int getOrder() {
+		return order;
+	}
+
+	public static Builder builder() {
+		return new Builder();
+	}
+
+	public static class Builder {
+		private String clientName;
+		private boolean enabled = true;
+		private int order = DEFAULT_ORDER;
+
+		private Builder() {}
+
+		/**
+		 * Name of the chat client; calls of different clients are never coalesced.
+		 */
+		public Builder clientName(String clientName) {
+			this.clientName = clientName;
+			return this;
+		}
+
+		/**
+		 * When false every request calls the model.
+		 */
+		public Builder enabled(boolean enabled) {
+			this.enabled = enabled;
+			return this;
+		}
+
+		public Builder order(int order) {
+			this.order = order;
+			return this;
+		}
+
+		public SingleFlightAdvisor build() {
+			Assert.hasText(clientName, "clientName cannot be empty");
+			return new SingleFlightAdvisor(clientName, enabled, order);
+		}
+	}
+}
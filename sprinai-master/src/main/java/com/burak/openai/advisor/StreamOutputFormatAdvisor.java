@@ -0,0 +1,53 @@
+package com.burak.openai.advisor;
+
+import org.springframework.ai.chat.client.ChatClientAttributes;
+import org.springframework.ai.chat.client.ChatClientRequest;
+import org.springframework.ai.chat.client.ChatClientResponse;
+import org.springframework.ai.chat.client.advisor.api.StreamAdvisor;
+import org.springframework.ai.chat.client.advisor.api.StreamAdvisorChain;
+import org.springframework.ai.chat.prompt.Prompt;
+import org.springframework.core.Ordered;
+import org.springframework.util.StringUtils;
+import reactor.core.publisher.Flux;
+
+import java.util.HashMap;
+
+/**
+ * Appends the structured output format in the {@link ChatClientAttributes#OUTPUT_FORMAT}
+ * advisor parameter to the user message of streaming calls, as the model call advisor
+ * already does for non-streaming {@code entity()} calls.
+ * <p>
+ * The advisor runs after retrieval augmentation, so the format instructions reach the
+ * model without becoming part of the retrieval query.
+ */
+public class StreamOutputFormatAdvisor implements StreamAdvisor {
+
+	/** After retrieval augmentation, right before the model call. */
+	public static final int DEFAULT_ORDER = Ordered.LOWEST_PRECEDENCE - 1000;
+
+	@Override
+	public Flux<ChatClientResponse> adviseStream(ChatClientRequest chatClientRequest,
+	                                             StreamAdvisorChain streamAdvisorChain) {
+		Object format = chatClientRequest.context().get(ChatClientAttributes.OUTPUT_FORMAT.getKey());
+		if (!(format instanceof String outputFormat) || !StringUtils.hasText(outputFormat)) {
+			return streamAdvisorChain.nextStream(chatClientRequest);
+		}
+		Prompt prompt = chatClientRequest.prompt().augmentUserMessage(userMessage -> userMessage.mutate()
+			.text(userMessage.getText() + System.lineSeparator() + outputFormat)
+			.build());
+		return streamAdvisorChain.nextStream(ChatClientRequest.builder()
+			.prompt(prompt)
+			.context(new HashMap<>(chatClientRequest.context()))
+			.build());
+	}
+
+	@Override
+	public String getName() {
+		return "StreamOutputFormatAdvisor";
+	}
+
+	@Override
+	public int getOrder() {
+		return DEFAULT_ORDER;
+	}
+}
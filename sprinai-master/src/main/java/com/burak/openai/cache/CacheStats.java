@@ -0,0 +1,29 @@
+package com.burak.openai.cache;
+
+/**
+ * Point-in-time counters of a cache, exposed through {@code /api/cache/stats}.
+ *
+ * @param weight cache-specific size measure, e.g. bytes held in memory
+ * @param savedMillis model latency avoided by hits, for caches that measure it, else 0
+ */
+public record CacheStats(
+	String name,
+	long hits,
+	long misses,
+	double hitRatio,
+	long entries,
+	long weight,
+	long evictions,
+	long savedMillis
+) {
+	
+	public static CacheStats of(String name, long hits, long misses, long entries, long weight, long evictions) {
+		long lookups = hits + misses;
+		double hitRatio = lookups == 0 ? 0.0 : (double) hits / lookups;
+		return new CacheStats(name, hits, misses, hitRatio, entries, weight, evictions, 0);
+	}
+	
+	public CacheStats withSavedMillis(long savedMillis) {
+		return new CacheStats(name, hits, misses, hitRatio, entries, weight, evictions, savedMillis);
+	}
+}
@@ -0,0 +1,11 @@
+package com.burak.openai.cache;
+
+import java.util.List;
+
+/**
+ * Implemented by beans that own one or more caches and want their counters reported.
+ */
+public interface CacheStatsProvider {
+	
+	List<CacheStats> cacheStats();
+}
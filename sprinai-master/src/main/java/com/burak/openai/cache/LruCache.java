@@ -0,0 +1,121 @@
+package com.burak.openai.cache;
+
+import org.springframework.util.Assert;
+
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Predicate;
+import java.util.function.ToLongFunction;
+
+/**
+ * Small thread-safe LRU cache bounded by a total weight (bytes, entries, ...) computed
+ * per value. Eviction removes the least recently accessed entries until the total weight
+ * fits again. Entries can optionally expire a fixed time after they were written; expired
+ * entries are dropped when they are looked up or reach the LRU end.
+ */
+public class LruCache<K, V> {
+
+	private final String name;
+	private final long maxWeight;
+	private final ToLongFunction<V> weigher;
+	private final long ttlNanos;
+	private final LinkedHashMap<K, Entry<V>> entries = new LinkedHashMap<>(256, 0.75f, true);
+
+	private long weight;
+	private long hits;
+	private long misses;
+	private long evictions;
+
+	public LruCache(String name, long maxWeight, ToLongFunction<V> weigher) {
+		this(name, maxWeight, weigher, null);
+	}
+
+	/**
+	 * @param ttl time after a write at which the entry expires, or {@code null} for none
+	 */
+	public LruCache(String name, long maxWeight, ToLongFunction<V> weigher, Duration ttl) {
+		Assert.hasText(name, "name cannot be empty");
+		Assert.isTrue(maxWeight > 0, "maxWeight must be greater than 0");
+		Assert.notNull(weigher, "weigher cannot be null");
+		Assert.isTrue(ttl == null || !ttl.isNegative(), "ttl cannot be negative");
+		this.name = name;
+		this.maxWeight = maxWeight;
+		this.weigher = weigher;
+		this.ttlNanos = ttl == null || ttl.isZero() ? 0 : ttl.toNanos();
+	}
+
+	public synchronized V get(K key) {
+		Entry<V> entry = entries.get(key);
+		if (entry != null && isExpired(entry, System.nanoTime())) {
+			entries.remove(key);
+			weight -= entry.weight();
+			evictions++;
+			entry = null;
+		}
+		if (entry == null) {
+			misses++;
+			return null;
+		}
+		hits++;
+		return entry.value();
+	}
+
+	public synchronized void put(K key, V value) {
+		long valueWeight = weigher.applyAsLong(value);
+		if (valueWeight > maxWeight) {
+			return;
+		}
+		long expiresAt = ttlNanos > 0 ? System.nanoTime() + ttlNanos : 0;
+		Entry<V> previous = entries.put(key, new Entry<>(value, valueWeight, expiresAt));
+		if (previous != null) {
+			weight -= previous.weight();
+		}
+		weight += valueWeight;
+		evictToFit();
+	}
+
+	public synchronized void invalidate(K key) {
+		Entry<V> previous = entries.remove(key);
+		if (previous != null) {
+			weight -= previous.weight();
+		}
+	}
+
+	public synchronized void invalidateIf(Predicate<K> predicate) {
+		Iterator<Map.Entry<K, Entry<V>>> iterator = entries.entrySet().iterator();
+		while (iterator.hasNext()) {
+			Map.Entry<K, Entry<V>> entry = iterator.next();
+			if (predicate.test(entry.getKey())) {
+				weight -= entry.getValue().weight();
+				iterator.remove();
+			}
+		}
+	}
+
+	public synchronized CacheStats stats() {
+		return CacheStats.of(name, hits, misses, entries.size(), weight, evictions);
+	}
+
+	private void evictToFit() {
+		long now = System.nanoTime();
+		Iterator<Map.Entry<K, Entry<V>>> iterator = entries.entrySet().iterator();
+		while (iterator.hasNext()) {
+			Entry<V> eldest = iterator.next().getValue();
+			if (weight <= maxWeight && !isExpired(eldest, now)) {
+				return;
+			}
+			weight -= eldest.weight();
+			iterator.remove();
+			evictions++;
+		}
+	}
+
+	private boolean isExpired(Entry<V> entry, long now) {
+		return entry.expiresAt() != 0 && now - entry.expiresAt() >= 0;
+	}
+
+	private record Entry<V>(V value, long weight, long expiresAt) {
+	}
+}
@@ -0,0 +1,107 @@
+package com.burak.openai.chunking;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+/**
+ * Turns text into the terms of the lexical (BM25) index, shared by ingestion and
+ * retrieval so that chunks and queries are analysed identically.
+ * <p>
+ * Text is lower-cased and folded to ASCII-like letters (diacritics are stripped and the
+ * Turkish dotless {@code ı} becomes {@code i}), then split into runs of letters and
+ * digits. Runs joined by {@code - _ . / '} without whitespace additionally produce their
+ * concatenation, as does a run of letters followed by a single space and a run of digits,
+ * so {@code CS-101}, {@code CS101} and {@code cs 101} all produce {@code cs101} and
+ * {@code Navier-Stokes} matches as a single name. PII masking placeholders such as
+ * {@code [REDACTED_PHONE]} are skipped, so masked chunks do not share made-up terms. No
+ * stemming or stop-word removal is applied; BM25's inverse document frequency already
+ * discounts very common terms.
+ */
+public final class LexicalAnalyzer {
+
+	private static final int MAX_TERM_LENGTH = 64;
+	private static final Pattern MASK_PLACEHOLDER = Pattern.compile("\\[REDACTED_[A-Z]+\\]");
+
+	private LexicalAnalyzer() {
+	}
+
+	/**
+	 * Returns the terms of the text in order, including repeated terms.
+	 */
+	public static List<String> terms(String text) {
+		String folded = fold(MASK_PLACEHOLDER.matcher(text).replaceAll(" "));
+		List<String> terms = new ArrayList<>();
+		StringBuilder compound = new StringBuilder();
+		int parts = 0;
+		String letters = null;
+		int lettersEnd = -1;
+		int length = folded.length();
+		int i = 0;
+		while (i < length) {
+			if (!Character.isLetterOrDigit(folded.charAt(i))) {
+				i++;
+				continue;
+			}
+			int start = i;
+			while (i < length && Character.isLetterOrDigit(folded.charAt(i))) {
+				i++;
+			}
+			String term = folded.substring(start, i);
+			addTerm(terms, term);
+			if (letters != null && lettersEnd == start - 1 && folded.charAt(lettersEnd) == ' ' && isDigits(term)) {
+				addTerm(terms, letters + term);
+			}
+			letters = isLetters(term) ? term : null;
+			lettersEnd = i;
+			compound.append(term);
+			parts++;
+
+			boolean joined = i + 1 < length && isJoiner(folded.charAt(i))
+				&& Character.isLetterOrDigit(folded.charAt(i + 1));
+			if (joined) {
+				i++;
+			} else {
+				if (parts > 1) {
+					addTerm(terms, compound.toString());
+				}
+				compound.setLength(0);
+				parts = 0;
+			}
+		}
+		return terms;
+	}
+
+	private static void addTerm(List<String> terms, String term) {
+		if (term.length() <= MAX_TERM_LENGTH) {
+			terms.add(term);
+		}
+	}
+
+	private static boolean isLetters(String term) {
+		return term.chars().allMatch(Character::isLetter);
+	}
+
+	private static boolean isDigits(String term) {
+		return term.chars().allMatch(Character::isDigit);
+	}
+
+	private static boolean isJoiner(char c) {
+		return c == '-' || c == '_' || c == '.' || c == '/' || c == '\'';
+	}
+
+	private static String fold(String text) {
+		String decomposed = Normalizer.normalize(text, Normalizer.Form.NFD);
+		StringBuilder folded = new StringBuilder(decomposed.length());
+		for (int i = 0; i < decomposed.length(); i++) {
+			char c = decomposed.charAt(i);
+			if (Character.getType(c) == Character.NON_SPACING_MARK) {
+				continue;
+			}
+			folded.append(c == 'ı' || c == 'I' ? 'i' : c);
+		}
+		return folded.toString().toLowerCase(Locale.ROOT);
+	}
+}
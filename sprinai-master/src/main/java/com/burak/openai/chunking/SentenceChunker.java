@@ -0,0 +1,363 @@
+package com.burak.openai.chunking;
+
+import com.knuddels.jtokkit.Encodings;
+import com.knuddels.jtokkit.api.Encoding;
+import com.knuddels.jtokkit.api.EncodingType;
+import com.knuddels.jtokkit.api.IntArrayList;
+import org.springframework.ai.document.Document;
+import org.springframework.util.Assert;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.IntConsumer;
+
+/**
+ * Token-aware chunker that packs whole sentences into chunks of at most
+ * {@code chunkSize} tokens, repeating up to {@code overlapTokens} tokens of trailing
+ * sentences at the start of the next chunk.
+ * <p>
+ * Unlike {@code TokenTextSplitter}, which encodes the text and decodes candidate chunks
+ * again while searching for a boundary, the text is tokenized once and the token count of
+ * any range is read from the character offsets at which its tokens start, so sentences
+ * are counted without copying them. A token belongs to every range it overlaps, which
+ * attaches the leading space of a word to the sentence it starts. Chunks are assembled
+ * from the per-sentence counts and returned as offsets into the source text. Sentences
+ * end at {@code . ! ? …} followed by whitespace or at a blank line; a sentence longer
+ * than a whole chunk is cut at whitespace. Instances are immutable and safe to share
+ * between threads.
+ */
+public class SentenceChunker {
+
+	private static final Encoding ENCODING =
+		Encodings.newLazyEncodingRegistry().getEncoding(EncodingType.CL100K_BASE);
+
+	/**
+	 * UTF-8 length of every cl100k token id, filled in lazily; 0 means not known yet. Racy
+	 * writes are harmless since every thread computes the same value.
+	 */
+	private static final int[] TOKEN_BYTES = new int[1 << 17];
+
+	private final int chunkSize;
+	private final int overlapTokens;
+	private final int minChunkChars;
+
+	private SentenceChunker(int chunkSize, int overlapTokens, int minChunkChars) {
+		Assert.isTrue(chunkSize > 0, "chunkSize must be positive");
+		Assert.isTrue(overlapTokens >= 0 && overlapTokens < chunkSize,
+			"overlapTokens must be between 0 and chunkSize");
+		this.chunkSize = chunkSize;
+		this.overlapTokens = overlapTokens;
+		this.minChunkChars = minChunkChars;
+	}
+
+	/**
+	 * Splits the text into chunks, in source order.
+	 */
+	public List<TextChunk> chunk(String text) {
+		Sentences sentences = new Sentences();
+		segment(text, TokenOffsets.of(text), sentences);
+
+		List<TextChunk> chunks = new ArrayList<>();
+		int first = 0;
+		while (first < sentences.size) {
+			int last = first;
+			int tokens = 0;
+			while (last < sentences.size && (last == first || tokens + sentences.tokens[last] <= chunkSize)) {
+				tokens += sentences.tokens[last++];
+			}
+
+			int start = sentences.starts[first];
+			int end = sentences.ends[last - 1];
+			if (end - start >= minChunkChars) {
+				chunks.add(new TextChunk(start, end, tokens));
+			}
+			if (last >= sentences.size) {
+				break;
+			}
+
+			// Step back over trailing sentences that fit the overlap, but always advance
+			int next = last;
+			int overlap = 0;
+			while (next - 1 > first && overlap + sentences.tokens[next - 1] <= overlapTokens) {
+				overlap += sentences.tokens[--next];
+			}
+			first = next;
+		}
+		return chunks;
+	}
+
+	/**
+	 * Splits every document and copies its metadata onto each of its chunks.
+	 */
+	public List<Document> split(List<Document> documents) {
+		return split(documents, tokens -> {
+		});
+	}
+
+	/**
+	 * Like {@link #split(List)}, additionally reporting the token count of every chunk.
+	 */
+	public List<Document> split(List<Document> documents, IntConsumer chunkTokens) {
+		List<Document> chunks = new ArrayList<>();
+		for (Document document : documents) {
+			String text = document.getText();
+			if (text == null || text.isBlank()) {
+				continue;
+			}
+			for (TextChunk chunk : chunk(text)) {
+				Map<String, Object> metadata = new HashMap<>(document.getMetadata());
+				chunks.add(new Document(chunk.text(text), metadata));
+				chunkTokens.accept(chunk.tokens());
+			}
+		}
+		return chunks;
+	}
+
+	private void segment(String text, TokenOffsets offsets, Sentences sentences) {
+		int length = text.length();
+		int i = 0;
+		while (i < length) {
+			while (i < length && Character.isWhitespace(text.charAt(i))) {
+				i++;
+			}
+			if (i >= length) {
+				return;
+			}
+			int start = i;
+			int end = length;
+			for (; i < length; i++) {
+				char c = text.charAt(i);
+				boolean terminator = c == '.' || c == '!' || c == '?' || c == '…';
+				if (terminator && (i + 1 == length || Character.isWhitespace(text.charAt(i + 1)))) {
+					end = ++i;
+					break;
+				}
+				if (c == '\n' && isBlankLineAhead(text, i + 1)) {
+					end = i;
+					break;
+				}
+			}
+			addSentence(text, offsets, start, trimEnd(text, start, end), sentences);
+		}
+	}
+
+	private void addSentence(String text, TokenOffsets offsets, int start, int end, Sentences sentences) {
+		if (end <= start) {
+			return;
+		}
+		int tokens = offsets.count(start, end);
+		if (tokens <= chunkSize) {
+			sentences.add(start, end, tokens);
+			return;
+		}
+
+		// Oversized sentence: cut it at whitespace into pieces expected to fit, each
+		// counted (and if need be cut) again
+		int pieceChars = Math.max(1, (int) ((long) (end - start) * chunkSize * 9 / (10L * tokens)));
+		int position = start;
+		while (position < end) {
+			int cut = Math.min(end, position + pieceChars);
+			if (cut < end) {
+				int whitespace = lastWhitespace(text, position, cut);
+				if (whitespace > position) {
+					cut = whitespace;
+				}
+			}
+			addSentence(text, offsets, position, trimEnd(text, position, cut), sentences);
+			position = cut;
+			while (position < end && Character.isWhitespace(text.charAt(position))) {
+				position++;
+			}
+		}
+	}
+
+	private static int lastWhitespace(String text, int from, int to) {
+		for (int i = to; i > from; i--) {
+			if (Character.isWhitespace(text.charAt(i))) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	private static boolean isBlankLineAhead(String text, int from) {
+		for (int i = from; i < text.length(); i++) {
+			char c = text.charAt(i);
+			if (c == '\n') {
+				return true;
+			}
+			if (!Character.isWhitespace(c)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private static int trimEnd(String text, int start, int end) {
+		while (end > start && Character.isWhitespace(text.charAt(end - 1))) {
+			end--;
+		}
+		return end;
+	}
+
+	public static Builder builder() {
+		return new Builder();
+	}
+
+	/**
+	 * Growable parallel arrays of sentence ranges and token counts, to avoid an object
+	 * per sentence.
+	 */
+	private static final class Sentences {
+
+		private int[] starts = new int[64];
+		private int[] ends = new int[64];
+		private int[] tokens = new int[64];
+		private int size;
+
+		void add(int start, int end, int tokenCount) {
+			if (size == starts.length) {
+				starts = Arrays.copyOf(starts, size * 2);
+				ends = Arrays.copyOf(ends, size * 2);
+				tokens = Arrays.copyOf(tokens, size * 2);
+			}
+			starts[size] = start;
+			ends[size] = end;
+			tokens[size] = tokenCount;
+			size++;
+		}
+	}
+
+	/**
+	 * Character offsets at which the tokens of a text start, in ascending order.
+	 */
+	private static final class TokenOffsets {
+
+		private final int[] starts;
+
+		private TokenOffsets(int[] starts) {
+			this.starts = starts;
+		}
+
+		/**
+		 * Tokenizes the text once and maps every token's UTF-8 start to the character it
+		 * falls in; a token starting inside a multi-byte character maps to that character.
+		 */
+		static TokenOffsets of(String text) {
+			IntArrayList tokens = ENCODING.encodeOrdinary(text);
+			int[] starts = new int[tokens.size()];
+			int charIndex = 0;
+			long charByteStart = 0;
+			int charBytes = utf8Length(text, 0);
+			long tokenByteStart = 0;
+			for (int i = 0; i < starts.length; i++) {
+				while (charIndex < text.length() && charByteStart + charBytes <= tokenByteStart) {
+					charByteStart += charBytes;
+					charIndex += charBytes == 4 ? 2 : 1;
+					charBytes = utf8Length(text, charIndex);
+				}
+				starts[i] = charIndex;
+				tokenByteStart += tokenBytes(tokens.get(i));
+			}
+			return new TokenOffsets(starts);
+		}
+
+		/**
+		 * Number of tokens overlapping the character range {@code [start, end)}.
+		 */
+		int count(int start, int end) {
+			int startingBefore = lowerBound(end);
+			int endedBefore = Math.max(0, upperBound(start) - 1);
+			return Math.max(0, startingBefore - endedBefore);
+		}
+
+		/** Number of token starts {@code < offset}. */
+		private int lowerBound(int offset) {
+			int low = 0;
+			int high = starts.length;
+			while (low < high) {
+				int mid = (low + high) >>> 1;
+				if (starts[mid] < offset) {
+					low = mid + 1;
+				} else {
+					high = mid;
+				}
+			}
+			return low;
+		}
+
+		/** Number of token starts {@code <= offset}. */
+		private int upperBound(int offset) {
+			return lowerBound(offset + 1);
+		}
+
+		private static int utf8Length(String text, int index) {
+			if (index >= text.length()) {
+				return 1;
+			}
+			char c = text.charAt(index);
+			if (c < 0x80) {
+				return 1;
+			}
+			if (c < 0x800) {
+				return 2;
+			}
+			if (Character.isHighSurrogate(c) && index + 1 < text.length()
+				&& Character.isLowSurrogate(text.charAt(index + 1))) {
+				return 4;
+			}
+			// Unpaired surrogates are encoded as a single '?'
+			return Character.isSurrogate(c) ? 1 : 3;
+		}
+
+		private static int tokenBytes(int token) {
+			if (token >= 0 && token < TOKEN_BYTES.length) {
+				int bytes = TOKEN_BYTES[token];
+				if (bytes == 0) {
+					bytes = decodedLength(token);
+					TOKEN_BYTES[token] = bytes;
+				}
+				return bytes;
+			}
+			return decodedLength(token);
+		}
+
+		private static int decodedLength(int token) {
+			IntArrayList single = new IntArrayList(1);
+			single.add(token);
+			return ENCODING.decodeBytes(single).length;
+		}
+	}
+
+	public static final class Builder {
+
+		private int chunkSize = 300;
+		private int overlapTokens = 50;
+		private int minChunkChars = 5;
+
+		private Builder() {
+		}
+
+		public Builder chunkSize(int chunkSize) {
+			this.chunkSize = chunkSize;
+			return this;
+		}
+
+		public Builder overlapTokens(int overlapTokens) {
+			this.overlapTokens = overlapTokens;
+			return this;
+		}
+
+		public Builder minChunkChars(int minChunkChars) {
+			this.minChunkChars = minChunkChars;
+			return this;
+		}
+
+		public SentenceChunker build() {
+			return new SentenceChunker(chunkSize, overlapTokens, minChunkChars);
+		}
+	}
+}
@@ -0,0 +1,19 @@
+package com.burak.openai.chunking;
+
+/**
+ * A chunk of a source text, expressed as the character range {@code [start, end)} of the
+ * source rather than as a copy of it, together with its token count.
+ */
+public record TextChunk(int start, int end, int tokens) {
+
+	public int length() {
+		return end - start;
+	}
+
+	/**
+	 * Materialises the chunk text from the source it was produced from.
+	 */
+	public String text(String source) {
+		return source.substring(start, end);
+	}
+}
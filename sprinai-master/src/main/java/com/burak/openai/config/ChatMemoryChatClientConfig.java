@@ -4,7 +4,10 @@ package com.burak.openai.config;
 
 
 import com.burak.openai.advisor.TokenUsageAuditAdvisor;
+import com.burak.openai.rag.CachingTranslationQueryTransformer;
+import com.burak.openai.rag.LanguageDetector;
 import com.burak.openai.rag.PIIMaskingDocumentPostProcessor;
+import com.burak.openai.rag.QueryTranslationCache;
 import org.springframework.ai.chat.client.ChatClient;
 import org.springframework.ai.chat.client.advisor.MessageChatMemoryAdvisor;
 import org.springframework.ai.chat.client.advisor.SimpleLoggerAdvisor;
@@ -14,7 +17,6 @@ import org.springframework.ai.chat.memory.MessageWindowChatMemory;
 import org.springframework.ai.chat.memory.repository.jdbc.JdbcChatMemoryRepository;
 import org.springframework.ai.chat.prompt.ChatOptions;
 import org.springframework.ai.rag.advisor.RetrievalAugmentationAdvisor;
-import org.springframework.ai.rag.preretrieval.query.transformation.TranslationQueryTransformer;
 import org.springframework.ai.rag.retrieval.search.VectorStoreDocumentRetriever;
 import org.springframework.ai.vectorstore.VectorStore;
 import org.springframework.context.annotation.Bean;
@@ -57,11 +59,15 @@ public class ChatMemoryChatClientConfig {
 	
 	@Bean
 	RetrievalAugmentationAdvisor retrievalAugmentationAdvisor(VectorStore vectorStore,
-	                                                          ChatClient.Builder chatClientBuilder) {
+	                                                          ChatClient.Builder chatClientBuilder,
+	                                                          LanguageDetector languageDetector,
+	                                                          QueryTranslationCache queryTranslationCache) {
 		return RetrievalAugmentationAdvisor.builder()
-			.queryTransformers(TranslationQueryTransformer.builder()
+			.queryTransformers(CachingTranslationQueryTransformer.builder()
 				.chatClientBuilder(chatClientBuilder.clone())
-				.targetLanguage("english").build())
+				.languageDetector(languageDetector)
+				.translationCache(queryTranslationCache)
+				.targetLanguage("english").targetLanguageCode("en").build())
 			.documentRetriever(VectorStoreDocumentRetriever.builder().vectorStore(vectorStore)
 				.topK(10).similarityThreshold(0.5).build())   //3ten 10 yaptık
 			.documentPostProcessors(PIIMaskingDocumentPostProcessor.builder())
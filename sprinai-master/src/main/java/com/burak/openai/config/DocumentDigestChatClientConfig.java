@@ -0,0 +1,33 @@
+package com.burak.openai.config;
+
+import org.springframework.ai.chat.client.ChatClient;
+import org.springframework.ai.chat.prompt.ChatOptions;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.io.Resource;
+
+@Configuration
+public class DocumentDigestChatClientConfig {
+	
+	@Value("classpath:/promptTemplates/documentDigestSystemPromptTemplate.st")
+	Resource documentDigestSystemTemplate;
+	
+	/**
+	 * Client for per-document digests; the document excerpts are passed in the prompt, so no RAG advisor
+	 */
+	@Bean("documentDigestChatClient")
+	public ChatClient documentDigestChatClient(ChatClient.Builder chatClientBuilder) {
+		
+		ChatOptions digestOptions = ChatOptions.builder()
+			.model("gpt-4o-mini")
+			.temperature(0.3)
+			.maxTokens(1500)  // Enough for a structured digest
+			.build();
+		
+		return chatClientBuilder
+			.defaultOptions(digestOptions)
+			.defaultSystem(documentDigestSystemTemplate)
+			.build();
+	}
+}
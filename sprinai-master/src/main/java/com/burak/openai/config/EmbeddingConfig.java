@@ -1,17 +1,33 @@
 package com.burak.openai.config;
 
-import org.springframework.ai.embedding.EmbeddingModel;
+import com.burak.openai.embedding.CachingEmbeddingModel;
+import com.burak.openai.embedding.EmbeddingCacheStore;
+import com.burak.openai.embedding.QueryEmbeddingCache;
 import org.springframework.ai.openai.OpenAiEmbeddingModel;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Primary;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
 
 @Configuration
 public class EmbeddingConfig {
 	
+	/**
+	 * Primary embedding model used by the vector store: OpenAI behind a content-hash cache,
+	 * so identical chunks are only ever embedded once per model.
+	 */
 	@Bean
 	@Primary
-	public EmbeddingModel primaryEmbeddingModel(OpenAiEmbeddingModel openAiEmbeddingModel) {
-		return openAiEmbeddingModel;
+	public CachingEmbeddingModel primaryEmbeddingModel(OpenAiEmbeddingModel openAiEmbeddingModel,
+	                                                   EmbeddingCacheStore embeddingCacheStore,
+	                                                   @Value("${spring.ai.openai.embedding.options.model:text-embedding-ada-002}") String modelName,
+	                                                   @Value("${embedding.cache.memory.max-size:64MB}") DataSize maxMemorySize,
+	                                                   @Value("${embedding.cache.query.max-entries:10000}") long maxQueryEntries,
+	                                                   @Value("${embedding.cache.query.ttl:24h}") Duration queryTtl) {
+		return new CachingEmbeddingModel(openAiEmbeddingModel, embeddingCacheStore, modelName,
+			maxMemorySize.toBytes(), new QueryEmbeddingCache(maxQueryEntries, queryTtl));
 	}
-}
\ No newline at end of file
+}
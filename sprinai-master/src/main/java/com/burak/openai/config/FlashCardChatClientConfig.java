@@ -1,15 +1,26 @@
 // src/main/java/com/burak/openai/config/FlashCardChatClientConfig.java
 package com.burak.openai.config;
 
+import com.burak.openai.advisor.SingleFlightAdvisor;
 import com.burak.openai.advisor.TokenUsageAuditAdvisor;
+import com.burak.openai.rag.ChunkVectorSource;
+import com.burak.openai.rag.ContextPackingDocumentPostProcessor;
+import com.burak.openai.rag.HotVectorTier;
+import com.burak.openai.rag.HybridDocumentRetriever;
+import com.burak.openai.rag.LexicalIndex;
+import com.burak.openai.rag.MmrDocumentPostProcessor;
 import com.burak.openai.rag.PIIMaskingDocumentPostProcessor;
+import com.burak.openai.rag.RetrievalResultCache;
 import com.burak.openai.rag.UserDocumentRetriever;
+import com.burak.openai.repository.UserDocumentRepository;
+import com.burak.openai.service.TenantVectorStoreRouter;
 import org.springframework.ai.chat.client.ChatClient;
 import org.springframework.ai.chat.client.advisor.MessageChatMemoryAdvisor;
 import org.springframework.ai.chat.client.advisor.SimpleLoggerAdvisor;
 import org.springframework.ai.chat.client.advisor.api.Advisor;
 import org.springframework.ai.chat.memory.ChatMemory;
 import org.springframework.ai.chat.prompt.ChatOptions;
+import org.springframework.ai.embedding.EmbeddingModel;
 import org.springframework.ai.rag.advisor.RetrievalAugmentationAdvisor;
 import org.springframework.ai.vectorstore.VectorStore;
 import org.springframework.beans.factory.annotation.Value;
@@ -28,18 +39,44 @@ public class FlashCardChatClientConfig {
 	@Bean("flashCardChatClient")
 	public ChatClient flashCardChatClient(ChatClient.Builder chatClientBuilder,
 	                                      ChatMemory chatMemory,
-	                                      VectorStore vectorStore) {
+	                                      VectorStore vectorStore,
+	                                      HotVectorTier hotVectorTier,
+	                                      RetrievalResultCache retrievalResultCache,
+	                                      TenantVectorStoreRouter tenantVectorStoreRouter,
+	                                      UserDocumentRepository userDocumentRepository,
+	                                      LexicalIndex lexicalIndex,
+	                                      EmbeddingModel embeddingModel,
+	                                      ChunkVectorSource chunkVectorSource,
+	                                      @Value("${rag.context.token-budget.flashcard:2500}") int contextTokenBudget,
+	                                      @Value("${rag.mmr.lambda:0.5}") double mmrLambda,
+	                                      @Value("${chat.single-flight.enabled:true}") boolean singleFlightEnabled) {
 
 
 		
 		
 		var flashCardRAGAdvisor = RetrievalAugmentationAdvisor.builder()
-			.documentRetriever(UserDocumentRetriever.builder()
-				.vectorStore(vectorStore)
-				.topK(15)  // More documents for flashcard generation
-				.similarityThreshold(0.5)  // Lower threshold for more content
+			.documentRetriever(HybridDocumentRetriever.builder()
+				.vectorRetriever(UserDocumentRetriever.builder()
+					.vectorStore(vectorStore)
+					.tenantRouter(tenantVectorStoreRouter)
+					.hotTier(hotVectorTier)
+					.resultCache(retrievalResultCache)
+					.userDocumentRepository(userDocumentRepository)
+					.topK(12)  // Vector candidates for fusion
+					.similarityThreshold(0.5)  // Lower threshold for more content
+					.build())
+				.lexicalIndex(lexicalIndex)
+				.topK(12)  // Fused candidates for MMR
 				.build())
-			.documentPostProcessors(PIIMaskingDocumentPostProcessor.builder())
+			.documentPostProcessors(
+				MmrDocumentPostProcessor.builder()
+					.embeddingModel(embeddingModel)
+					.vectorSource(chunkVectorSource)
+					.lambda(mmrLambda)
+					.topK(6)  // Fewer chunks, spread over more topics
+					.build(),
+				ContextPackingDocumentPostProcessor.builder().tokenBudget(contextTokenBudget).build(),
+				PIIMaskingDocumentPostProcessor.builder())
 			.build();
 		
 		// Chat options optimized for flashcard generation
@@ -51,7 +88,8 @@ public class FlashCardChatClientConfig {
 		return chatClientBuilder
 			.defaultOptions(chatOptions)
 			.defaultSystem(flashCardSystemTemplate)
-			.defaultAdvisors(List.of( flashCardRAGAdvisor))
+			.defaultAdvisors(List.of( flashCardRAGAdvisor,
+				SingleFlightAdvisor.builder().clientName("flashCardChatClient").enabled(singleFlightEnabled).build()))
 			.build();
 	}
 }
\ No newline at end of file
@@ -1,13 +1,17 @@
 package com.burak.openai.config;
 
 
+import com.burak.openai.advisor.SemanticResponseCache;
+import com.burak.openai.advisor.SemanticResponseCacheAdvisor;
 import com.burak.openai.advisor.TokenUsageAuditAdvisor;
+import com.burak.openai.service.HelpDeskTicketService;
 import com.burak.openai.tools.TimeTools;
 import org.springframework.ai.chat.client.ChatClient;
 import org.springframework.ai.chat.client.advisor.MessageChatMemoryAdvisor;
 import org.springframework.ai.chat.client.advisor.SimpleLoggerAdvisor;
 import org.springframework.ai.chat.client.advisor.api.Advisor;
 import org.springframework.ai.chat.memory.ChatMemory;
+import org.springframework.ai.embedding.EmbeddingModel;
 import org.springframework.ai.tool.execution.DefaultToolExecutionExceptionProcessor;
 import org.springframework.ai.tool.execution.ToolExecutionExceptionProcessor;
 import org.springframework.beans.factory.annotation.Value;
@@ -15,6 +19,7 @@ import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.core.io.Resource;
 
+import java.time.Duration;
 import java.util.List;
 
 @Configuration
@@ -25,13 +30,31 @@ public class HelpDeskChatClientConfig {
 
 	@Bean("helpDeskChatClient")
 	public ChatClient chatClient(ChatClient.Builder chatClientBuilder,
-	                             ChatMemory chatMemory, TimeTools timeTools) {
+	                             ChatMemory chatMemory, TimeTools timeTools,
+	                             EmbeddingModel embeddingModel,
+	                             SemanticResponseCache semanticResponseCache,
+	                             HelpDeskTicketService helpDeskTicketService,
+	                             @Value("${chat.response-cache.similarity-threshold:0.95}") double cacheSimilarityThreshold,
+	                             @Value("${chat.response-cache.help-desk.max-age:2m}") Duration cacheMaxAge) {
 		
 		Advisor memoryAdvisor = MessageChatMemoryAdvisor.builder(chatMemory).build();
+		
+		// Keyed on the ticket generation: a call that creates a ticket bumps it, so its answer is never replayed.
+		// Answers that used the time tools are bounded by the short max age.
+		Advisor responseCacheAdvisor = SemanticResponseCacheAdvisor.builder()
+			.clientName("helpDeskChatClient")
+			.embeddingModel(embeddingModel)
+			.cache(semanticResponseCache)
+			.generation(helpDeskTicketService::generation)
+			.usernameParam(ChatMemory.CONVERSATION_ID)
+			.similarityThreshold(cacheSimilarityThreshold)
+			.maxAge(cacheMaxAge)
+			.build();
+		
 		return chatClientBuilder
 			.defaultSystem(systemPromptTemplate)
 			.defaultTools(timeTools)
-			.defaultAdvisors(List.of( memoryAdvisor))
+			.defaultAdvisors(List.of( memoryAdvisor, responseCacheAdvisor))
 			.build();
 	}
 
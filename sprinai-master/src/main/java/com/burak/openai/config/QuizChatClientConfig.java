@@ -1,12 +1,24 @@
 package com.burak.openai.config;
 
+import com.burak.openai.advisor.SingleFlightAdvisor;
+import com.burak.openai.advisor.StreamOutputFormatAdvisor;
 import com.burak.openai.advisor.TokenUsageAuditAdvisor;
+import com.burak.openai.rag.ChunkVectorSource;
+import com.burak.openai.rag.ContextPackingDocumentPostProcessor;
+import com.burak.openai.rag.HotVectorTier;
+import com.burak.openai.rag.HybridDocumentRetriever;
+import com.burak.openai.rag.LexicalIndex;
+import com.burak.openai.rag.MmrDocumentPostProcessor;
 import com.burak.openai.rag.PIIMaskingDocumentPostProcessor;
+import com.burak.openai.rag.RetrievalResultCache;
 import com.burak.openai.rag.UserDocumentRetriever;
+import com.burak.openai.repository.UserDocumentRepository;
+import com.burak.openai.service.TenantVectorStoreRouter;
 import org.springframework.ai.chat.client.ChatClient;
 import org.springframework.ai.chat.client.advisor.SimpleLoggerAdvisor;
 import org.springframework.ai.chat.client.advisor.api.Advisor;
 import org.springframework.ai.chat.prompt.ChatOptions;
+import org.springframework.ai.embedding.EmbeddingModel;
 import org.springframework.ai.rag.advisor.RetrievalAugmentationAdvisor;
 import org.springframework.ai.vectorstore.VectorStore;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -27,18 +39,66 @@ public class QuizChatClientConfig {
 	@Autowired
 	private VectorStore vectorStore;
 	
+	@Autowired
+	private HotVectorTier hotVectorTier;
+	
+	@Autowired
+	private RetrievalResultCache retrievalResultCache;
+	
+	@Autowired
+	private TenantVectorStoreRouter tenantVectorStoreRouter;
+	
+	@Autowired
+	private UserDocumentRepository userDocumentRepository;
+	
+	@Autowired
+	private LexicalIndex lexicalIndex;
+	
+	@Autowired
+	private EmbeddingModel embeddingModel;
+	
+	@Autowired
+	private ChunkVectorSource chunkVectorSource;
+	
+	@Value("${rag.mmr.lambda:0.5}")
+	private double mmrLambda;
+	
+	@Value("${rag.context.token-budget.quiz:3000}")
+	private int quizContextTokenBudget;
+	
+	@Value("${rag.context.token-budget.quiz-content:2000}")
+	private int quizContentContextTokenBudget;
+	
+	@Value("${chat.single-flight.enabled:true}")
+	private boolean singleFlightEnabled;
+	
 	@Bean("quizChatClient")
 	public ChatClient quizChatClient(ChatClient.Builder chatClientBuilder) {
 		
 		
 		var quizRAGAdvisor = RetrievalAugmentationAdvisor.builder()
-			.documentRetriever(UserDocumentRetriever.builder()
-				.vectorStore(vectorStore)
-				.topK(20)  // Quiz için daha fazla doküman
-				.similarityThreshold(0.5) //00.3  // Düşük threshold, daha
-			
+			.documentRetriever(HybridDocumentRetriever.builder()
+				.vectorRetriever(UserDocumentRetriever.builder()
+					.vectorStore(vectorStore)
+					.tenantRouter(tenantVectorStoreRouter)
+					.hotTier(hotVectorTier)
+					.resultCache(retrievalResultCache)
+					.userDocumentRepository(userDocumentRepository)
+					.topK(15)  // Vector candidates for fusion
+					.similarityThreshold(0.5) //00.3  // Düşük threshold, daha
+					.build())
+				.lexicalIndex(lexicalIndex)
+				.topK(16)  // Fused candidates for MMR
 				.build())
-			.documentPostProcessors(PIIMaskingDocumentPostProcessor.builder())
+			.documentPostProcessors(
+				MmrDocumentPostProcessor.builder()
+					.embeddingModel(embeddingModel)
+					.vectorSource(chunkVectorSource)
+					.lambda(mmrLambda)
+					.topK(8)  // Farklı bölümlerden daha az chunk
+					.build(),
+				ContextPackingDocumentPostProcessor.builder().tokenBudget(quizContextTokenBudget).build(),
+				PIIMaskingDocumentPostProcessor.builder())
 			.build();
 		
 		// Quiz için optimize edilmiş chat options
@@ -58,7 +118,9 @@ public class QuizChatClientConfig {
 		return chatClientBuilder
 			.defaultOptions(quizChatOptions)
 			.defaultSystem(quizSystemTemplate)
-			.defaultAdvisors(List.of( quizRAGAdvisor))
+			.defaultAdvisors(List.of( quizRAGAdvisor,
+				SingleFlightAdvisor.builder().clientName("quizChatClient").enabled(singleFlightEnabled).build(),
+				new StreamOutputFormatAdvisor()))
 			.build();
 	}
 	
@@ -84,6 +146,8 @@ public class QuizChatClientConfig {
                 You are a quiz generator. Create simple multiple choice questions in JSON format.
                 Always return valid JSON structure.
                 """)
+			.defaultAdvisors(List.of(
+				SingleFlightAdvisor.builder().clientName("quizFallbackChatClient").enabled(singleFlightEnabled).build()))
 			.build();
 	}
 	
@@ -95,11 +159,21 @@ public class QuizChatClientConfig {
 		
 		// İçerik analizi için RAG advisor
 		var contentAnalyzerRAGAdvisor = RetrievalAugmentationAdvisor.builder()
-			.documentRetriever(UserDocumentRetriever.builder()
-				.vectorStore(vectorStore)
-				.topK(15)  // Orta seviye doküman getirme
-				.similarityThreshold(0.4)
+			.documentRetriever(HybridDocumentRetriever.builder()
+				.vectorRetriever(UserDocumentRetriever.builder()
+					.vectorStore(vectorStore)
+					.tenantRouter(tenantVectorStoreRouter)
+					.hotTier(hotVectorTier)
+					.resultCache(retrievalResultCache)
+					.userDocumentRepository(userDocumentRepository)
+					.topK(12)  // Vector candidates for fusion
+					.similarityThreshold(0.4)
+					.build())
+				.lexicalIndex(lexicalIndex)
+				.topK(8)  // Orta seviye doküman getirme
 				.build())
+			.documentPostProcessors(
+				ContextPackingDocumentPostProcessor.builder().tokenBudget(quizContentContextTokenBudget).build())
 			.build();
 		
 		// İçerik özetleme için optimize options
@@ -117,7 +191,8 @@ public class QuizChatClientConfig {
                 definitions, processes, and important details that can be
                 used for quiz questions. Be concise and structured.
                 """)
-			.defaultAdvisors(List.of(contentAnalyzerRAGAdvisor))
+			.defaultAdvisors(List.of(contentAnalyzerRAGAdvisor,
+				SingleFlightAdvisor.builder().clientName("quizContentAnalyzerClient").enabled(singleFlightEnabled).build()))
 			.build();
 	}
 }
\ No newline at end of file
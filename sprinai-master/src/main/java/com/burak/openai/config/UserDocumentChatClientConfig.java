@@ -1,14 +1,25 @@
 package com.burak.openai.config;
 
+import com.burak.openai.advisor.SemanticResponseCache;
+import com.burak.openai.advisor.SemanticResponseCacheAdvisor;
 import com.burak.openai.advisor.TokenUsageAuditAdvisor;
+import com.burak.openai.rag.ContextPackingDocumentPostProcessor;
+import com.burak.openai.rag.HotVectorTier;
+import com.burak.openai.rag.HybridDocumentRetriever;
+import com.burak.openai.rag.LexicalIndex;
 import com.burak.openai.rag.PIIMaskingDocumentPostProcessor;
+import com.burak.openai.rag.RetrievalResultCache;
 import com.burak.openai.rag.UserDocumentRetriever;
+import com.burak.openai.service.DocumentGenerationTracker;
+import com.burak.openai.repository.UserDocumentRepository;
+import com.burak.openai.service.TenantVectorStoreRouter;
 import org.springframework.ai.chat.client.ChatClient;
 import org.springframework.ai.chat.client.advisor.MessageChatMemoryAdvisor;
 import org.springframework.ai.chat.client.advisor.SimpleLoggerAdvisor;
 import org.springframework.ai.chat.client.advisor.api.Advisor;
 import org.springframework.ai.chat.memory.ChatMemory;
 import org.springframework.ai.chat.prompt.ChatOptions;
+import org.springframework.ai.embedding.EmbeddingModel;
 import org.springframework.ai.rag.advisor.RetrievalAugmentationAdvisor;
 import org.springframework.ai.vectorstore.VectorStore;
 import org.springframework.beans.factory.annotation.Value;
@@ -27,18 +38,47 @@ public class UserDocumentChatClientConfig {
 	@Bean("userDocumentChatClient")
 	public ChatClient userDocumentChatClient(ChatClient.Builder chatClientBuilder,
 	                                         ChatMemory chatMemory,
-	                                         VectorStore vectorStore) {
+	                                         VectorStore vectorStore,
+	                                         HotVectorTier hotVectorTier,
+	                                         RetrievalResultCache retrievalResultCache,
+	                                         TenantVectorStoreRouter tenantVectorStoreRouter,
+	                                         UserDocumentRepository userDocumentRepository,
+	                                         LexicalIndex lexicalIndex,
+	                                         EmbeddingModel embeddingModel,
+	                                         SemanticResponseCache semanticResponseCache,
+	                                         DocumentGenerationTracker documentGenerationTracker,
+	                                         @Value("${rag.context.token-budget.user-documents:1800}") int contextTokenBudget,
+	                                         @Value("${chat.response-cache.similarity-threshold:0.95}") double cacheSimilarityThreshold) {
 		
 		Advisor memoryAdvisor = MessageChatMemoryAdvisor.builder(chatMemory).build();
 		
+		// Near-paraphrases of earlier questions on the same documents are answered from the cache
+		Advisor responseCacheAdvisor = SemanticResponseCacheAdvisor.builder()
+			.clientName("userDocumentChatClient")
+			.embeddingModel(embeddingModel)
+			.cache(semanticResponseCache)
+			.generation(documentGenerationTracker::current)
+			.similarityThreshold(cacheSimilarityThreshold)
+			.build();
+		
 		// Create RAG advisor with improved configuration
 		var userDocumentRAGAdvisor = RetrievalAugmentationAdvisor.builder()
-			.documentRetriever(UserDocumentRetriever.builder()
-				.vectorStore(vectorStore)
-				.topK(10)  // Daha fazla doküman getir
-				.similarityThreshold(0.5)  // Threshold'u düşür
+			.documentRetriever(HybridDocumentRetriever.builder()
+				.vectorRetriever(UserDocumentRetriever.builder()
+					.vectorStore(vectorStore)
+					.tenantRouter(tenantVectorStoreRouter)
+					.hotTier(hotVectorTier)
+					.resultCache(retrievalResultCache)
+					.userDocumentRepository(userDocumentRepository)
+					.topK(10)  // Vector candidates for fusion
+					.similarityThreshold(0.5)  // Threshold'u düşür
+					.build())
+				.lexicalIndex(lexicalIndex)
+				.topK(6)  // Fused results sent to the model
 				.build())
-			.documentPostProcessors(PIIMaskingDocumentPostProcessor.builder())
+			.documentPostProcessors(
+				ContextPackingDocumentPostProcessor.builder().tokenBudget(contextTokenBudget).build(),
+				PIIMaskingDocumentPostProcessor.builder())
 			.build();
 		
 		ChatOptions chatOptions = ChatOptions.builder()
@@ -49,7 +89,7 @@ public class UserDocumentChatClientConfig {
 		return chatClientBuilder
 			.defaultOptions(chatOptions)
 			.defaultSystem(userDocumentSystemTemplate)
-			.defaultAdvisors(List.of( memoryAdvisor, userDocumentRAGAdvisor))
+			.defaultAdvisors(List.of( memoryAdvisor, responseCacheAdvisor, userDocumentRAGAdvisor))
 			.build();
 	}
 }
\ No newline at end of file
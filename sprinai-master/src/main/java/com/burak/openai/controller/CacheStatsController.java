@@ -0,0 +1,28 @@
+package com.burak.openai.controller;
+
+import com.burak.openai.cache.CacheStats;
+import com.burak.openai.cache.CacheStatsProvider;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/cache")
+public class CacheStatsController {
+	
+	private final List<CacheStatsProvider> providers;
+	
+	public CacheStatsController(List<CacheStatsProvider> providers) {
+		this.providers = providers;
+	}
+	
+	@GetMapping("/stats")
+	public ResponseEntity<List<CacheStats>> stats() {
+		return ResponseEntity.ok(providers.stream()
+			.flatMap(provider -> provider.cacheStats().stream())
+			.toList());
+	}
+}
@@ -1,5 +1,6 @@
 package com.burak.openai.controller;
 
+import com.burak.openai.model.DocumentStatusResponse;
 import com.burak.openai.service.DocumentService;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
@@ -24,13 +25,38 @@ public class DocumentController {
 		
 		String documentId = documentService.uploadDocument(username, file);
 		
-		return ResponseEntity.ok(Map.of(
-			"message", "Document uploaded successfully",
+		return ResponseEntity.accepted().body(Map.of(
+			"message", "Document accepted for processing",
+			"documentId", documentId,
+			"filename", file.getOriginalFilename(),
+			"statusUrl", "/api/documents/" + documentId + "/status"
+		));
+	}
+	
+	@PutMapping("/{documentId}")
+	public ResponseEntity<Map<String, String>> replaceDocument(
+		@RequestHeader(value = "username", defaultValue = "burak") String username,
+		@PathVariable String documentId,
+		@RequestParam("file") MultipartFile file) {
+		
+		documentService.replaceDocument(username, documentId, file);
+		
+		return ResponseEntity.accepted().body(Map.of(
+			"message", "Document revision accepted for processing",
 			"documentId", documentId,
-			"filename", file.getOriginalFilename()
+			"filename", file.getOriginalFilename(),
+			"statusUrl", "/api/documents/" + documentId + "/status"
 		));
 	}
 	
+	@GetMapping("/{documentId}/status")
+	public ResponseEntity<DocumentStatusResponse> getDocumentStatus(
+		@RequestHeader(value = "username", defaultValue = "burak") String username,
+		@PathVariable String documentId) {
+		
+		return ResponseEntity.ok(documentService.getDocumentStatus(username, documentId));
+	}
+	
 	@GetMapping("/user-documents")
 	public ResponseEntity<Map<String, Object>> getUserDocuments(
 		@RequestHeader("username") String username) {
@@ -3,7 +3,9 @@ package com.burak.openai.controller;
 
 import com.burak.openai.model.FlashCardRequest;
 import com.burak.openai.model.FlashCardResponse;
-import com.burak.openai.rag.UserDocumentRetriever;
+import com.burak.openai.rag.RetrievalContext;
+import com.burak.openai.rag.RetrievalQueries;
+import com.burak.openai.service.DocumentDigestService;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.springframework.ai.chat.client.ChatClient;
 import org.springframework.ai.chat.prompt.ChatOptions;
@@ -21,20 +23,23 @@ import java.nio.charset.StandardCharsets;
 public class FlashCardController {
 	
 	private final ChatClient chatClient;
+	private final DocumentDigestService documentDigestService;
 	private final ObjectMapper objectMapper;
 	
 	@Value("classpath:/promptTemplates/flashcardGenerationPromptTemplate.st")
 	private Resource flashCardTemplate;
 	
 	public FlashCardController(@Qualifier("flashCardChatClient") ChatClient chatClient,
+	                           DocumentDigestService documentDigestService,
 	                           ObjectMapper objectMapper) {
 		this.chatClient = chatClient;
+		this.documentDigestService = documentDigestService;
 		this.objectMapper = objectMapper;
 	}
 	
 	@PostMapping("/generate")
 	public ResponseEntity<String> generateFlashCards(@RequestBody FlashCardRequest request) {
-		String username = request.getUsername() != null ? request.getUsername() : "burak";
+		String username = request.getUsername();
 		String userMessage = request.getMessage();
 		Integer cardCount = request.getCardCount() != null ? request.getCardCount() : 10;
 		
@@ -47,16 +52,19 @@ public class FlashCardController {
 			return ResponseEntity.badRequest()
 				.body("{\"error\": \"Message cannot be empty. Please specify what type of flashcard you want.\"}");
 		}
+		if (username == null || username.isBlank()) {
+			return ResponseEntity.badRequest()
+				.body("{\"error\": \"Username is required\"}");
+		}
 		
 		try {
-			UserDocumentRetriever.setCurrentUsername(username);
-			
-			String contentQuery = "What topics, concepts, formulas, definitions and important information are in this document? List as detailed as possible.";
-			
-			String documentContent = chatClient.prompt()
-				.user(contentQuery)
-				.call()
-				.content();
+			// Precomputed document digests; retrieval-based analysis while they are not ready
+			String documentContent = documentDigestService.userDigest(username)
+				.orElseGet(() -> chatClient.prompt()
+					.advisors(RetrievalContext.forUser(username))
+					.user(RetrievalQueries.FLASHCARD_CONTENT_QUERY)
+					.call()
+					.content());
 			
 			System.out.println("Document content length: " + documentContent.length());
 			
@@ -81,6 +89,7 @@ public class FlashCardController {
 			
 			// Create flashcard with structured output
 			FlashCardResponse flashCardResponse = chatClient.prompt()
+				.advisors(RetrievalContext.forUser(username))
 				.options(ChatOptions.builder()
 					.temperature(0.5)
 					.model("gpt-3.5-turbo")
@@ -102,8 +111,6 @@ public class FlashCardController {
 			e.printStackTrace();
 			return ResponseEntity.internalServerError()
 				.body("{\"error\": \"Error while creating FlashCard: " + e.getMessage() + "\"}");
-		} finally {
-			UserDocumentRetriever.clearCurrentUsername();
 		}
 	}
 }
\ No newline at end of file
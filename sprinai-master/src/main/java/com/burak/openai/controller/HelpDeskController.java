@@ -1,10 +1,16 @@
 package com.burak.openai.controller;
 
+import com.burak.openai.advisor.SemanticResponseCacheAdvisor;
 import com.burak.openai.tools.HelpDeskTools;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.ai.chat.client.ChatClient;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
 
 import java.util.Map;
 
@@ -15,6 +21,8 @@ import static org.springframework.ai.chat.memory.ChatMemory.CONVERSATION_ID;
 @CrossOrigin(origins = "http://localhost:3000")
 public class HelpDeskController {
 	
+	private static final Logger logger = LoggerFactory.getLogger(HelpDeskController.class);
+	
 	private final ChatClient chatClient;
 	private final HelpDeskTools helpDeskTools;
 	
@@ -26,14 +34,16 @@ public class HelpDeskController {
 	
 	@GetMapping("/help-desk")
 	public ResponseEntity<String> helpDesk(@RequestHeader("username") String username,
-	                                       @RequestParam("message") String message) {
+	                                       @RequestParam("message") String message,
+	                                       @RequestParam(value = "noCache", defaultValue = "false") boolean noCache) {
 		try {
 			System.out.println("=== HELP DESK REQUEST ===");
 			System.out.println("Username: " + username);
 			System.out.println("Message: " + message);
 			
 			String answer = chatClient.prompt()
-				.advisors(a -> a.param(CONVERSATION_ID, username))
+				.advisors(a -> a.param(CONVERSATION_ID, username)
+					.param(SemanticResponseCacheAdvisor.BYPASS, noCache))
 				.user(message)
 				.tools(helpDeskTools)
 				.toolContext(Map.of("username", username))
@@ -49,6 +59,30 @@ public class HelpDeskController {
 		}
 	}
 	
+	/**
+	 * Streaming variant of the GET endpoint: {@code token} events as the answer is
+	 * generated, then {@code done}. Tool calls run in stream mode as well.
+	 */
+	@GetMapping(value = "/help-desk/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+	public Flux<ServerSentEvent<Object>> helpDeskStream(@RequestHeader("username") String username,
+	                                                    @RequestParam("message") String message,
+	                                                    @RequestParam(value = "noCache", defaultValue = "false") boolean noCache) {
+		logger.info("Help desk stream request for user: {}", username);
+		logger.debug("Help desk stream message: {}", message);
+		
+		Flux<String> tokens = chatClient.prompt()
+			.advisors(a -> a.param(CONVERSATION_ID, username)
+				.param(SemanticResponseCacheAdvisor.BYPASS, noCache))
+			.user(message)
+			.tools(helpDeskTools)
+			.toolContext(Map.of("username", username))
+			.stream()
+			.content();
+		
+		return SseEvents.tokens(tokens,
+			e -> "❌ I'm experiencing technical difficulties right now. Please try again in a moment, or contact support directly if the issue persists.");
+	}
+	
 	/**
 	 * Alternative POST endpoint for more complex help desk requests
 	 */
@@ -57,6 +91,7 @@ public class HelpDeskController {
 		try {
 			String message = request.get("message");
 			String username = request.getOrDefault("username", "burak");
+			boolean noCache = Boolean.parseBoolean(request.get("noCache"));
 			
 			if (message == null || message.trim().isEmpty()) {
 				return ResponseEntity.badRequest()
@@ -68,7 +103,8 @@ public class HelpDeskController {
 			System.out.println("Message: " + message);
 			
 			String answer = chatClient.prompt()
-				.advisors(a -> a.param(CONVERSATION_ID, username))
+				.advisors(a -> a.param(CONVERSATION_ID, username)
+					.param(SemanticResponseCacheAdvisor.BYPASS, noCache))
 				.user(message)
 				.tools(helpDeskTools)
 				.toolContext(Map.of("username", username))
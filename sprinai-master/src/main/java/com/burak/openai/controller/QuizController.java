@@ -1,27 +1,47 @@
 package com.burak.openai.controller;
 
 import com.burak.openai.model.QuizResponse;
-import com.burak.openai.rag.UserDocumentRetriever;
+import com.burak.openai.rag.RetrievalContext;
+import com.burak.openai.rag.RetrievalQueries;
+import com.burak.openai.service.DocumentDigestService;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.ai.chat.client.ChatClient;
+import org.springframework.ai.chat.client.ChatClientAttributes;
 import org.springframework.ai.chat.prompt.ChatOptions;
+import org.springframework.ai.converter.BeanOutputConverter;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.core.io.Resource;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.nio.charset.StandardCharsets;
 import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
 
 @RestController
 @RequestMapping("/api/quiz")
 @CrossOrigin(origins = "http://localhost:3000")
 public class QuizController {
 	
+	private static final Logger logger = LoggerFactory.getLogger(QuizController.class);
+	
+	private static final String QUIZ_OUTPUT_FORMAT = new BeanOutputConverter<>(QuizResponse.class).getFormat();
+	
 	private final ChatClient quizChatClient;
 	private final ChatClient quizFallbackChatClient;
 	private final ChatClient quizContentAnalyzerClient;
+	private final DocumentDigestService documentDigestService;
 	private final ObjectMapper objectMapper;
 	
 	@Value("classpath:/promptTemplates/quizGenerationPromptTemplate.st")
@@ -33,56 +53,41 @@ public class QuizController {
 	public QuizController(@Qualifier("quizChatClient") ChatClient quizChatClient,
 	                      @Qualifier("quizFallbackChatClient") ChatClient quizFallbackChatClient,
 	                      @Qualifier("quizContentAnalyzerClient") ChatClient quizContentAnalyzerClient,
+	                      DocumentDigestService documentDigestService,
 	                      ObjectMapper objectMapper) {
 		this.quizChatClient = quizChatClient;
 		this.quizFallbackChatClient = quizFallbackChatClient;
 		this.quizContentAnalyzerClient = quizContentAnalyzerClient;
+		this.documentDigestService = documentDigestService;
 		this.objectMapper = objectMapper;
 	}
 	
 	@PostMapping("/generate-structured")
 	public ResponseEntity<String> generateStructuredQuiz(@RequestBody Map<String, Object> request) {
-		String username = (String) request.getOrDefault("username", "burak");
+		String username = (String) request.get("username");
 		Integer questionCount = (Integer) request.getOrDefault("questionCount", 5);
 		String difficulty = (String) request.getOrDefault("difficulty", "medium");
 		
+		if (username == null || username.isBlank()) {
+			return ResponseEntity.badRequest()
+				.body("{\"error\": \"Username is required\"}");
+		}
+		
 		System.out.println("=== QUIZ GENERATION WITH SETTINGS ===");
 		System.out.println("Username: " + username);
 		System.out.println("Question Count: " + questionCount);
 		System.out.println("Difficulty: " + difficulty);
 		
-		// Validate question count
-		if (questionCount < 3 || questionCount > 10) {
+		String settingsError = validateSettings(questionCount, difficulty);
+		if (settingsError != null) {
 			return ResponseEntity.badRequest()
-				.body("{\"error\": \"Question count must be between 3 and 10\"}");
-		}
-		
-		// Validate difficulty
-		if (!difficulty.equals("easy") && !difficulty.equals("medium") && !difficulty.equals("hard")) {
-			return ResponseEntity.badRequest()
-				.body("{\"error\": \"Difficulty must be easy, medium, or hard\"}");
+				.body("{\"error\": \"" + settingsError + "\"}");
 		}
 		
 		try {
-			// Set current username for retriever
-			UserDocumentRetriever.setCurrentUsername(username);
-			
-			// PHASE 1: Content Analysis with specialized client
-			System.out.println("Phase 1: Analyzing document content...");
-			String documentContent = quizContentAnalyzerClient.prompt()
-				.user("Analyze the document and extract key topics, important concepts, definitions, facts, and information that can be used for creating educational quiz questions. Focus on the most significant content.")
-				.call()
-				.content();
-			
-			System.out.println("Document content length: " + documentContent.length());
-			
-			// If document content is not found or insufficient
-			if (documentContent.length() < 100 ||
-				documentContent.contains("The answer to this question") ||
-				documentContent.contains("I don't know") ||
-				documentContent.toLowerCase().contains("not found")) {
-				
-				System.out.println("ERROR: No valid document content found");
+			// PHASE 1: Content from the precomputed document digests, or analysis with specialized client
+			Optional<String> documentContent = loadDocumentContent(username);
+			if (documentContent.isEmpty()) {
 				return ResponseEntity.ok("{\"error\": \"Document content not found. Please upload a document first.\"}");
 			}
 			
@@ -90,19 +95,12 @@ public class QuizController {
 			System.out.println("Phase 2: Generating quiz with settings...");
 			
 			// Token optimization - truncate content if too long
-			String truncatedContent = documentContent.length() > 2000 ?
-				documentContent.substring(0, 2000) + "..." : documentContent;
-			
-			// Load template and create prompt
-			String template = quizGenerationTemplate.getContentAsString(StandardCharsets.UTF_8);
-			String quizPrompt = template
-				.replace("{questionCount}", String.valueOf(questionCount))
-				.replace("{difficulty}", getDifficultyInTurkish(difficulty))
-				.replace("{documentContent}", truncatedContent);
+			String truncatedContent = truncateContent(documentContent.get());
 			
 			// Quiz client with structured output
 			QuizResponse quizResponse = quizChatClient.prompt()
-				.user(quizPrompt)
+				.advisors(RetrievalContext.forUser(username))
+				.user(quizPrompt(questionCount, difficulty, truncatedContent))
 				.call()
 				.entity(QuizResponse.class);
 			
@@ -123,11 +121,144 @@ public class QuizController {
 			
 			// Fallback approach
 			return generateEmergencyFallbackQuiz(username, questionCount);
-		} finally {
-			UserDocumentRetriever.clearCurrentUsername();
 		}
 	}
 	
+	/**
+	 * Streaming variant of {@link #generateStructuredQuiz}: each question is sent as a
+	 * {@code question} event as soon as the model has finished writing it, followed by
+	 * {@code done}. The model's JSON is parsed incrementally by {@link QuizQuestionStreamParser},
+	 * so the first question arrives long before the whole quiz is generated. If the stream
+	 * fails before any valid question was sent, the fallback quiz is sent instead.
+	 */
+	@PostMapping(value = "/generate-stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+	public ResponseEntity<Flux<ServerSentEvent<Object>>> generateQuizStream(@RequestBody Map<String, Object> request) {
+		String username = (String) request.get("username");
+		Integer questionCount = (Integer) request.getOrDefault("questionCount", 5);
+		String difficulty = (String) request.getOrDefault("difficulty", "medium");
+		
+		if (username == null || username.isBlank()) {
+			return ResponseEntity.badRequest().body(SseEvents.error("Username is required"));
+		}
+		
+		logger.info("Streaming quiz generation for user: {}", username);
+		logger.debug("Quiz settings: {} questions, difficulty {}", questionCount, difficulty);
+		
+		String settingsError = validateSettings(questionCount, difficulty);
+		if (settingsError != null) {
+			return ResponseEntity.badRequest().body(SseEvents.error(settingsError));
+		}
+		
+		Flux<ServerSentEvent<Object>> events = Mono.fromCallable(() -> loadDocumentContent(username))
+			.subscribeOn(Schedulers.boundedElastic())
+			.flatMapMany(documentContent -> documentContent
+				.map(content -> streamQuestions(username, questionCount, difficulty, truncateContent(content)))
+				.orElseGet(() -> SseEvents.error("Document content not found. Please upload a document first.")))
+			.onErrorResume(e -> {
+				logger.error("Streaming quiz generation failed for user: {}", username, e);
+				return SseEvents.error("Quiz could not be generated. Please try again.");
+			});
+		return ResponseEntity.ok(events);
+	}
+	
+	private Flux<ServerSentEvent<Object>> streamQuestions(String username, int questionCount, String difficulty,
+	                                                      String content) {
+		QuizQuestionStreamParser parser = new QuizQuestionStreamParser(objectMapper);
+		AtomicInteger sent = new AtomicInteger();
+		
+		Flux<ServerSentEvent<Object>> questions = quizChatClient.prompt()
+			.advisors(RetrievalContext.forUser(username))
+			// Added after retrieval by StreamOutputFormatAdvisor, so it stays out of the retrieval query
+			.advisors(a -> a.param(ChatClientAttributes.OUTPUT_FORMAT.getKey(), QUIZ_OUTPUT_FORMAT))
+			.user(quizPrompt(questionCount, difficulty, content))
+			.stream()
+			.content()
+			.concatMapIterable(parser::feed)
+			.take(questionCount)
+			.doOnNext(question -> sent.incrementAndGet())
+			.map(question -> SseEvents.event("question", question))
+			.onErrorResume(e -> {
+				logger.warn("Quiz stream failed after {} questions for user: {}", sent.get(), username, e);
+				return Flux.empty();
+			});
+		
+		Flux<ServerSentEvent<Object>> fallback = Flux.defer(() -> {
+			if (sent.get() > 0) {
+				return Flux.empty();
+			}
+			logger.info("No streamed questions for user: {}, using fallback quiz", username);
+			return Mono.fromCallable(() -> objectMapper.readValue(
+					generateFallbackQuiz(username, questionCount, difficulty, content).getBody(), QuizResponse.class))
+				.subscribeOn(Schedulers.boundedElastic())
+				.flatMapIterable(QuizResponse::questions)
+				.take(questionCount)
+				.map(question -> SseEvents.event("question", question));
+		});
+		
+		return questions
+			.concatWith(fallback)
+			.concatWith(Flux.just(SseEvents.done()));
+	}
+	
+	/**
+	 * Returns the validation error for the quiz settings, or null when they are valid
+	 */
+	private String validateSettings(Integer questionCount, String difficulty) {
+		if (questionCount < 3 || questionCount > 10) {
+			return "Question count must be between 3 and 10";
+		}
+		if (!difficulty.equals("easy") && !difficulty.equals("medium") && !difficulty.equals("hard")) {
+			return "Difficulty must be easy, medium, or hard";
+		}
+		return null;
+	}
+	
+	/**
+	 * Document content for the quiz from the precomputed digests, or from the content analyzer;
+	 * empty when the user has no usable document content
+	 */
+	private Optional<String> loadDocumentContent(String username) {
+		System.out.println("Phase 1: Analyzing document content...");
+		String documentContent = documentDigestService.userDigest(username)
+			.orElseGet(() -> quizContentAnalyzerClient.prompt()
+				.advisors(RetrievalContext.forUser(username))
+				.user(RetrievalQueries.QUIZ_CONTENT_ANALYSIS_QUERY)
+				.call()
+				.content());
+		
+		System.out.println("Document content length: " + documentContent.length());
+		
+		// If document content is not found or insufficient
+		if (documentContent.length() < 100 ||
+			documentContent.contains("The answer to this question") ||
+			documentContent.contains("I don't know") ||
+			documentContent.toLowerCase().contains("not found")) {
+			
+			System.out.println("ERROR: No valid document content found");
+			return Optional.empty();
+		}
+		return Optional.of(documentContent);
+	}
+	
+	private String truncateContent(String documentContent) {
+		return documentContent.length() > 2000 ?
+			documentContent.substring(0, 2000) + "..." : documentContent;
+	}
+	
+	private String quizPrompt(int questionCount, String difficulty, String content) {
+		// Load template and create prompt
+		String template;
+		try {
+			template = quizGenerationTemplate.getContentAsString(StandardCharsets.UTF_8);
+		} catch (IOException e) {
+			throw new UncheckedIOException("Could not read quiz generation template", e);
+		}
+		return template
+			.replace("{questionCount}", String.valueOf(questionCount))
+			.replace("{difficulty}", getDifficultyInTurkish(difficulty))
+			.replace("{documentContent}", content);
+	}
+	
 	/**
 	 * Convert difficulty to Turkish for better prompt understanding
 	 */
@@ -146,7 +277,6 @@ public class QuizController {
 	private ResponseEntity<String> generateFallbackQuiz(String username, int questionCount, String difficulty, String content) {
 		try {
 			System.out.println("=== FALLBACK QUIZ GENERATION ===");
-			UserDocumentRetriever.setCurrentUsername(username);
 			
 			// Load fallback template
 			String template = quizFallbackTemplate.getContentAsString(StandardCharsets.UTF_8);
@@ -170,8 +300,6 @@ public class QuizController {
 		} catch (Exception fallbackEx) {
 			System.err.println("Fallback approach failed: " + fallbackEx.getMessage());
 			return generateEmergencyFallbackQuiz(username, questionCount);
-		} finally {
-			UserDocumentRetriever.clearCurrentUsername();
 		}
 	}
 	
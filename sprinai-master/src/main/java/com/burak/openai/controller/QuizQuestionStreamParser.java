@@ -0,0 +1,146 @@
+package com.burak.openai.controller;
+
+import com.burak.openai.model.QuizOptions;
+import com.burak.openai.model.QuizQuestion;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.async.ByteArrayFeeder;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Incremental parser for a streamed {@code {"questions": [...]}} quiz response, returning
+ * each question as soon as its object is closed instead of waiting for the whole document.
+ * <p>
+ * Chunks are fed to Jackson's non-blocking parser as they arrive; text before the first
+ * opening brace (e.g. a markdown fence) and anything after the root object is ignored. The
+ * tokens of each element of the root {@code questions} array are copied into a
+ * {@link TokenBuffer} and bound to a {@link QuizQuestion} when the element ends. Questions
+ * without text, with a missing option or with an answer other than A-D are dropped. Not
+ * thread-safe; use one instance per response stream.
+ */
+final class QuizQuestionStreamParser {
+
+	private static final Logger logger = LoggerFactory.getLogger(QuizQuestionStreamParser.class);
+
+	private static final String QUESTIONS_FIELD = "questions";
+	private static final Set<String> ANSWERS = Set.of("A", "B", "C", "D");
+
+	private final ObjectMapper objectMapper;
+	private final JsonParser parser;
+	private final ByteArrayFeeder feeder;
+
+	private boolean started;
+	private boolean finished;
+	private int depth;
+	private String rootField;
+	private boolean inQuestions;
+	private TokenBuffer questionTokens;
+
+	QuizQuestionStreamParser(ObjectMapper objectMapper) {
+		this.objectMapper = objectMapper;
+		try {
+			this.parser = objectMapper.getFactory().createNonBlockingByteArrayParser();
+		} catch (IOException e) {
+			throw new UncheckedIOException("Could not create streaming JSON parser", e);
+		}
+		this.feeder = (ByteArrayFeeder) parser.getNonBlockingInputFeeder();
+	}
+
+	/**
+	 * Feeds the next chunk of the response and returns the questions completed by it.
+	 *
+	 * @throws UncheckedIOException if the response is not valid JSON
+	 */
+	List<QuizQuestion> feed(String chunk) {
+		if (finished || chunk == null || chunk.isEmpty()) {
+			return List.of();
+		}
+		if (!started) {
+			int start = chunk.indexOf('{');
+			if (start < 0) {
+				return List.of();
+			}
+			chunk = chunk.substring(start);
+			started = true;
+		}
+		byte[] bytes = chunk.getBytes(StandardCharsets.UTF_8);
+		try {
+			feeder.feedInput(bytes, 0, bytes.length);
+			return drain();
+		} catch (IOException e) {
+			throw new UncheckedIOException("Malformed quiz JSON in model response", e);
+		}
+	}
+
+	private List<QuizQuestion> drain() throws IOException {
+		List<QuizQuestion> questions = new ArrayList<>();
+		JsonToken token;
+		while (!finished && (token = parser.nextToken()) != JsonToken.NOT_AVAILABLE && token != null) {
+			if (token == JsonToken.START_OBJECT && inQuestions && depth == 2) {
+				questionTokens = new TokenBuffer(parser);
+			}
+			if (questionTokens != null) {
+				questionTokens.copyCurrentEvent(parser);
+			}
+
+			if (token.isStructStart()) {
+				if (token == JsonToken.START_ARRAY && depth == 1 && QUESTIONS_FIELD.equals(rootField)) {
+					inQuestions = true;
+				}
+				depth++;
+			} else if (token.isStructEnd()) {
+				depth--;
+				if (depth == 2 && questionTokens != null) {
+					bind(questionTokens).ifPresent(questions::add);
+					questionTokens = null;
+				} else if (depth == 1 && inQuestions) {
+					inQuestions = false;
+				} else if (depth == 0) {
+					finished = true;
+					parser.close();
+				}
+			} else if (token == JsonToken.FIELD_NAME && depth == 1) {
+				rootField = parser.currentName();
+			}
+		}
+		return questions;
+	}
+
+	private Optional<QuizQuestion> bind(TokenBuffer buffer) {
+		QuizQuestion question;
+		try (JsonParser questionParser = buffer.asParser(objectMapper)) {
+			question = objectMapper.readValue(questionParser, QuizQuestion.class);
+		} catch (IOException e) {
+			logger.warn("Skipping unreadable quiz question: {}", e.getMessage());
+			return Optional.empty();
+		}
+		if (!isValid(question)) {
+			logger.warn("Skipping invalid quiz question: {}", question);
+			return Optional.empty();
+		}
+		return Optional.of(question);
+	}
+
+	private static boolean isValid(QuizQuestion question) {
+		QuizOptions options = question.options();
+		return hasText(question.question())
+			&& options != null
+			&& hasText(options.A()) && hasText(options.B()) && hasText(options.C()) && hasText(options.D())
+			&& question.answer() != null && ANSWERS.contains(question.answer());
+	}
+
+	private static boolean hasText(String value) {
+		return value != null && !value.isBlank();
+	}
+}
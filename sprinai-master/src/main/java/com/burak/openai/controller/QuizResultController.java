@@ -3,14 +3,21 @@ package com.burak.openai.controller;
 import com.burak.openai.model.QuizResultRequest;
 import com.burak.openai.model.QuizResultResponse;
 import com.burak.openai.model.WrongAnswer;
-import com.burak.openai.rag.UserDocumentRetriever;
+import com.burak.openai.rag.RetrievalContext;
 import com.burak.openai.service.MCPIntegrationService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.ai.chat.client.ChatClient;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.core.io.Resource;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
 
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
@@ -22,6 +29,29 @@ import java.util.Map;
 @CrossOrigin(origins = "http://localhost:3000")
 public class QuizResultController {
 	
+	private static final Logger logger = LoggerFactory.getLogger(QuizResultController.class);
+	
+	private static final String PERFECT_SCORE_ANALYSIS =
+		"🎉 Congratulations! You answered all questions correctly! Excellent performance! Keep up the great work! 🏆";
+	
+	// Fallback friendly message
+	private static final String FALLBACK_ANALYSIS = """
+		🎯 Don't worry about the mistakes - they're learning opportunities!
+		
+		📚 Here's what to focus on:
+		• Review the specific topics from your incorrect answers
+		• Take your time to understand the concepts, not just memorize
+		• Use the web resources below for additional explanations
+		
+		💡 Study Tips:
+		• Break down complex topics into smaller parts
+		• Practice with different examples
+		• Don't hesitate to revisit your course materials
+		
+		🌟 You're doing great by analyzing your mistakes! This shows you're committed to learning.
+		Keep up the excellent effort and you'll master these topics! 💪
+		""";
+	
 	private final ChatClient chatClient;
 	private final MCPIntegrationService mcpIntegrationService;
 	
@@ -78,13 +108,18 @@ public class QuizResultController {
 		try {
 			@SuppressWarnings("unchecked")
 			List<Map<String, Object>> wrongAnswers = (List<Map<String, Object>>) request.get("wrongAnswers");
-			String username = (String) request.getOrDefault("username", "burak");
+			String username = (String) request.get("username");
+			
+			if (username == null || username.isBlank()) {
+				return ResponseEntity.badRequest()
+					.body(Map.of("error", "Username is required"));
+			}
 			
 			System.out.println("🔍 Starting enhanced mistake analysis for user: " + username);
 			
 			if (wrongAnswers == null || wrongAnswers.isEmpty()) {
 				return ResponseEntity.ok(Map.of(
-					"analysis", "🎉 Congratulations! You answered all questions correctly! Excellent performance! Keep up the great work! 🏆",
+					"analysis", PERFECT_SCORE_ANALYSIS,
 					"webResources", List.of(),
 					"canSaveReport", true,
 					"reportData", Map.of(
@@ -97,33 +132,15 @@ public class QuizResultController {
 				));
 			}
 			
-			// Set current username for retriever
-			UserDocumentRetriever.setCurrentUsername(username);
-			
 			// Build analysis prompt with friendly tone
-			StringBuilder wrongAnswersText = new StringBuilder();
-			List<String> topicsForWebSearch = new ArrayList<>();
-			
-			for (Map<String, Object> wrongAnswer : wrongAnswers) {
-				String questionText = (String) wrongAnswer.get("questionText");
-				wrongAnswersText.append("❌ Question ").append(wrongAnswer.get("questionNumber")).append(": ");
-				wrongAnswersText.append(questionText).append("\n");
-				wrongAnswersText.append("📝 Your Answer: ").append(wrongAnswer.get("studentAnswer")).append("\n");
-				wrongAnswersText.append("✅ Correct Answer: ").append(wrongAnswer.get("correctAnswer")).append("\n\n");
-				
-				// Extract clean topic for web search
-				String topic = extractCleanTopicFromQuestion(questionText);
-				if (!topic.isEmpty()) {
-					topicsForWebSearch.add(topic);
-				}
-			}
+			MistakeSummary mistakes = summarizeMistakes(wrongAnswers);
 			
 			// Generate friendly AI analysis
-			String analysis = generateFriendlyAnalysis(wrongAnswersText.toString());
+			String analysis = generateFriendlyAnalysis(username, mistakes.wrongAnswersText());
 			
 			// Get web resources for incorrect topics using MCP Tavily
-			System.out.println("🌐 Searching for web resources for topics: " + topicsForWebSearch);
-			List<Map<String, Object>> webResources = mcpIntegrationService.searchWebResourcesForTopics(topicsForWebSearch);
+			System.out.println("🌐 Searching for web resources for topics: " + mistakes.topicsForWebSearch());
+			List<Map<String, Object>> webResources = mcpIntegrationService.searchWebResourcesForTopics(mistakes.topicsForWebSearch());
 			
 			System.out.println("✅ Analysis complete. Found " + webResources.size() + " web resources");
 			
@@ -149,18 +166,133 @@ public class QuizResultController {
 					"webResources", List.of(),
 					"canSaveReport", false
 				));
-		} finally {
-			UserDocumentRetriever.clearCurrentUsername();
 		}
 	}
 	
+	/**
+	 * Streaming variant of {@link #analyzeMistakesWithWebResources}: the analysis is sent as
+	 * {@code token} events while the web resource search runs in parallel, followed by one
+	 * {@code resources} event with the web resources and report data, then {@code done}.
+	 * If the model fails before any token was sent, the fallback analysis is sent instead;
+	 * if it fails midway, an {@code error} event follows the partial analysis, which is kept
+	 * in the report data.
+	 */
+	@PostMapping(value = "/analyzeMistakes/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+	public ResponseEntity<Flux<ServerSentEvent<Object>>> analyzeMistakesStream(@RequestBody Map<String, Object> request) {
+		@SuppressWarnings("unchecked")
+		List<Map<String, Object>> wrongAnswers = (List<Map<String, Object>>) request.get("wrongAnswers");
+		String username = (String) request.get("username");
+		
+		if (username == null || username.isBlank()) {
+			return ResponseEntity.badRequest().body(SseEvents.error("Username is required"));
+		}
+		
+		logger.info("Starting streaming mistake analysis for user: {}", username);
+		
+		if (wrongAnswers == null || wrongAnswers.isEmpty()) {
+			return ResponseEntity.ok(Flux.just(
+				SseEvents.token(PERFECT_SCORE_ANALYSIS),
+				SseEvents.event("resources", resourcesEvent(username, List.of(), "Perfect score achieved! 🌟", List.of())),
+				SseEvents.done()));
+		}
+		
+		MistakeSummary mistakes = summarizeMistakes(wrongAnswers);
+		
+		// Web search runs while the analysis streams
+		Mono<List<Map<String, Object>>> webResources = Mono
+			.fromCallable(() -> mcpIntegrationService.searchWebResourcesForTopics(mistakes.topicsForWebSearch()))
+			.subscribeOn(Schedulers.boundedElastic())
+			.onErrorReturn(List.of())
+			.cache();
+		webResources.subscribe();
+		
+		StringBuilder analysis = new StringBuilder();
+		Flux<ServerSentEvent<Object>> tokens = chatClient.prompt()
+			.advisors(RetrievalContext.forUser(username))
+			.user(analysisPrompt(mistakes.wrongAnswersText()))
+			.stream()
+			.content()
+			.doOnNext(analysis::append)
+			.map(SseEvents::token)
+			.onErrorResume(e -> {
+				logger.warn("Error streaming friendly analysis for user {}", username, e);
+				if (!analysis.isEmpty()) {
+					// Part of the analysis was already shown; keep it and report the failure
+					return SseEvents.error("The analysis was interrupted. Review the topics above and the resources below.");
+				}
+				analysis.append(FALLBACK_ANALYSIS);
+				return Flux.just(SseEvents.token(FALLBACK_ANALYSIS));
+			});
+		
+		return ResponseEntity.ok(tokens
+			.concatWith(webResources.map(resources ->
+				SseEvents.event("resources", resourcesEvent(username, wrongAnswers, analysis.toString(), resources))))
+			.concatWith(Flux.just(SseEvents.done())));
+	}
+	
+	private Map<String, Object> resourcesEvent(String username, List<Map<String, Object>> wrongAnswers,
+	                                           String analysis, List<Map<String, Object>> webResources) {
+		return Map.of(
+			"webResources", webResources,
+			"canSaveReport", true,
+			"reportData", Map.of(
+				"username", username,
+				"wrongAnswers", wrongAnswers,
+				"analysis", analysis,
+				"webResources", webResources,
+				"timestamp", System.currentTimeMillis()
+			)
+		);
+	}
+	
+	/**
+	 * Lists the wrong answers for the analysis prompt and collects their topics for web search
+	 */
+	private MistakeSummary summarizeMistakes(List<Map<String, Object>> wrongAnswers) {
+		StringBuilder wrongAnswersText = new StringBuilder();
+		List<String> topicsForWebSearch = new ArrayList<>();
+		
+		for (Map<String, Object> wrongAnswer : wrongAnswers) {
+			String questionText = (String) wrongAnswer.get("questionText");
+			wrongAnswersText.append("❌ Question ").append(wrongAnswer.get("questionNumber")).append(": ");
+			wrongAnswersText.append(questionText).append("\n");
+			wrongAnswersText.append("📝 Your Answer: ").append(wrongAnswer.get("studentAnswer")).append("\n");
+			wrongAnswersText.append("✅ Correct Answer: ").append(wrongAnswer.get("correctAnswer")).append("\n\n");
+			
+			// Extract clean topic for web search
+			String topic = extractCleanTopicFromQuestion(questionText);
+			if (!topic.isEmpty()) {
+				topicsForWebSearch.add(topic);
+			}
+		}
+		return new MistakeSummary(wrongAnswersText.toString(), topicsForWebSearch);
+	}
+	
+	private record MistakeSummary(String wrongAnswersText, List<String> topicsForWebSearch) {
+	}
+	
 	/**
 	 * Generate friendly, encouraging analysis with emojis
 	 */
-	private String generateFriendlyAnalysis(String wrongAnswersText) {
+	private String generateFriendlyAnalysis(String username, String wrongAnswersText) {
 		try {
-			// Use a simple, friendly analysis prompt instead of complex template
-			String analysisPrompt = String.format("""
+			String analysis = chatClient.prompt()
+				.advisors(RetrievalContext.forUser(username))
+				.user(analysisPrompt(wrongAnswersText))
+				.call()
+				.content();
+			
+			return analysis;
+			
+		} catch (Exception e) {
+			System.err.println("Error generating friendly analysis: " + e.getMessage());
+			return FALLBACK_ANALYSIS;
+		}
+	}
+	
+	private String analysisPrompt(String wrongAnswersText) {
+		// Use a simple, friendly analysis prompt instead of complex template
+		return String.format("""
 				You are a friendly AI tutor helping a student improve their quiz performance.
 				Provide encouraging, helpful feedback about their mistakes.
 				
@@ -176,34 +308,6 @@ public class QuizResultController {
 				Use emojis, keep it friendly and supportive. No more than 10 sentences total.
 				Focus on helping them improve, not dwelling on mistakes.
 				""", wrongAnswersText);
-			
-			String analysis = chatClient.prompt()
-				.user(analysisPrompt)
-				.call()
-				.content();
-			
-			return analysis;
-			
-		} catch (Exception e) {
-			System.err.println("Error generating friendly analysis: " + e.getMessage());
-			// Fallback friendly message
-			return """
-				🎯 Don't worry about the mistakes - they're learning opportunities!
-				
-				📚 Here's what to focus on:
-				• Review the specific topics from your incorrect answers
-				• Take your time to understand the concepts, not just memorize
-				• Use the web resources below for additional explanations
-				
-				💡 Study Tips:
-				• Break down complex topics into smaller parts
-				• Practice with different examples
-				• Don't hesitate to revisit your course materials
-				
-				🌟 You're doing great by analyzing your mistakes! This shows you're committed to learning.
-				Keep up the excellent effort and you'll master these topics! 💪
-				""";
-		}
 	}
 	
 	/**
@@ -1,6 +1,6 @@
 package com.burak.openai.controller;
 
-import com.burak.openai.rag.UserDocumentRetriever;
+import com.burak.openai.rag.RetrievalContext;
 import org.springframework.ai.chat.client.ChatClient;
 import org.springframework.ai.vectorstore.VectorStore;
 import org.springframework.beans.factory.annotation.Qualifier;
@@ -76,23 +76,17 @@ public class RAGController {
 		@RequestHeader("username") String username,
 		@RequestParam("message") String message) {
 
-		try {
-			UserDocumentRetriever.setCurrentUsername(username);
-
-			String answer = userDocumentChatClient.prompt()
-				.advisors(advisorSpec -> advisorSpec.param(CONVERSATION_ID, username))
-				.user(message)
-				.call().content();
-
-			return ResponseEntity.ok(Map.of(
-				"answer", answer,
-				"username", username,
-				"query", message
-			));
+		String answer = userDocumentChatClient.prompt()
+			.advisors(advisorSpec -> advisorSpec.param(CONVERSATION_ID, username))
+			.advisors(RetrievalContext.forUser(username))
+			.user(message)
+			.call().content();
 
-		} finally {
-			UserDocumentRetriever.clearCurrentUsername();
-		}
+		return ResponseEntity.ok(Map.of(
+			"answer", answer,
+			"username", username,
+			"query", message
+		));
 	}
 	
 
@@ -0,0 +1,50 @@
+package com.burak.openai.controller;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.codec.ServerSentEvent;
+import reactor.core.publisher.Flux;
+
+import java.util.function.Function;
+
+/**
+ * Server-sent event framing shared by the streaming endpoints: {@code token} events carry
+ * answer fragments as they arrive, {@code done} ends a successful stream and {@code error}
+ * ends a failed one with a user-facing message.
+ */
+final class SseEvents {
+	
+	private static final Logger logger = LoggerFactory.getLogger(SseEvents.class);
+	
+	private SseEvents() {
+	}
+	
+	/**
+	 * Frames the tokens, followed by {@code done}; a failure ends the stream with an
+	 * {@code error} event carrying the message derived from it.
+	 */
+	static Flux<ServerSentEvent<Object>> tokens(Flux<String> tokens, Function<Throwable, String> errorMessage) {
+		return tokens.map(SseEvents::token)
+			.concatWith(Flux.just(done()))
+			.onErrorResume(e -> {
+				logger.warn("Streaming response failed: {}", e.getMessage());
+				return error(errorMessage.apply(e));
+			});
+	}
+	
+	static ServerSentEvent<Object> token(String token) {
+		return ServerSentEvent.<Object>builder(token).event("token").build();
+	}
+	
+	static ServerSentEvent<Object> event(String name, Object data) {
+		return ServerSentEvent.<Object>builder(data).event(name).build();
+	}
+	
+	static ServerSentEvent<Object> done() {
+		return ServerSentEvent.<Object>builder("").event("done").build();
+	}
+	
+	static Flux<ServerSentEvent<Object>> error(String message) {
+		return Flux.just(ServerSentEvent.<Object>builder(message).event("error").build());
+	}
+}
@@ -1,13 +1,19 @@
 package com.burak.openai.controller;
 
-import com.burak.openai.rag.UserDocumentRetriever;
+import com.burak.openai.advisor.SemanticResponseCacheAdvisor;
+import com.burak.openai.rag.RetrievalContext;
 import org.springframework.ai.chat.client.ChatClient;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
 
 import java.util.Map;
 
+import static org.springframework.ai.chat.memory.ChatMemory.CONVERSATION_ID;
+
 @RestController
 @RequestMapping("/api/user-documents")
 @CrossOrigin(origins = "http://localhost:3000")
@@ -22,17 +28,21 @@ public class UserDocumentController {
 	@PostMapping("/chat")
 	public ResponseEntity<String> chat(@RequestBody Map<String, String> request) {
 		String message = request.get("message");
-		String username = request.getOrDefault("username", "burak");
+		String username = request.get("username");
+		boolean noCache = Boolean.parseBoolean(request.get("noCache"));
 		
 		if (message == null || message.trim().isEmpty()) {
 			return ResponseEntity.badRequest().body("Mesaj boş olamaz");
 		}
+		if (username == null || username.isBlank()) {
+			return ResponseEntity.badRequest().body("Kullanıcı adı boş olamaz");
+		}
 		
 		try {
-			// Set current username for retriever
-			UserDocumentRetriever.setCurrentUsername(username);
-			
 			String response = chatClient.prompt()
+				.advisors(RetrievalContext.forUser(username))
+				.advisors(a -> a.param(CONVERSATION_ID, username)
+					.param(SemanticResponseCacheAdvisor.BYPASS, noCache))
 				.user(message)
 				.call()
 				.content();
@@ -41,9 +51,34 @@ public class UserDocumentController {
 		} catch (Exception e) {
 			return ResponseEntity.internalServerError()
 				.body("Hata oluştu: " + e.getMessage());
-		} finally {
-			// Clear username
-			UserDocumentRetriever.clearCurrentUsername();
 		}
 	}
+	
+	/**
+	 * Streaming variant of {@link #chat}: sends {@code token} events as the answer is
+	 * generated, then a {@code done} event, or an {@code error} event if it fails.
+	 */
+	@PostMapping(value = "/chat/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+	public ResponseEntity<Flux<ServerSentEvent<Object>>> chatStream(@RequestBody Map<String, String> request) {
+		String message = request.get("message");
+		String username = request.get("username");
+		boolean noCache = Boolean.parseBoolean(request.get("noCache"));
+		
+		if (message == null || message.trim().isEmpty()) {
+			return ResponseEntity.badRequest().body(SseEvents.error("Mesaj boş olamaz"));
+		}
+		if (username == null || username.isBlank()) {
+			return ResponseEntity.badRequest().body(SseEvents.error("Kullanıcı adı boş olamaz"));
+		}
+		
+		Flux<String> tokens = chatClient.prompt()
+			.advisors(RetrievalContext.forUser(username))
+			.advisors(a -> a.param(CONVERSATION_ID, username)
+				.param(SemanticResponseCacheAdvisor.BYPASS, noCache))
+			.user(message)
+			.stream()
+			.content();
+		
+		return ResponseEntity.ok(SseEvents.tokens(tokens, e -> "Hata oluştu: " + e.getMessage()));
+	}
 }
\ No newline at end of file
@@ -0,0 +1,187 @@
+package com.burak.openai.embedding;
+
+import com.burak.openai.cache.CacheStats;
+import com.burak.openai.cache.CacheStatsProvider;
+import com.burak.openai.cache.LruCache;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.embedding.Embedding;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.ai.embedding.EmbeddingOptions;
+import org.springframework.ai.embedding.EmbeddingRequest;
+import org.springframework.ai.embedding.EmbeddingResponse;
+import org.springframework.util.Assert;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * {@link EmbeddingModel} decorator that caches vectors by (model name, SHA-256 of the text).
+ * <p>
+ * Lookups go to an in-process LRU of {@code float[]} vectors first, then to the persistent
+ * {@link EmbeddingCacheStore}; only texts missing from both are sent to the delegate, in a
+ * single request. Re-ingesting content that was embedded before therefore costs a hash and
+ * a lookup per chunk instead of an API call.
+ * <p>
+ * Single-text calls through {@link #embed(String)}, which is how the vector store embeds
+ * search queries, are served from a {@link QueryEmbeddingCache} keyed by the normalised
+ * query text instead, and go straight to the delegate on a miss: queries are short-lived
+ * and mostly unique, so they never touch the content-hash tiers and never cost a
+ * synchronous database write on the request path.
+ */
+public class CachingEmbeddingModel implements EmbeddingModel, CacheStatsProvider {
+
+	private static final Logger logger = LoggerFactory.getLogger(CachingEmbeddingModel.class);
+
+	private static final long ENTRY_OVERHEAD_BYTES = 96;
+
+	private final EmbeddingModel delegate;
+	private final EmbeddingCacheStore store;
+	private final String defaultModelName;
+	private final LruCache<String, float[]> memoryCache;
+	private final QueryEmbeddingCache queryCache;
+
+	private final AtomicLong persistentHits = new AtomicLong();
+	private final AtomicLong persistentMisses = new AtomicLong();
+
+	public CachingEmbeddingModel(EmbeddingModel delegate, EmbeddingCacheStore store, String defaultModelName,
+	                             long maxMemoryBytes, QueryEmbeddingCache queryCache) {
+		Assert.notNull(delegate, "delegate cannot be null");
+		Assert.notNull(store, "store cannot be null");
+		Assert.notNull(queryCache, "queryCache cannot be null");
+		this.queryCache = queryCache;
+		Assert.hasText(defaultModelName, "defaultModelName cannot be empty");
+		this.delegate = delegate;
+		this.store = store;
+		this.defaultModelName = defaultModelName;
+		this.memoryCache = new LruCache<>("embedding-memory", maxMemoryBytes,
+			vector -> (long) vector.length * Float.BYTES + ENTRY_OVERHEAD_BYTES);
+	}
+
+	@Override
+	public EmbeddingResponse call(EmbeddingRequest request) {
+		List<String> texts = request.getInstructions();
+		String model = modelName(request.getOptions());
+
+		float[][] vectors = new float[texts.size()][];
+		Map<String, List<Integer>> missingByHash = new LinkedHashMap<>();
+		for (int i = 0; i < texts.size(); i++) {
+			String hash = contentHash(texts.get(i));
+			float[] cached = memoryCache.get(cacheKey(model, hash));
+			if (cached != null) {
+				vectors[i] = cached;
+			} else {
+				missingByHash.computeIfAbsent(hash, h -> new ArrayList<>()).add(i);
+			}
+		}
+
+		if (!missingByHash.isEmpty()) {
+			Map<String, float[]> persisted = store.findAll(model, missingByHash.keySet());
+			persistentHits.addAndGet(persisted.size());
+			persistentMisses.addAndGet(missingByHash.size() - persisted.size());
+			persisted.forEach((hash, vector) -> {
+				memoryCache.put(cacheKey(model, hash), vector);
+				missingByHash.remove(hash).forEach(i -> vectors[i] = vector);
+			});
+		}
+
+		if (!missingByHash.isEmpty()) {
+			embedMissing(request.getOptions(), model, texts, missingByHash, vectors);
+		}
+
+		List<Embedding> embeddings = new ArrayList<>(vectors.length);
+		for (int i = 0; i < vectors.length; i++) {
+			embeddings.add(new Embedding(vectors[i], i));
+		}
+		return new EmbeddingResponse(embeddings);
+	}
+
+	private void embedMissing(EmbeddingOptions options, String model, List<String> texts,
+	                          Map<String, List<Integer>> missingByHash, float[][] vectors) {
+		List<String> hashes = new ArrayList<>(missingByHash.keySet());
+		List<String> missingTexts = hashes.stream()
+			.map(hash -> texts.get(missingByHash.get(hash).get(0)))
+			.toList();
+
+		EmbeddingResponse response = delegate.call(new EmbeddingRequest(missingTexts, options));
+
+		Map<String, float[]> computed = new LinkedHashMap<>();
+		for (int i = 0; i < hashes.size(); i++) {
+			float[] vector = response.getResults().get(i).getOutput();
+			String hash = hashes.get(i);
+			computed.put(hash, vector);
+			memoryCache.put(cacheKey(model, hash), vector);
+			missingByHash.get(hash).forEach(index -> vectors[index] = vector);
+		}
+
+		try {
+			store.saveAll(model, computed);
+		} catch (Exception e) {
+			// The persistent tier is an optimisation; never fail an embedding call because of it
+			logger.warn("Could not persist {} embeddings: {}", computed.size(), e.getMessage());
+		}
+	}
+
+	@Override
+	public float[] embed(String text) {
+		float[] cached = queryCache.get(defaultModelName, text);
+		if (cached != null) {
+			return cached;
+		}
+		float[] vector = delegate.embed(text);
+		queryCache.put(defaultModelName, text, vector);
+		return vector;
+	}
+
+	@Override
+	public float[] embed(Document document) {
+		// Document content goes through the content-hash tiers only
+		return EmbeddingModel.super.embed(document.getText());
+	}
+
+	@Override
+	public int dimensions() {
+		return delegate.dimensions();
+	}
+
+	@Override
+	public List<CacheStats> cacheStats() {
+		long hits = persistentHits.get();
+		long misses = persistentMisses.get();
+		long entries;
+		try {
+			entries = store.count();
+		} catch (Exception e) {
+			entries = -1;
+		}
+		return List.of(
+			memoryCache.stats(),
+			queryCache.stats(),
+			CacheStats.of("embedding-persistent", hits, misses, entries, entries, 0));
+	}
+
+	private String modelName(EmbeddingOptions options) {
+		return options != null && options.getModel() != null ? options.getModel() : defaultModelName;
+	}
+
+	private static String cacheKey(String model, String hash) {
+		return model + ':' + hash;
+	}
+
+	static String contentHash(String text) {
+		try {
+			MessageDigest digest = MessageDigest.getInstance("SHA-256");
+			return HexFormat.of().formatHex(digest.digest(text.getBytes(StandardCharsets.UTF_8)));
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException("SHA-256 is not available", e);
+		}
+	}
+}
@@ -0,0 +1,121 @@
+package com.burak.openai.embedding;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Persistent tier of the embedding cache, kept in the application's H2 database so that
+ * vectors survive restarts. Vectors are stored as little-endian float blobs keyed by
+ * (model, SHA-256 of the text). The table is bounded: once it grows past
+ * {@code max-entries} the oldest rows are pruned.
+ */
+@Component
+@Slf4j
+public class EmbeddingCacheStore {
+
+	private static final int PRUNE_EVERY_INSERTS = 1000;
+
+	private final JdbcTemplate jdbcTemplate;
+	private final NamedParameterJdbcTemplate namedJdbcTemplate;
+	private final long maxEntries;
+	private final AtomicLong insertsSincePrune = new AtomicLong();
+
+	public EmbeddingCacheStore(JdbcTemplate jdbcTemplate,
+	                           @Value("${embedding.cache.persistent.max-entries:200000}") long maxEntries) {
+		this.jdbcTemplate = jdbcTemplate;
+		this.namedJdbcTemplate = new NamedParameterJdbcTemplate(jdbcTemplate);
+		this.maxEntries = maxEntries;
+	}
+
+	@PostConstruct
+	public void createTable() {
+		jdbcTemplate.execute("""
+			CREATE TABLE IF NOT EXISTS EMBEDDING_CACHE (
+			    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+			    model VARCHAR(100) NOT NULL,
+			    content_hash CHAR(64) NOT NULL,
+			    vector VARBINARY(65536) NOT NULL,
+			    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP NOT NULL,
+			    CONSTRAINT EMBEDDING_CACHE_KEY UNIQUE (model, content_hash)
+			)
+			""");
+	}
+
+	/**
+	 * Looks up the given hashes for a model and returns the vectors that were found,
+	 * keyed by hash.
+	 */
+	public Map<String, float[]> findAll(String model, Collection<String> contentHashes) {
+		Map<String, float[]> found = new HashMap<>();
+		if (contentHashes.isEmpty()) {
+			return found;
+		}
+		MapSqlParameterSource params = new MapSqlParameterSource()
+			.addValue("model", model)
+			.addValue("hashes", contentHashes);
+		namedJdbcTemplate.query(
+			"SELECT content_hash, vector FROM EMBEDDING_CACHE WHERE model = :model AND content_hash IN (:hashes)",
+			params,
+			rs -> {
+				found.put(rs.getString("content_hash"), fromBytes(rs.getBytes("vector")));
+			});
+		return found;
+	}
+
+	public void saveAll(String model, Map<String, float[]> vectorsByHash) {
+		if (vectorsByHash.isEmpty()) {
+			return;
+		}
+		List<Object[]> rows = vectorsByHash.entrySet().stream()
+			.map(entry -> new Object[] {model, entry.getKey(), toBytes(entry.getValue())})
+			.toList();
+		jdbcTemplate.batchUpdate(
+			"MERGE INTO EMBEDDING_CACHE (model, content_hash, vector) KEY (model, content_hash) VALUES (?, ?, ?)",
+			rows);
+
+		if (insertsSincePrune.addAndGet(rows.size()) >= PRUNE_EVERY_INSERTS) {
+			insertsSincePrune.set(0);
+			prune();
+		}
+	}
+
+	public long count() {
+		Long count = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM EMBEDDING_CACHE", Long.class);
+		return count != null ? count : 0;
+	}
+
+	private void prune() {
+		long excess = count() - maxEntries;
+		if (excess > 0) {
+			int deleted = jdbcTemplate.update(
+				"DELETE FROM EMBEDDING_CACHE WHERE id IN (SELECT id FROM EMBEDDING_CACHE ORDER BY id LIMIT ?)",
+				excess);
+			log.info("Pruned {} rows from the persistent embedding cache", deleted);
+		}
+	}
+
+	private static byte[] toBytes(float[] vector) {
+		ByteBuffer buffer = ByteBuffer.allocate(vector.length * Float.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+		buffer.asFloatBuffer().put(vector);
+		return buffer.array();
+	}
+
+	private static float[] fromBytes(byte[] bytes) {
+		float[] vector = new float[bytes.length / Float.BYTES];
+		ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN).asFloatBuffer().get(vector);
+		return vector;
+	}
+}
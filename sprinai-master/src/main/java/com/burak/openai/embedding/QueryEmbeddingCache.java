@@ -0,0 +1,47 @@
+package com.burak.openai.embedding;
+
+import com.burak.openai.cache.CacheStats;
+import com.burak.openai.cache.LruCache;
+
+import java.time.Duration;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+/**
+ * Cache of query embeddings keyed by (model, normalised query text).
+ * <p>
+ * Retrieval embeds the user's question on every request, and many questions repeat
+ * verbatim or differ only in case and whitespace. Normalisation trims, collapses
+ * whitespace and lower-cases the text; entries are bounded by count and expire after a
+ * TTL so that a model upgrade behind the same name is picked up eventually.
+ */
+public class QueryEmbeddingCache {
+
+	private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+	private final LruCache<String, float[]> cache;
+
+	public QueryEmbeddingCache(long maxEntries, Duration ttl) {
+		this.cache = new LruCache<>("embedding-query", maxEntries, vector -> 1, ttl);
+	}
+
+	public float[] get(String model, String query) {
+		return cache.get(key(model, query));
+	}
+
+	public void put(String model, String query, float[] vector) {
+		cache.put(key(model, query), vector);
+	}
+
+	public CacheStats stats() {
+		return cache.stats();
+	}
+
+	static String normalize(String query) {
+		return WHITESPACE.matcher(query.strip()).replaceAll(" ").toLowerCase(Locale.ROOT);
+	}
+
+	private static String key(String model, String query) {
+		return model + ':' + normalize(query);
+	}
+}
@@ -0,0 +1,37 @@
+package com.burak.openai.embedding;
+
+import com.burak.openai.rag.RetrievalQueries;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+/**
+ * Embeds the fixed retrieval queries once the application is ready, so the first quiz or
+ * flashcard request does not pay the embedding round trip. Runs on a virtual thread and
+ * never fails startup.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class QueryEmbeddingWarmer {
+
+	private final EmbeddingModel embeddingModel;
+
+	@EventListener(ApplicationReadyEvent.class)
+	public void warm() {
+		Thread.ofVirtual().name("query-embedding-warmer").start(() -> {
+			for (String query : RetrievalQueries.ALL) {
+				try {
+					embeddingModel.embed(query);
+				} catch (Exception e) {
+					log.warn("Could not warm query embedding: {}", e.getMessage());
+					return;
+				}
+			}
+			log.info("Warmed {} query embeddings", RetrievalQueries.ALL.size());
+		});
+	}
+}
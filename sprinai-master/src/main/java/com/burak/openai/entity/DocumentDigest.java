@@ -0,0 +1,41 @@
+package com.burak.openai.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * Topic and concept digest of one document, generated once after ingestion and read by
+ * quiz and flashcard generation. {@code digest} holds the JSON form of
+ * {@link com.burak.openai.model.DocumentDigestContent}.
+ */
+@Entity
+@Getter
+@Setter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Table(name = "document_digests", indexes = @Index(name = "idx_document_digests_content_hash", columnList = "content_hash"))
+public class DocumentDigest {
+	
+	@Id
+	@GeneratedValue(strategy = GenerationType.IDENTITY)
+	private Long id;
+	
+	@Column(name = "document_id", unique = true, nullable = false)
+	private String documentId;
+	
+	@Column(name = "username", nullable = false)
+	private String username;
+	
+	@Column(name = "content_hash", length = 64)
+	private String contentHash;
+	
+	@Lob
+	@Column(name = "digest", nullable = false)
+	private String digest;
+	
+	@Column(name = "created_at", nullable = false)
+	private LocalDateTime createdAt;
+}
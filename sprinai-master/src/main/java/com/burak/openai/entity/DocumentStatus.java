@@ -0,0 +1,17 @@
+package com.burak.openai.entity;
+
+/**
+ * Lifecycle of an uploaded document as it moves through the ingestion pipeline.
+ */
+public enum DocumentStatus {
+	
+	PENDING,
+	EXTRACTING,
+	EMBEDDING,
+	ACTIVE,
+	FAILED;
+	
+	public boolean isTerminal() {
+		return this == ACTIVE || this == FAILED;
+	}
+}
@@ -11,7 +11,7 @@ import java.time.LocalDateTime;
 @Builder
 @NoArgsConstructor
 @AllArgsConstructor
-@Table(name = "user_documents")
+@Table(name = "user_documents", indexes = @Index(name = "idx_user_documents_content_hash", columnList = "content_hash"))
 public class UserDocument {
 	
 	@Id
@@ -33,9 +33,23 @@ public class UserDocument {
 	@Column(name = "file_size")
 	private Long fileSize;
 	
+	@Column(name = "content_hash", length = 64)
+	private String contentHash;
+	
 	@Column(name = "upload_date", nullable = false)
 	private LocalDateTime uploadDate;
 	
-	@Column(name = "status")
-	private String status = "ACTIVE"; // ACTIVE, DELETED
+	@Enumerated(EnumType.STRING)
+	@Column(name = "status", nullable = false)
+	@Builder.Default
+	private DocumentStatus status = DocumentStatus.PENDING;
+	
+	@Column(name = "status_message", length = 1000)
+	private String statusMessage;
+	
+	@Column(name = "chunk_count")
+	private Integer chunkCount;
+	
+	@Column(name = "updated_at")
+	private LocalDateTime updatedAt;
 }
\ No newline at end of file
@@ -0,0 +1,16 @@
+package com.burak.openai.model;
+
+import java.util.List;
+
+public record DocumentDigestContent(
+	String summary,
+	List<Topic> topics,
+	List<KeyTerm> keyTerms
+) {
+	
+	public record Topic(String name, List<String> keyPoints) {
+	}
+	
+	public record KeyTerm(String term, String definition) {
+	}
+}
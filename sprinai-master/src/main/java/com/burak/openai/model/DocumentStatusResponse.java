@@ -0,0 +1,16 @@
+package com.burak.openai.model;
+
+import com.burak.openai.entity.DocumentStatus;
+
+import java.time.LocalDateTime;
+
+public record DocumentStatusResponse(
+	String documentId,
+	String originalFilename,
+	DocumentStatus status,
+	Integer chunkCount,
+	String message,
+	LocalDateTime uploadDate,
+	LocalDateTime updatedAt
+) {
+}
@@ -0,0 +1,189 @@
+package com.burak.openai.rag;
+
+import com.burak.openai.service.LexicalChunkStore.LexicalChunk;
+import org.springframework.ai.document.Document;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Immutable in-memory BM25 index over one user's chunks.
+ * <p>
+ * Postings are kept per term as one {@code int[]} of (row, term frequency) pairs, and the
+ * length normalisation of every row is precomputed, so a query only walks the postings of
+ * its own terms while accumulating scores into a flat {@code float[]}.
+ */
+final class Bm25Index {
+
+	private static final float K1 = 1.2f;
+	private static final float B = 0.75f;
+	private static final long CHUNK_OVERHEAD_BYTES = 256;
+	private static final long TERM_OVERHEAD_BYTES = 96;
+
+	private final String[] ids;
+	private final String[] texts;
+	private final Map<String, Object>[] metadata;
+	private final float[] lengthNorms;
+	private final Map<String, int[]> postings;
+	private final long sizeBytes;
+
+	@SuppressWarnings("unchecked")
+	Bm25Index(String username, List<LexicalChunk> chunks) {
+		int count = chunks.size();
+		this.ids = new String[count];
+		this.texts = new String[count];
+		this.metadata = new Map[count];
+		int[] lengths = new int[count];
+
+		Map<String, PostingsBuilder> builders = new HashMap<>();
+		Map<String, Integer> frequencies = new HashMap<>();
+		long bytes = 0;
+		long totalLength = 0;
+		for (int row = 0; row < count; row++) {
+			LexicalChunk chunk = chunks.get(row);
+			ids[row] = chunk.id();
+			texts[row] = chunk.content();
+			metadata[row] = metadata(username, chunk);
+
+			frequencies.clear();
+			String terms = chunk.terms();
+			int start = 0;
+			while (start < terms.length()) {
+				int end = terms.indexOf(' ', start);
+				if (end < 0) {
+					end = terms.length();
+				}
+				if (end > start) {
+					frequencies.merge(terms.substring(start, end), 1, Integer::sum);
+					lengths[row]++;
+				}
+				start = end + 1;
+			}
+			for (Map.Entry<String, Integer> frequency : frequencies.entrySet()) {
+				builders.computeIfAbsent(frequency.getKey(), term -> new PostingsBuilder())
+					.add(row, frequency.getValue());
+			}
+			totalLength += lengths[row];
+			bytes += CHUNK_OVERHEAD_BYTES + 2L * (chunk.id().length() + chunk.content().length());
+		}
+
+		float averageLength = count == 0 ? 0 : (float) totalLength / count;
+		this.lengthNorms = new float[count];
+		for (int row = 0; row < count; row++) {
+			float relativeLength = averageLength == 0 ? 1 : lengths[row] / averageLength;
+			lengthNorms[row] = K1 * (1 - B + B * relativeLength);
+		}
+
+		this.postings = new HashMap<>(builders.size() * 2);
+		for (Map.Entry<String, PostingsBuilder> entry : builders.entrySet()) {
+			int[] pairs = entry.getValue().toArray();
+			postings.put(entry.getKey(), pairs);
+			bytes += TERM_OVERHEAD_BYTES + 2L * entry.getKey().length() + (long) pairs.length * Integer.BYTES;
+		}
+		this.sizeBytes = bytes + (long) count * Float.BYTES;
+	}
+
+	int size() {
+		return ids.length;
+	}
+
+	long sizeBytes() {
+		return sizeBytes;
+	}
+
+	/**
+	 * Returns up to {@code topK} chunks matching at least one query term, best BM25 score
+	 * first, as documents shaped like the vector store's results.
+	 */
+	List<Document> search(List<String> queryTerms, int topK) {
+		if (ids.length == 0 || queryTerms.isEmpty()) {
+			return List.of();
+		}
+		float[] scores = new float[ids.length];
+		int rows = ids.length;
+		for (String term : new LinkedHashSet<>(queryTerms)) {
+			int[] pairs = postings.get(term);
+			if (pairs == null) {
+				continue;
+			}
+			int documentFrequency = pairs.length / 2;
+			float idf = (float) Math.log(1 + (rows - documentFrequency + 0.5) / (documentFrequency + 0.5));
+			for (int i = 0; i < pairs.length; i += 2) {
+				int row = pairs[i];
+				int frequency = pairs[i + 1];
+				scores[row] += idf * frequency * (K1 + 1) / (frequency + lengthNorms[row]);
+			}
+		}
+
+		int[] bestRows = new int[topK];
+		float[] bestScores = new float[topK];
+		int found = 0;
+		for (int row = 0; row < rows; row++) {
+			float score = scores[row];
+			if (score <= 0 || (found == topK && score <= bestScores[found - 1])) {
+				continue;
+			}
+			int position = found < topK ? found++ : topK - 1;
+			while (position > 0 && bestScores[position - 1] < score) {
+				bestScores[position] = bestScores[position - 1];
+				bestRows[position] = bestRows[position - 1];
+				position--;
+			}
+			bestScores[position] = score;
+			bestRows[position] = row;
+		}
+
+		List<Document> results = new ArrayList<>(found);
+		for (int i = 0; i < found; i++) {
+			int row = bestRows[i];
+			results.add(Document.builder()
+				.id(ids[row])
+				.text(texts[row])
+				.metadata(new HashMap<>(metadata[row]))
+				.score((double) bestScores[i])
+				.build());
+		}
+		return results;
+	}
+
+	private static Map<String, Object> metadata(String username, LexicalChunk chunk) {
+		Map<String, Object> metadata = new HashMap<>();
+		metadata.put("username", username);
+		metadata.put("documentId", chunk.documentId());
+		if (chunk.originalFilename() != null) {
+			metadata.put("originalFilename", chunk.originalFilename());
+		}
+		if (chunk.pageNumber() != null) {
+			metadata.put("page_number", chunk.pageNumber());
+		}
+		if (chunk.piiMasked()) {
+			metadata.put(PIIMasker.PII_MASKED, true);
+		}
+		return metadata;
+	}
+
+	/**
+	 * Growable (row, frequency) pair list used while building.
+	 */
+	private static final class PostingsBuilder {
+
+		private int[] pairs = new int[4];
+		private int size;
+
+		void add(int row, int frequency) {
+			if (size + 2 > pairs.length) {
+				pairs = Arrays.copyOf(pairs, pairs.length * 2);
+			}
+			pairs[size++] = row;
+			pairs[size++] = frequency;
+		}
+
+		int[] toArray() {
+			return Arrays.copyOf(pairs, size);
+		}
+	}
+}
@@ -0,0 +1,120 @@
+package com.burak.openai.rag;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.ai.chat.client.ChatClient;
+import org.springframework.ai.rag.Query;
+import org.springframework.ai.rag.preretrieval.query.transformation.QueryTransformer;
+import org.springframework.ai.rag.preretrieval.query.transformation.TranslationQueryTransformer;
+import org.springframework.util.Assert;
+
+/**
+ * {@link QueryTransformer} that translates queries into the target language only when
+ * needed.
+ * <p>
+ * Queries the {@link LanguageDetector} recognises as already being in the target language
+ * pass through untouched. Other queries are looked up in the {@link QueryTranslationCache}
+ * and only on a miss sent to a {@link TranslationQueryTransformer}, whose result is cached.
+ * Queries too short to classify are translated as before, so the detector can only remove
+ * a model call, never skip a translation it is unsure about.
+ */
+public class CachingTranslationQueryTransformer implements QueryTransformer {
+
+	private static final Logger logger = LoggerFactory.getLogger(CachingTranslationQueryTransformer.class);
+
+	private final TranslationQueryTransformer delegate;
+	private final LanguageDetector languageDetector;
+	private final QueryTranslationCache translationCache;
+	private final String targetLanguage;
+	private final String targetLanguageCode;
+
+	private CachingTranslationQueryTransformer(TranslationQueryTransformer delegate, LanguageDetector languageDetector,
+	                                           QueryTranslationCache translationCache, String targetLanguage,
+	                                           String targetLanguageCode) {
+		this.delegate = delegate;
+		this.languageDetector = languageDetector;
+		this.translationCache = translationCache;
+		this.targetLanguage = targetLanguage;
+		this.targetLanguageCode = targetLanguageCode;
+	}
+
+	@Override
+	public Query transform(Query query) {
+		Assert.notNull(query, "query cannot be null");
+		String text = query.text();
+
+		if (languageDetector.isLanguage(text, targetLanguageCode)) {
+			logger.debug("Query already in {}, skipping translation", targetLanguage);
+			return query;
+		}
+
+		String cached = translationCache.get(targetLanguage, text);
+		if (cached != null) {
+			logger.debug("Query translation served from cache");
+			return query.mutate().text(cached).build();
+		}
+
+		Query translated = delegate.transform(query);
+		translationCache.put(targetLanguage, text, translated.text());
+		return translated;
+	}
+
+	public static Builder builder() {
+		return new Builder();
+	}
+
+	public static class Builder {
+		private ChatClient.Builder chatClientBuilder;
+		private LanguageDetector languageDetector;
+		private QueryTranslationCache translationCache;
+		private String targetLanguage = "english";
+		private String targetLanguageCode = "en";
+
+		private Builder() {}
+
+		public Builder chatClientBuilder(ChatClient.Builder chatClientBuilder) {
+			this.chatClientBuilder = chatClientBuilder;
+			return this;
+		}
+
+		public Builder languageDetector(LanguageDetector languageDetector) {
+			this.languageDetector = languageDetector;
+			return this;
+		}
+
+		public Builder translationCache(QueryTranslationCache translationCache) {
+			this.translationCache = translationCache;
+			return this;
+		}
+
+		/**
+		 * Language name passed to the translation prompt, e.g. {@code english}.
+		 */
+		public Builder targetLanguage(String targetLanguage) {
+			this.targetLanguage = targetLanguage;
+			return this;
+		}
+
+		/**
+		 * Code of the {@link LanguageDetector} profile of the target language, e.g. {@code en}.
+		 */
+		public Builder targetLanguageCode(String targetLanguageCode) {
+			this.targetLanguageCode = targetLanguageCode;
+			return this;
+		}
+
+		public CachingTranslationQueryTransformer build() {
+			Assert.notNull(chatClientBuilder, "chatClientBuilder must be set");
+			Assert.notNull(languageDetector, "languageDetector must be set");
+			Assert.notNull(translationCache, "translationCache must be set");
+			Assert.hasText(targetLanguage, "targetLanguage cannot be empty");
+			Assert.hasText(targetLanguageCode, "targetLanguageCode cannot be empty");
+			TranslationQueryTransformer delegate = TranslationQueryTransformer.builder()
+				.chatClientBuilder(chatClientBuilder)
+				.targetLanguage(targetLanguage)
+				.build();
+			return new CachingTranslationQueryTransformer(delegate, languageDetector, translationCache,
+				targetLanguage, targetLanguageCode);
+		}
+	}
+}
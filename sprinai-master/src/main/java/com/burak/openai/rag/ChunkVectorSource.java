@@ -0,0 +1,44 @@
+package com.burak.openai.rag;
+
+import com.burak.openai.service.QdrantPointService;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Looks up the stored embedding vectors of retrieved chunks, so that post-processing can
+ * compare chunks without embedding their text again. Vectors come from the hot tier when
+ * the user's index is loaded and otherwise from a single Qdrant retrieve by point id.
+ */
+@Component
+public class ChunkVectorSource {
+
+	private final HotVectorTier hotVectorTier;
+	private final QdrantPointService qdrantPointService;
+
+	public ChunkVectorSource(HotVectorTier hotVectorTier, QdrantPointService qdrantPointService) {
+		this.hotVectorTier = hotVectorTier;
+		this.qdrantPointService = qdrantPointService;
+	}
+
+	/**
+	 * Returns the vectors of the user's chunks keyed by chunk id; unknown ids are missing.
+	 */
+	public Map<String, float[]> vectors(String username, Collection<String> chunkIds) {
+		Map<String, float[]> vectors = new HashMap<>(hotVectorTier.cachedVectors(username, chunkIds));
+		List<String> missing = new ArrayList<>();
+		for (String chunkId : chunkIds) {
+			if (!vectors.containsKey(chunkId)) {
+				missing.add(chunkId);
+			}
+		}
+		if (!missing.isEmpty()) {
+			vectors.putAll(qdrantPointService.findVectors(username, missing));
+		}
+		return vectors;
+	}
+}
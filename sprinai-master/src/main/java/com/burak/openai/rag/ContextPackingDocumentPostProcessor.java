@@ -0,0 +1,215 @@
+package com.burak.openai.rag;
+
+import com.burak.openai.chunking.LexicalAnalyzer;
+import com.knuddels.jtokkit.Encodings;
+import com.knuddels.jtokkit.api.Encoding;
+import com.knuddels.jtokkit.api.EncodingType;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.rag.Query;
+import org.springframework.ai.rag.postretrieval.document.DocumentPostProcessor;
+import org.springframework.util.Assert;
+import org.springframework.util.CollectionUtils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Packs retrieved documents into a fixed token budget before they are added to the prompt.
+ * <p>
+ * Documents are ordered by score, best first. A document whose word shingles are
+ * near-identical to those of a better document already kept (estimated Jaccard similarity
+ * of their MinHash signatures at or above {@code duplicateThreshold}) is dropped. The
+ * remaining documents are added until the next one would exceed {@code tokenBudget}
+ * tokens; the rest of the list is dropped. The best document is always kept.
+ */
+public class ContextPackingDocumentPostProcessor implements DocumentPostProcessor {
+
+	private static final Logger logger = LoggerFactory.getLogger(ContextPackingDocumentPostProcessor.class);
+
+	private static final Encoding ENCODING =
+		Encodings.newLazyEncodingRegistry().getEncoding(EncodingType.CL100K_BASE);
+
+	private static final int SIGNATURE_SIZE = 64;
+	private static final long[] HASH_MULTIPLIERS = new long[SIGNATURE_SIZE];
+	private static final long[] HASH_OFFSETS = new long[SIGNATURE_SIZE];
+
+	static {
+		SplittableRandom random = new SplittableRandom(0x5EED_C0DEL);
+		for (int i = 0; i < SIGNATURE_SIZE; i++) {
+			HASH_MULTIPLIERS[i] = random.nextLong() | 1L;
+			HASH_OFFSETS[i] = random.nextLong();
+		}
+	}
+
+	private final int tokenBudget;
+	private final double duplicateThreshold;
+	private final int shingleSize;
+
+	private ContextPackingDocumentPostProcessor(int tokenBudget, double duplicateThreshold, int shingleSize) {
+		this.tokenBudget = tokenBudget;
+		this.duplicateThreshold = duplicateThreshold;
+		this.shingleSize = shingleSize;
+	}
+
+	@Override
+	public List<Document> process(Query query, List<Document> documents) {
+		Assert.notNull(query, "query cannot be null");
+		Assert.notNull(documents, "documents cannot be null");
+		Assert.noNullElements(documents, "documents cannot contain null elements");
+
+		if (CollectionUtils.isEmpty(documents)) {
+			return documents;
+		}
+
+		List<Document> ranked = new ArrayList<>(documents);
+		ranked.sort(Comparator.comparing(Document::getScore, Comparator.nullsLast(Comparator.reverseOrder())));
+
+		List<Document> packed = new ArrayList<>(ranked.size());
+		List<long[]> signatures = new ArrayList<>(ranked.size());
+		int tokens = 0;
+		int duplicates = 0;
+		for (Document document : ranked) {
+			String text = document.getText() != null ? document.getText() : "";
+			long[] signature = signature(text);
+			if (isNearDuplicate(signature, signatures)) {
+				duplicates++;
+				continue;
+			}
+			int documentTokens = ENCODING.countTokensOrdinary(text);
+			if (!packed.isEmpty() && tokens + documentTokens > tokenBudget) {
+				break;
+			}
+			packed.add(document);
+			signatures.add(signature);
+			tokens += documentTokens;
+		}
+
+		logger.debug("Packed {} of {} documents into {} tokens (budget {}), dropped {} near-duplicates",
+			packed.size(), documents.size(), tokens, tokenBudget, duplicates);
+		return packed;
+	}
+
+	private boolean isNearDuplicate(long[] signature, List<long[]> keptSignatures) {
+		if (signature == null) {
+			return false;
+		}
+		for (long[] kept : keptSignatures) {
+			if (kept != null && similarity(signature, kept) >= duplicateThreshold) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * MinHash signature of the text's word shingles, or {@code null} for text without words.
+	 */
+	private long[] signature(String text) {
+		List<String> terms = LexicalAnalyzer.terms(text);
+		if (terms.isEmpty()) {
+			return null;
+		}
+		long[] signature = new long[SIGNATURE_SIZE];
+		Arrays.fill(signature, Long.MAX_VALUE);
+		int shingles = Math.max(1, terms.size() - shingleSize + 1);
+		for (int start = 0; start < shingles; start++) {
+			long shingleHash = shingleHash(terms, start, Math.min(terms.size(), start + shingleSize));
+			for (int i = 0; i < SIGNATURE_SIZE; i++) {
+				long hash = mix(shingleHash * HASH_MULTIPLIERS[i] + HASH_OFFSETS[i]);
+				if (hash < signature[i]) {
+					signature[i] = hash;
+				}
+			}
+		}
+		return signature;
+	}
+
+	private static double similarity(long[] a, long[] b) {
+		int equal = 0;
+		for (int i = 0; i < SIGNATURE_SIZE; i++) {
+			if (a[i] == b[i]) {
+				equal++;
+			}
+		}
+		return (double) equal / SIGNATURE_SIZE;
+	}
+
+	/**
+	 * 64-bit FNV-1a over the shingle's terms, separated so that term boundaries count.
+	 */
+	private static long shingleHash(List<String> terms, int start, int end) {
+		long hash = 0xcbf29ce484222325L;
+		for (int t = start; t < end; t++) {
+			String term = terms.get(t);
+			for (int i = 0; i < term.length(); i++) {
+				hash = (hash ^ term.charAt(i)) * 0x100000001b3L;
+			}
+			hash = (hash ^ ' ') * 0x100000001b3L;
+		}
+		return hash;
+	}
+
+	/**
+	 * Final avalanche step of SplitMix64, so that the linear per-function hashes behave
+	 * like independent random permutations.
+	 */
+	private static long mix(long z) {
+		z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+		z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+		return z ^ (z >>> 31);
+	}
+
+	public static Builder builder() {
+		return new Builder();
+	}
+
+	public static class Builder {
+		private int tokenBudget = 2000;
+		private double duplicateThreshold = 0.8;
+		private int shingleSize = 3;
+
+		private Builder() {}
+
+		/**
+		 * Maximum number of tokens of document text passed on.
+		 */
+		public Builder tokenBudget(int tokenBudget) {
+			if (tokenBudget <= 0) {
+				throw new IllegalArgumentException("tokenBudget must be greater than 0");
+			}
+			this.tokenBudget = tokenBudget;
+			return this;
+		}
+
+		/**
+		 * Estimated Jaccard similarity at which a document counts as a near-duplicate.
+		 */
+		public Builder duplicateThreshold(double duplicateThreshold) {
+			if (duplicateThreshold <= 0.0 || duplicateThreshold > 1.0) {
+				throw new IllegalArgumentException("duplicateThreshold must be greater than 0.0 and at most 1.0");
+			}
+			this.duplicateThreshold = duplicateThreshold;
+			return this;
+		}
+
+		/**
+		 * Number of consecutive words per shingle.
+		 */
+		public Builder shingleSize(int shingleSize) {
+			if (shingleSize <= 0) {
+				throw new IllegalArgumentException("shingleSize must be greater than 0");
+			}
+			this.shingleSize = shingleSize;
+			return this;
+		}
+
+		public ContextPackingDocumentPostProcessor build() {
+			return new ContextPackingDocumentPostProcessor(tokenBudget, duplicateThreshold, shingleSize);
+		}
+	}
+}
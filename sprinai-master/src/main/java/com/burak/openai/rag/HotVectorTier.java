@@ -0,0 +1,191 @@
+package com.burak.openai.rag;
+
+import com.burak.openai.cache.CacheStats;
+import com.burak.openai.cache.CacheStatsProvider;
+import com.burak.openai.cache.LruCache;
+import com.burak.openai.repository.UserDocumentRepository;
+import com.burak.openai.service.DocumentGenerationTracker;
+import com.burak.openai.service.QdrantPointService;
+import com.burak.openai.service.QdrantPointService.StoredPoint;
+import com.burak.openai.service.UserDocumentsChangedEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Optional in-process tier in front of Qdrant for per-user retrieval.
+ * <p>
+ * The first query of a user loads all of that user's chunks and vectors from Qdrant into
+ * a {@link UserVectorIndex}; later queries are answered by a local scan without a gRPC
+ * round trip. Indexes are kept in an LRU bounded by {@code rag.hot-tier.max-memory} and
+ * dropped whenever a {@link UserDocumentsChangedEvent} reports that the user's documents
+ * changed, so Qdrant stays the source of truth. Users with more than
+ * {@code rag.hot-tier.max-points-per-user} chunks are always served by Qdrant.
+ */
+@Component
+public class HotVectorTier implements CacheStatsProvider {
+
+	private static final Logger logger = LoggerFactory.getLogger(HotVectorTier.class);
+
+	private static final long TOO_LARGE_WEIGHT = 64;
+
+	private final boolean enabled;
+	private final int maxPointsPerUser;
+	private final QdrantPointService qdrantPointService;
+	private final UserDocumentRepository userDocumentRepository;
+	private final EmbeddingModel embeddingModel;
+	private final DocumentGenerationTracker generationTracker;
+	private final LruCache<String, Slot> indexes;
+	private final ConcurrentMap<String, CompletableFuture<Slot>> loading = new ConcurrentHashMap<>();
+
+	public HotVectorTier(QdrantPointService qdrantPointService,
+	                     UserDocumentRepository userDocumentRepository,
+	                     EmbeddingModel embeddingModel,
+	                     DocumentGenerationTracker generationTracker,
+	                     @Value("${rag.hot-tier.enabled:false}") boolean enabled,
+	                     @Value("${rag.hot-tier.max-memory:256MB}") DataSize maxMemory,
+	                     @Value("${rag.hot-tier.max-points-per-user:20000}") int maxPointsPerUser) {
+		this.qdrantPointService = qdrantPointService;
+		this.userDocumentRepository = userDocumentRepository;
+		this.embeddingModel = embeddingModel;
+		this.generationTracker = generationTracker;
+		this.enabled = enabled;
+		this.maxPointsPerUser = maxPointsPerUser;
+		this.indexes = new LruCache<>("rag-hot-tier", maxMemory.toBytes(),
+			slot -> slot.index() != null ? slot.index().sizeBytes() : TOO_LARGE_WEIGHT);
+	}
+
+	/**
+	 * Searches the user's chunks in process. Returns empty when the tier is disabled, the
+	 * user has too many chunks or loading fails; the caller then queries Qdrant.
+	 */
+	public Optional<List<Document>> search(String username, String query, int topK, double similarityThreshold) {
+		if (!enabled) {
+			return Optional.empty();
+		}
+		try {
+			UserVectorIndex index = index(username);
+			if (index == null) {
+				return Optional.empty();
+			}
+			float[] queryVector = embeddingModel.embed(query);
+			return Optional.of(index.search(queryVector, topK, similarityThreshold));
+		} catch (Exception e) {
+			logger.warn("Hot tier search failed for user: {}, falling back to Qdrant: {}", username, e.getMessage());
+			return Optional.empty();
+		}
+	}
+
+	/**
+	 * Returns the vectors of the given chunks if the user's index is already loaded; never
+	 * triggers a load. Chunks the index does not hold are missing from the result.
+	 */
+	public Map<String, float[]> cachedVectors(String username, Collection<String> chunkIds) {
+		if (!enabled) {
+			return Map.of();
+		}
+		Slot slot = indexes.get(username);
+		if (slot == null || slot.index() == null) {
+			return Map.of();
+		}
+		Map<String, float[]> vectors = new HashMap<>();
+		for (String chunkId : chunkIds) {
+			float[] vector = slot.index().vector(chunkId);
+			if (vector != null) {
+				vectors.put(chunkId, vector);
+			}
+		}
+		return vectors;
+	}
+
+	@EventListener
+	public synchronized void onUserDocumentsChanged(UserDocumentsChangedEvent event) {
+		indexes.invalidate(event.username());
+	}
+
+	@Override
+	public List<CacheStats> cacheStats() {
+		return List.of(indexes.stats());
+	}
+
+	/**
+	 * Returns the cached index of the user, loading it once even under concurrent queries.
+	 * An index loaded while the user's documents changed is used for the query that loaded
+	 * it but not cached.
+	 */
+	private UserVectorIndex index(String username) {
+		Slot cached = indexes.get(username);
+		if (cached != null) {
+			return cached.index();
+		}
+
+		CompletableFuture<Slot> load = new CompletableFuture<>();
+		CompletableFuture<Slot> inFlight = loading.putIfAbsent(username, load);
+		if (inFlight != null) {
+			return inFlight.join().index();
+		}
+		try {
+			long generation = generationTracker.current(username);
+			Slot slot = load(username);
+			// The generation is bumped before the invalidation runs, so checking and storing
+			// atomically with respect to it never caches an index that is already outdated
+			synchronized (this) {
+				if (generation == generationTracker.current(username)) {
+					indexes.put(username, slot);
+				}
+			}
+			load.complete(slot);
+			return slot.index();
+		} catch (RuntimeException e) {
+			load.completeExceptionally(e);
+			throw e;
+		} finally {
+			loading.remove(username, load);
+		}
+	}
+
+	private Slot load(String username) {
+		long start = System.nanoTime();
+		Optional<List<StoredPoint>> points = qdrantPointService.findUserPoints(username, maxPointsPerUser);
+		if (points.isEmpty()) {
+			logger.info("User {} has more than {} chunks, not caching in the hot tier", username, maxPointsPerUser);
+			return new Slot(null);
+		}
+
+		// Vectors of a deleted document may still be waiting for the background purge
+		Set<String> documentIds = new HashSet<>(userDocumentRepository.findDocumentIdsByUsername(username));
+		List<StoredPoint> live = points.get().stream()
+			.filter(point -> {
+				Object documentId = point.metadata().get("documentId");
+				return documentId == null || documentIds.contains(documentId.toString());
+			})
+			.toList();
+
+		UserVectorIndex index = new UserVectorIndex(live);
+		logger.info("Loaded {} chunks ({} KB) of user {} into the hot tier in {} ms", index.size(),
+			index.sizeBytes() / 1024, username, (System.nanoTime() - start) / 1_000_000);
+		return new Slot(index);
+	}
+
+	/**
+	 * Cache value; a {@code null} index marks a user that is too large for the tier.
+	 */
+	private record Slot(UserVectorIndex index) {
+	}
+}
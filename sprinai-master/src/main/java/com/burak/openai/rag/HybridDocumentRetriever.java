@@ -0,0 +1,178 @@
+package com.burak.openai.rag;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.rag.Query;
+import org.springframework.ai.rag.retrieval.search.DocumentRetriever;
+import org.springframework.util.Assert;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Retriever combining the per-user vector search of {@link UserDocumentRetriever} with the
+ * per-user BM25 search of {@link LexicalIndex}, so that exact terms such as course codes,
+ * formula names and acronyms, which embeddings rank poorly, still find their chunks.
+ * <p>
+ * The lexical search runs on a virtual thread while the vector search runs on the caller
+ * thread; the two rankings are fused with reciprocal rank fusion, each chunk scoring
+ * {@code sum(1 / (k + rank))} over the lists it appears in. Chunks are matched by id, and
+ * the fused score replaces the document score. If the lexical side fails, the vector
+ * results are used alone.
+ */
+public class HybridDocumentRetriever implements DocumentRetriever {
+
+	private static final Logger logger = LoggerFactory.getLogger(HybridDocumentRetriever.class);
+
+	private static final ExecutorService LEXICAL_EXECUTOR =
+		Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("rag-lexical-", 0).factory());
+
+	private final UserDocumentRetriever vectorRetriever;
+	private final LexicalIndex lexicalIndex;
+	private final int topK;
+	private final int lexicalTopK;
+	private final int rankConstant;
+
+	private HybridDocumentRetriever(UserDocumentRetriever vectorRetriever, LexicalIndex lexicalIndex, int topK,
+	                                int lexicalTopK, int rankConstant) {
+		this.vectorRetriever = vectorRetriever;
+		this.lexicalIndex = lexicalIndex;
+		this.topK = topK;
+		this.lexicalTopK = lexicalTopK;
+		this.rankConstant = rankConstant;
+	}
+
+	@Override
+	public List<Document> retrieve(Query query) {
+		Assert.notNull(query, "query cannot be null");
+		if (lexicalIndex == null || !lexicalIndex.isEnabled()) {
+			List<Document> documents = vectorRetriever.retrieve(query);
+			return documents.size() > topK ? documents.subList(0, topK) : documents;
+		}
+
+		String username = RetrievalContext.username(query);
+		String queryText = query.text();
+		CompletableFuture<List<Document>> lexicalSearch = CompletableFuture.supplyAsync(
+			() -> lexicalIndex.search(username, queryText, lexicalTopK), LEXICAL_EXECUTOR);
+
+		List<Document> vectorDocuments = vectorRetriever.retrieve(query);
+		List<Document> lexicalDocuments;
+		try {
+			lexicalDocuments = lexicalSearch.join();
+		} catch (Exception e) {
+			logger.warn("Lexical search failed for user: {}, using vector results only: {}", username,
+				e.getMessage());
+			lexicalDocuments = List.of();
+		}
+
+		List<Document> fused = fuse(vectorDocuments, lexicalDocuments);
+		logger.info("Fused {} vector and {} lexical results into {} documents for user: {}",
+			vectorDocuments.size(), lexicalDocuments.size(), fused.size(), username);
+		return fused;
+	}
+
+	private List<Document> fuse(List<Document> vectorDocuments, List<Document> lexicalDocuments) {
+		Map<String, Document> documents = new LinkedHashMap<>();
+		Map<String, Double> scores = new HashMap<>();
+		addRanks(vectorDocuments, documents, scores);
+		addRanks(lexicalDocuments, documents, scores);
+
+		List<Map.Entry<String, Double>> ranked = new ArrayList<>(scores.entrySet());
+		ranked.sort(Map.Entry.<String, Double>comparingByValue(Comparator.reverseOrder()));
+
+		List<Document> fused = new ArrayList<>(Math.min(topK, ranked.size()));
+		for (int i = 0; i < ranked.size() && fused.size() < topK; i++) {
+			Map.Entry<String, Double> entry = ranked.get(i);
+			fused.add(documents.get(entry.getKey()).mutate().score(entry.getValue()).build());
+		}
+		return fused;
+	}
+
+	/**
+	 * Adds the reciprocal rank contributions of one ranking; the first list a chunk appears
+	 * in supplies its document, so vector results keep their metadata.
+	 */
+	private void addRanks(List<Document> ranking, Map<String, Document> documents, Map<String, Double> scores) {
+		for (int rank = 0; rank < ranking.size(); rank++) {
+			Document document = ranking.get(rank);
+			documents.putIfAbsent(document.getId(), document);
+			scores.merge(document.getId(), 1.0 / (rankConstant + rank + 1), Double::sum);
+		}
+	}
+
+	public static Builder builder() {
+		return new Builder();
+	}
+
+	public static class Builder {
+		private UserDocumentRetriever vectorRetriever;
+		private LexicalIndex lexicalIndex;
+		private int topK = 5;
+		private int lexicalTopK = 20;
+		private int rankConstant = 60;
+
+		private Builder() {}
+
+		/**
+		 * Vector side of the search; its {@code topK} is the number of vector candidates.
+		 */
+		public Builder vectorRetriever(UserDocumentRetriever vectorRetriever) {
+			this.vectorRetriever = vectorRetriever;
+			return this;
+		}
+
+		/**
+		 * Lexical side of the search; without it only vector results are returned.
+		 */
+		public Builder lexicalIndex(LexicalIndex lexicalIndex) {
+			this.lexicalIndex = lexicalIndex;
+			return this;
+		}
+
+		/**
+		 * Number of fused documents returned.
+		 */
+		public Builder topK(int topK) {
+			if (topK <= 0) {
+				throw new IllegalArgumentException("topK must be greater than 0");
+			}
+			this.topK = topK;
+			return this;
+		}
+
+		/**
+		 * Number of lexical candidates fused.
+		 */
+		public Builder lexicalTopK(int lexicalTopK) {
+			if (lexicalTopK <= 0) {
+				throw new IllegalArgumentException("lexicalTopK must be greater than 0");
+			}
+			this.lexicalTopK = lexicalTopK;
+			return this;
+		}
+
+		/**
+		 * The {@code k} of reciprocal rank fusion; larger values flatten the rank weights.
+		 */
+		public Builder rankConstant(int rankConstant) {
+			if (rankConstant < 0) {
+				throw new IllegalArgumentException("rankConstant cannot be negative");
+			}
+			this.rankConstant = rankConstant;
+			return this;
+		}
+
+		public HybridDocumentRetriever build() {
+			Assert.notNull(vectorRetriever, "vectorRetriever must be set");
+			return new HybridDocumentRetriever(vectorRetriever, lexicalIndex, topK, lexicalTopK, rankConstant);
+		}
+	}
+}
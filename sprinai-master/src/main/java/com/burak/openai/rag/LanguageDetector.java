@@ -0,0 +1,154 @@
+package com.burak.openai.rag;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Local character-trigram language detector, used to recognise queries that are already
+ * in the target language without asking the model.
+ * <p>
+ * Profiles are read from {@code classpath:language-profiles/<code>.txt}, one
+ * {@code trigram<TAB>count} line per trigram, where {@code _} marks a word boundary. A text
+ * is scored against every profile as the sum of its trigrams' log probabilities (unseen
+ * trigrams get a fixed floor), and the confidence of the best language is its margin over
+ * the runner-up, averaged per trigram. Texts with too few trigrams are not classified.
+ */
+@Component
+public class LanguageDetector {
+
+	private static final Logger logger = LoggerFactory.getLogger(LanguageDetector.class);
+
+	private static final String PROFILE_LOCATION = "classpath:language-profiles/*.txt";
+
+	private final List<Profile> profiles = new ArrayList<>();
+	private final double minConfidence;
+	private final int minTrigrams;
+
+	public LanguageDetector(@Value("${rag.translation.detection.min-confidence:0.15}") double minConfidence,
+	                        @Value("${rag.translation.detection.min-trigrams:8}") int minTrigrams) {
+		this.minConfidence = minConfidence;
+		this.minTrigrams = minTrigrams;
+		try {
+			for (Resource resource : new PathMatchingResourcePatternResolver().getResources(PROFILE_LOCATION)) {
+				String filename = resource.getFilename();
+				profiles.add(load(filename.substring(0, filename.length() - ".txt".length()), resource));
+			}
+		} catch (IOException e) {
+			throw new UncheckedIOException("Could not load language profiles", e);
+		}
+		logger.info("Loaded language profiles: {}", profiles.stream().map(Profile::language).toList());
+	}
+
+	/**
+	 * Returns true when the text is detected as the given language with at least the
+	 * configured confidence, i.e. average log-likelihood margin per trigram over the second
+	 * most likely language.
+	 *
+	 * @param language profile code, e.g. {@code en}
+	 */
+	public boolean isLanguage(String text, String language) {
+		Detection detection = detect(text);
+		return detection != null && detection.language().equals(language) && detection.confidence() >= minConfidence;
+	}
+
+	/**
+	 * Returns the most likely language of the text, or {@code null} when the text is too
+	 * short to classify.
+	 */
+	public Detection detect(String text) {
+		List<String> trigrams = trigrams(text);
+		if (trigrams.size() < minTrigrams || profiles.size() < 2) {
+			return null;
+		}
+		String best = null;
+		double bestScore = Double.NEGATIVE_INFINITY;
+		double secondScore = Double.NEGATIVE_INFINITY;
+		for (Profile profile : profiles) {
+			double score = profile.score(trigrams);
+			if (score > bestScore) {
+				secondScore = bestScore;
+				bestScore = score;
+				best = profile.language();
+			} else if (score > secondScore) {
+				secondScore = score;
+			}
+		}
+		return new Detection(best, (bestScore - secondScore) / trigrams.size());
+	}
+
+	static List<String> trigrams(String text) {
+		List<String> trigrams = new ArrayList<>();
+		String lower = text.toLowerCase(Locale.ROOT);
+		StringBuilder word = new StringBuilder("_");
+		for (int i = 0; i <= lower.length(); i++) {
+			char c = i < lower.length() ? lower.charAt(i) : ' ';
+			if (Character.isLetter(c)) {
+				word.append(c);
+				continue;
+			}
+			if (word.length() > 1) {
+				word.append('_');
+				for (int start = 0; start + 3 <= word.length(); start++) {
+					trigrams.add(word.substring(start, start + 3));
+				}
+			}
+			word.setLength(1);
+		}
+		return trigrams;
+	}
+
+	private static Profile load(String language, Resource resource) throws IOException {
+		Map<String, Integer> counts = new HashMap<>();
+		long total = 0;
+		try (BufferedReader reader = new BufferedReader(
+			new InputStreamReader(resource.getInputStream(), StandardCharsets.UTF_8))) {
+			String line;
+			while ((line = reader.readLine()) != null) {
+				int tab = line.indexOf('\t');
+				if (line.startsWith("#") || tab < 0) {
+					continue;
+				}
+				int count = Integer.parseInt(line.substring(tab + 1).trim());
+				counts.put(line.substring(0, tab), count);
+				total += count;
+			}
+		}
+		Map<String, Double> logProbabilities = new HashMap<>(counts.size() * 2);
+		for (Map.Entry<String, Integer> entry : counts.entrySet()) {
+			logProbabilities.put(entry.getKey(), Math.log((double) entry.getValue() / total));
+		}
+		return new Profile(language, logProbabilities, Math.log(0.5 / total));
+	}
+
+	/**
+	 * Detected language and the confidence of the detection.
+	 */
+	public record Detection(String language, double confidence) {
+	}
+
+	private record Profile(String language, Map<String, Double> logProbabilities, double unseenLogProbability) {
+
+		double score(List<String> trigrams) {
+			double score = 0;
+			for (String trigram : trigrams) {
+				score += logProbabilities.getOrDefault(trigram, unseenLogProbability);
+			}
+			return score;
+		}
+	}
+}
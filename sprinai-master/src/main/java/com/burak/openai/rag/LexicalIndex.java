@@ -0,0 +1,124 @@
+package com.burak.openai.rag;
+
+import com.burak.openai.cache.CacheStats;
+import com.burak.openai.cache.CacheStatsProvider;
+import com.burak.openai.cache.LruCache;
+import com.burak.openai.chunking.LexicalAnalyzer;
+import com.burak.openai.service.DocumentGenerationTracker;
+import com.burak.openai.service.LexicalChunkStore;
+import com.burak.openai.service.LexicalChunkStore.LexicalChunk;
+import com.burak.openai.service.UserDocumentsChangedEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.ai.document.Document;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Per-user BM25 search over the chunks kept by {@link LexicalChunkStore}.
+ * <p>
+ * The terms are analysed once at ingest time; the first lexical query of a user builds a
+ * {@link Bm25Index} from the stored rows, which is kept in an LRU bounded by
+ * {@code rag.lexical.max-memory} and dropped whenever the user's documents change, in the
+ * same way as {@link HotVectorTier}.
+ */
+@Component
+public class LexicalIndex implements CacheStatsProvider {
+
+	private static final Logger logger = LoggerFactory.getLogger(LexicalIndex.class);
+
+	private final boolean enabled;
+	private final LexicalChunkStore chunkStore;
+	private final DocumentGenerationTracker generationTracker;
+	private final LruCache<String, Bm25Index> indexes;
+	private final ConcurrentMap<String, CompletableFuture<Bm25Index>> loading = new ConcurrentHashMap<>();
+
+	public LexicalIndex(LexicalChunkStore chunkStore,
+	                    DocumentGenerationTracker generationTracker,
+	                    @Value("${rag.lexical.enabled:true}") boolean enabled,
+	                    @Value("${rag.lexical.max-memory:128MB}") DataSize maxMemory) {
+		this.chunkStore = chunkStore;
+		this.generationTracker = generationTracker;
+		this.enabled = enabled;
+		this.indexes = new LruCache<>("rag-lexical-index", maxMemory.toBytes(), Bm25Index::sizeBytes);
+	}
+
+	public boolean isEnabled() {
+		return enabled;
+	}
+
+	/**
+	 * Returns the user's best BM25 matches for the query, or an empty list when the index
+	 * is disabled or nothing matches.
+	 */
+	public List<Document> search(String username, String query, int topK) {
+		if (!enabled) {
+			return List.of();
+		}
+		List<String> terms = LexicalAnalyzer.terms(query);
+		if (terms.isEmpty()) {
+			return List.of();
+		}
+		return index(username).search(terms, topK);
+	}
+
+	@EventListener
+	public synchronized void onUserDocumentsChanged(UserDocumentsChangedEvent event) {
+		indexes.invalidate(event.username());
+	}
+
+	@Override
+	public List<CacheStats> cacheStats() {
+		return List.of(indexes.stats());
+	}
+
+	/**
+	 * Returns the cached index of the user, building it once even under concurrent queries.
+	 */
+	private Bm25Index index(String username) {
+		Bm25Index cached = indexes.get(username);
+		if (cached != null) {
+			return cached;
+		}
+
+		CompletableFuture<Bm25Index> load = new CompletableFuture<>();
+		CompletableFuture<Bm25Index> inFlight = loading.putIfAbsent(username, load);
+		if (inFlight != null) {
+			return inFlight.join();
+		}
+		try {
+			long generation = generationTracker.current(username);
+			Bm25Index index = load(username);
+			synchronized (this) {
+				if (generation == generationTracker.current(username)) {
+					indexes.put(username, index);
+				}
+			}
+			load.complete(index);
+			return index;
+		} catch (RuntimeException e) {
+			load.completeExceptionally(e);
+			throw e;
+		} finally {
+			loading.remove(username, load);
+		}
+	}
+
+	private Bm25Index load(String username) {
+		long start = System.nanoTime();
+		List<LexicalChunk> chunks = new ArrayList<>();
+		chunkStore.forEachUserChunk(username, chunks::add);
+		Bm25Index index = new Bm25Index(username, chunks);
+		logger.info("Built lexical index of {} chunks ({} KB) for user {} in {} ms", index.size(),
+			index.sizeBytes() / 1024, username, (System.nanoTime() - start) / 1_000_000);
+		return index;
+	}
+}
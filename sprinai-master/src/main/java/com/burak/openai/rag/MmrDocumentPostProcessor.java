@@ -0,0 +1,219 @@
+package com.burak.openai.rag;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.ai.rag.Query;
+import org.springframework.ai.rag.postretrieval.document.DocumentPostProcessor;
+import org.springframework.util.Assert;
+import org.springframework.util.CollectionUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reranks retrieved documents with maximal marginal relevance, so that a small number of
+ * chunks covers several sections of the material instead of one cluster of near-identical
+ * passages.
+ * <p>
+ * Each step picks the candidate maximising
+ * {@code lambda * sim(query, d) - (1 - lambda) * max sim(d, selected)} until {@code topK}
+ * documents are chosen. Chunk vectors are the stored embeddings looked up by id through
+ * {@link ChunkVectorSource} and the query vector comes from the (cached) query embedding,
+ * so no chunk text is embedded again. Vectors are normalised and packed into one
+ * {@code float[]}, and the running maximum similarity to the selection (floored at 0) is
+ * kept per candidate, so a rerank costs {@code O(topK * n * dimensions)}.
+ * <p>
+ * The score of each selected document is set to its marginal relevance; these values
+ * never increase from one pick to the next, so sorting by score keeps the MMR order.
+ * Documents without a stored vector are appended after the reranked ones in their
+ * incoming order, with scores decreasing from just below the last pick.
+ */
+public class MmrDocumentPostProcessor implements DocumentPostProcessor {
+
+	private static final Logger logger = LoggerFactory.getLogger(MmrDocumentPostProcessor.class);
+
+	private final EmbeddingModel embeddingModel;
+	private final ChunkVectorSource vectorSource;
+	private final double lambda;
+	private final int topK;
+
+	private MmrDocumentPostProcessor(EmbeddingModel embeddingModel, ChunkVectorSource vectorSource, double lambda,
+	                                 int topK) {
+		this.embeddingModel = embeddingModel;
+		this.vectorSource = vectorSource;
+		this.lambda = lambda;
+		this.topK = topK;
+	}
+
+	@Override
+	public List<Document> process(Query query, List<Document> documents) {
+		Assert.notNull(query, "query cannot be null");
+		Assert.notNull(documents, "documents cannot be null");
+		Assert.noNullElements(documents, "documents cannot contain null elements");
+
+		if (CollectionUtils.isEmpty(documents) || documents.size() == 1) {
+			return documents;
+		}
+
+		String username = RetrievalContext.username(query);
+		Map<String, float[]> storedVectors;
+		float[] queryVector;
+		try {
+			storedVectors = vectorSource.vectors(username, documents.stream().map(Document::getId).toList());
+			queryVector = normalize(embeddingModel.embed(query.text()));
+		} catch (Exception e) {
+			logger.warn("MMR reranking skipped for user: {}, vectors unavailable: {}", username, e.getMessage());
+			return documents.size() > topK ? documents.subList(0, topK) : documents;
+		}
+
+		int dimensions = queryVector.length;
+		List<Document> candidates = new ArrayList<>(documents.size());
+		List<Document> withoutVector = new ArrayList<>();
+		for (Document document : documents) {
+			float[] vector = storedVectors.get(document.getId());
+			if (vector != null && vector.length == dimensions) {
+				candidates.add(document);
+			} else {
+				withoutVector.add(document);
+			}
+		}
+
+		int count = candidates.size();
+		float[] vectors = new float[count * dimensions];
+		float[] relevance = new float[count];
+		for (int i = 0; i < count; i++) {
+			float[] vector = normalize(storedVectors.get(candidates.get(i).getId()));
+			System.arraycopy(vector, 0, vectors, i * dimensions, dimensions);
+			relevance[i] = dot(queryVector, 0, vectors, i * dimensions, dimensions);
+		}
+
+		List<Document> reranked = new ArrayList<>(Math.min(topK, documents.size()));
+		float[] maxSimilarity = new float[count];
+		boolean[] selected = new boolean[count];
+		for (int step = 0; step < Math.min(topK, count); step++) {
+			int best = -1;
+			double bestScore = Double.NEGATIVE_INFINITY;
+			for (int i = 0; i < count; i++) {
+				if (selected[i]) {
+					continue;
+				}
+				double score = lambda * relevance[i] - (1 - lambda) * maxSimilarity[i];
+				if (score > bestScore) {
+					bestScore = score;
+					best = i;
+				}
+			}
+			selected[best] = true;
+			reranked.add(candidates.get(best).mutate().score(bestScore).build());
+
+			int bestOffset = best * dimensions;
+			for (int i = 0; i < count; i++) {
+				if (!selected[i]) {
+					float similarity = dot(vectors, bestOffset, vectors, i * dimensions, dimensions);
+					if (similarity > maxSimilarity[i]) {
+						maxSimilarity[i] = similarity;
+					}
+				}
+			}
+		}
+		// Documents without a vector follow in their incoming order, scored just below the
+		// last MMR pick so that later score-ordered stages keep them there
+		double score = reranked.isEmpty() ? 0 : reranked.get(reranked.size() - 1).getScore();
+		for (int i = 0; i < withoutVector.size() && reranked.size() < topK; i++) {
+			score = Math.nextDown(score);
+			reranked.add(withoutVector.get(i).mutate().score(score).build());
+		}
+
+		logger.debug("MMR selected {} of {} documents (lambda {})", reranked.size(), documents.size(), lambda);
+		return reranked;
+	}
+
+	private static float dot(float[] a, int aOffset, float[] b, int bOffset, int length) {
+		float s0 = 0, s1 = 0, s2 = 0, s3 = 0;
+		int i = 0;
+		for (; i + 3 < length; i += 4) {
+			s0 += a[aOffset + i] * b[bOffset + i];
+			s1 += a[aOffset + i + 1] * b[bOffset + i + 1];
+			s2 += a[aOffset + i + 2] * b[bOffset + i + 2];
+			s3 += a[aOffset + i + 3] * b[bOffset + i + 3];
+		}
+		for (; i < length; i++) {
+			s0 += a[aOffset + i] * b[bOffset + i];
+		}
+		return (s0 + s1) + (s2 + s3);
+	}
+
+	private static float[] normalize(float[] vector) {
+		double norm = 0;
+		for (float value : vector) {
+			norm += value * value;
+		}
+		float[] normalized = new float[vector.length];
+		if (norm == 0) {
+			return normalized;
+		}
+		float scale = (float) (1.0 / Math.sqrt(norm));
+		for (int i = 0; i < vector.length; i++) {
+			normalized[i] = vector[i] * scale;
+		}
+		return normalized;
+	}
+
+	public static Builder builder() {
+		return new Builder();
+	}
+
+	public static class Builder {
+		private EmbeddingModel embeddingModel;
+		private ChunkVectorSource vectorSource;
+		private double lambda = 0.5;
+		private int topK = 5;
+
+		private Builder() {}
+
+		/**
+		 * Model used for the query vector; wrap it in the query embedding cache so that the
+		 * vector computed for retrieval is reused.
+		 */
+		public Builder embeddingModel(EmbeddingModel embeddingModel) {
+			this.embeddingModel = embeddingModel;
+			return this;
+		}
+
+		public Builder vectorSource(ChunkVectorSource vectorSource) {
+			this.vectorSource = vectorSource;
+			return this;
+		}
+
+		/**
+		 * Trade-off between relevance (1.0) and diversity (0.0).
+		 */
+		public Builder lambda(double lambda) {
+			if (lambda < 0.0 || lambda > 1.0) {
+				throw new IllegalArgumentException("lambda must be between 0.0 and 1.0");
+			}
+			this.lambda = lambda;
+			return this;
+		}
+
+		/**
+		 * Number of documents selected.
+		 */
+		public Builder topK(int topK) {
+			if (topK <= 0) {
+				throw new IllegalArgumentException("topK must be greater than 0");
+			}
+			this.topK = topK;
+			return this;
+		}
+
+		public MmrDocumentPostProcessor build() {
+			Assert.notNull(embeddingModel, "embeddingModel must be set");
+			Assert.notNull(vectorSource, "vectorSource must be set");
+			return new MmrDocumentPostProcessor(embeddingModel, vectorSource, lambda, topK);
+		}
+	}
+}
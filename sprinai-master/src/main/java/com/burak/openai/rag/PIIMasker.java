@@ -0,0 +1,62 @@
+package com.burak.openai.rag;
+
+import org.springframework.ai.document.Document;
+
+import java.util.regex.Pattern;
+
+/**
+ * Masks sensitive information (e.g., emails, phone numbers) in text. Shared by ingestion,
+ * which stores chunks already masked, and {@link PIIMaskingDocumentPostProcessor}, which
+ * masks retrieved chunks that were stored before ingest-time masking existed.
+ * <p>
+ * A phone number needs a {@code +} country code, separators between its digit groups, or
+ * a bare form with a real phone prefix: Turkish mobile {@code (0)5xxxxxxxxx} or a North
+ * American number whose area code and exchange do not start with 0 or 1. Other plain
+ * digit runs, such as ISBNs, ids and table values, are left intact. Matches are replaced with {@code [REDACTED_...]}
+ * placeholders, which {@link com.burak.openai.chunking.LexicalAnalyzer} does not index.
+ */
+public final class PIIMasker {
+
+	/** Metadata key set to {@code true} on chunks whose text is already masked. */
+	public static final String PII_MASKED = "pii_masked";
+
+	// Regex patterns for common PII
+	private static final Pattern EMAIL_PATTERN = Pattern.compile(
+		"\\b[A-Za-z0-9._%+-]+@[A-Za-z0-9.-]+\\.[A-Za-z]{2,}\\b",
+		Pattern.CASE_INSENSITIVE);
+	private static final Pattern PHONE_PATTERN = Pattern.compile(
+		"(?<![\\w+])(?:"
+			// With country code, e.g. +90 532 123 45 67 or +905321234567
+			+ "\\+\\d{1,3}[-.\\s]?(?:\\(\\d{3}\\)|\\d{3,4})[-.\\s]?\\d{3}[-.\\s]?\\d{2}[-.\\s]?\\d{2}"
+			// Separated groups, e.g. (555) 123-4567, 0532 123 45 67 or 555.123.4567
+			+ "|(?:\\(\\d{3}\\)|\\d{3,4})[-.\\s]\\d{3}[-.\\s]\\d{2}[-.\\s]?\\d{2}"
+			// Turkish mobile without separators, e.g. 05321234567 or 5321234567
+			+ "|0?5\\d{9}"
+			// North American number without separators, e.g. 2125551234
+			+ "|[2-9]\\d{2}[2-9]\\d{6}"
+			+ ")(?!\\w)");
+
+	private static final String EMAIL_REPLACEMENT = "[REDACTED_EMAIL]";
+	private static final String PHONE_REPLACEMENT = "[REDACTED_PHONE]";
+
+	private PIIMasker() {
+	}
+
+	public static String mask(String text) {
+		String masked = text;
+		// Mask emails
+		masked = EMAIL_PATTERN.matcher(masked).replaceAll(EMAIL_REPLACEMENT);
+		// Mask phone numbers
+		masked = PHONE_PATTERN.matcher(masked).replaceAll(PHONE_REPLACEMENT);
+		return masked;
+	}
+
+	/**
+	 * Returns true when the document is flagged as masked; the flag may come back from the
+	 * vector store as a boolean or a string.
+	 */
+	public static boolean isMasked(Document document) {
+		Object flag = document.getMetadata().get(PII_MASKED);
+		return Boolean.TRUE.equals(flag) || "true".equals(flag);
+	}
+}
@@ -9,27 +9,18 @@ import org.springframework.util.Assert;
 import org.springframework.util.CollectionUtils;
 
 import java.util.List;
-import java.util.regex.Pattern;
 
 /**
  * Masks sensitive information (e.g., emails, phone numbers) in document content
  * to ensure privacy and compliance. Uses regex patterns to identify and redact PII.
+ * <p>
+ * Chunks ingested with masking carry the {@code pii_masked} flag and are passed through
+ * unchanged, so only chunks stored before ingest-time masking are masked per request.
  */
 public class PIIMaskingDocumentPostProcessor implements DocumentPostProcessor {
 	
 	private static final Logger logger = LoggerFactory.getLogger(PIIMaskingDocumentPostProcessor.class);
 	
-	// Regex patterns for common PII
-	private static final Pattern EMAIL_PATTERN = Pattern.compile(
-		"\\b[A-Za-z0-9._%+-]+@[A-Za-z0-9.-]+\\.[A-Za-z]{2,}\\b",
-		Pattern.CASE_INSENSITIVE);
-	private static final Pattern PHONE_PATTERN = Pattern.compile(
-		"\\b(\\+?\\d{1,3}[-.\\s]?)?\\(?\\d{3}\\)?[-.\\s]?\\d{3}[-.\\s]?\\d{4}\\b",
-		Pattern.CASE_INSENSITIVE);
-	
-	private static final String EMAIL_REPLACEMENT = "[REDACTED_EMAIL]";
-	private static final String PHONE_REPLACEMENT = "[REDACTED_PHONE]";
-	
 	private PIIMaskingDocumentPostProcessor() {
 	}
 	
@@ -39,7 +30,7 @@ public class PIIMaskingDocumentPostProcessor implements DocumentPostProcessor {
 		Assert.notNull(documents, "documents cannot be null");
 		Assert.noNullElements(documents, "documents cannot contain null elements");
 		
-		if (CollectionUtils.isEmpty(documents)) {
+		if (CollectionUtils.isEmpty(documents) || documents.stream().allMatch(PIIMasker::isMasked)) {
 			return documents;
 		}
 		
@@ -47,27 +38,21 @@ public class PIIMaskingDocumentPostProcessor implements DocumentPostProcessor {
 		
 		return documents.stream()
 			.map(document -> {
+				if (PIIMasker.isMasked(document)) {
+					return document;
+				}
 				String text = document.getText() != null ? document.getText() : "";
 				// Apply PII masking
-				String maskedText = maskSensitiveInformation(text);
+				String maskedText = PIIMasker.mask(text);
 				return document.mutate()
 					.text(maskedText)
-					.metadata("pii_masked", true)
+					.metadata(PIIMasker.PII_MASKED, true)
 					.build();
 			})
 			.toList();
 	}
 	
-	private String maskSensitiveInformation(String text) {
-		String masked = text;
-		// Mask emails
-		masked = EMAIL_PATTERN.matcher(masked).replaceAll(EMAIL_REPLACEMENT);
-		// Mask phone numbers
-		masked = PHONE_PATTERN.matcher(masked).replaceAll(PHONE_REPLACEMENT);
-		return masked;
-	}
-	
 	public static PIIMaskingDocumentPostProcessor builder() {
 		return new PIIMaskingDocumentPostProcessor();
 	}
-}
\ No newline at end of file
+}
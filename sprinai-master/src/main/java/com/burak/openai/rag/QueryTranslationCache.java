@@ -0,0 +1,53 @@
+package com.burak.openai.rag;
+
+import com.burak.openai.cache.CacheStats;
+import com.burak.openai.cache.CacheStatsProvider;
+import com.burak.openai.cache.LruCache;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+/**
+ * Cache of query translations keyed by (target language, normalised query text).
+ * <p>
+ * Normalisation trims, collapses whitespace and lower-cases the text, so questions that
+ * repeat with different spacing or case reuse one translation. Entries are bounded by
+ * count and expire after a TTL.
+ */
+@Component
+public class QueryTranslationCache implements CacheStatsProvider {
+
+	private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+	private final LruCache<String, String> cache;
+
+	public QueryTranslationCache(@Value("${rag.translation.cache.max-entries:5000}") long maxEntries,
+	                             @Value("${rag.translation.cache.ttl:24h}") Duration ttl) {
+		this.cache = new LruCache<>("rag-query-translation", maxEntries, translation -> 1, ttl);
+	}
+
+	public String get(String targetLanguage, String query) {
+		return cache.get(key(targetLanguage, query));
+	}
+
+	public void put(String targetLanguage, String query, String translation) {
+		cache.put(key(targetLanguage, query), translation);
+	}
+
+	@Override
+	public List<CacheStats> cacheStats() {
+		return List.of(cache.stats());
+	}
+
+	static String normalize(String query) {
+		return WHITESPACE.matcher(query.strip()).replaceAll(" ").toLowerCase(Locale.ROOT);
+	}
+
+	private static String key(String targetLanguage, String query) {
+		return targetLanguage.toLowerCase(Locale.ROOT) + ':' + normalize(query);
+	}
+}
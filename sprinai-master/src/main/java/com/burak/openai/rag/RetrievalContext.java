@@ -0,0 +1,49 @@
+package com.burak.openai.rag;
+
+import org.springframework.ai.chat.client.ChatClient;
+import org.springframework.ai.rag.Query;
+
+import java.util.function.Consumer;
+
+/**
+ * Carries the user a retrieval runs for as an advisor parameter.
+ * <p>
+ * {@code RetrievalAugmentationAdvisor} copies the advisor context into
+ * {@link Query#context()}, so retrievers and post-processors read the user from the query
+ * they are given rather than from the calling thread. This keeps retrieval correct when
+ * the advisor runs it on its own executor, or on virtual or reactive threads. A query
+ * without a user fails instead of falling back to some default user.
+ */
+public final class RetrievalContext {
+
+	/** Advisor parameter holding the username whose documents may be retrieved. */
+	public static final String USERNAME = "rag_username";
+
+	private RetrievalContext() {
+	}
+
+	/**
+	 * Advisor customizer scoping the call's retrieval to the user, e.g.
+	 * {@code chatClient.prompt().advisors(RetrievalContext.forUser(username))}.
+	 */
+	public static Consumer<ChatClient.AdvisorSpec> forUser(String username) {
+		if (username == null || username.isBlank()) {
+			throw new IllegalArgumentException("username cannot be empty");
+		}
+		return advisorSpec -> advisorSpec.param(USERNAME, username);
+	}
+
+	/**
+	 * Returns the user of the query.
+	 *
+	 * @throws IllegalStateException if the query carries no user
+	 */
+	public static String username(Query query) {
+		Object username = query.context().get(USERNAME);
+		if (!(username instanceof String name) || name.isBlank()) {
+			throw new IllegalStateException("No user in the retrieval context; pass the '" + USERNAME
+				+ "' advisor parameter");
+		}
+		return name;
+	}
+}
@@ -0,0 +1,21 @@
+package com.burak.openai.rag;
+
+import java.util.List;
+
+/**
+ * Fixed retrieval queries issued by the quiz and flashcard flows. They are sent to the
+ * RAG advisors as-is, so their embeddings can be computed once and warmed at startup.
+ */
+public final class RetrievalQueries {
+
+	public static final String FLASHCARD_CONTENT_QUERY =
+		"What topics, concepts, formulas, definitions and important information are in this document? List as detailed as possible.";
+
+	public static final String QUIZ_CONTENT_ANALYSIS_QUERY =
+		"Analyze the document and extract key topics, important concepts, definitions, facts, and information that can be used for creating educational quiz questions. Focus on the most significant content.";
+
+	public static final List<String> ALL = List.of(FLASHCARD_CONTENT_QUERY, QUIZ_CONTENT_ANALYSIS_QUERY);
+
+	private RetrievalQueries() {
+	}
+}
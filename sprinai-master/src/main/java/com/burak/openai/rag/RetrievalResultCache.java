@@ -0,0 +1,121 @@
+package com.burak.openai.rag;
+
+import com.burak.openai.cache.CacheStats;
+import com.burak.openai.cache.CacheStatsProvider;
+import com.burak.openai.cache.LruCache;
+import com.burak.openai.service.DocumentGenerationTracker;
+import org.springframework.ai.document.Document;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Caches per-user retrieval results keyed by (username, document generation, query,
+ * topK, similarity threshold).
+ * <p>
+ * The generation comes from {@link DocumentGenerationTracker} and is read before the
+ * search runs, so a result computed while the user's documents changed is stored under
+ * a generation that is already outdated and never served. Entries keep chunk ids, texts,
+ * scores and a shared metadata map in parallel arrays, and the cache is bounded by the
+ * approximate bytes they hold.
+ */
+@Component
+public class RetrievalResultCache implements CacheStatsProvider {
+
+	private static final long ENTRY_OVERHEAD_BYTES = 128;
+	private static final long CHUNK_OVERHEAD_BYTES = 160;
+
+	private final boolean enabled;
+	private final DocumentGenerationTracker generationTracker;
+	private final LruCache<Key, Result> cache;
+
+	public RetrievalResultCache(DocumentGenerationTracker generationTracker,
+	                            @Value("${rag.result-cache.enabled:true}") boolean enabled,
+	                            @Value("${rag.result-cache.max-size:32MB}") DataSize maxSize,
+	                            @Value("${rag.result-cache.ttl:1h}") Duration ttl) {
+		this.generationTracker = generationTracker;
+		this.enabled = enabled;
+		this.cache = new LruCache<>("rag-retrieval-results", maxSize.toBytes(), Result::sizeBytes, ttl);
+	}
+
+	/**
+	 * Returns the key to look up and later store a result under, or {@code null} when the
+	 * cache is disabled. Take the key before searching.
+	 */
+	public Key key(String username, String query, int topK, double similarityThreshold) {
+		if (!enabled) {
+			return null;
+		}
+		return new Key(username, generationTracker.current(username), query, topK, similarityThreshold);
+	}
+
+	public List<Document> get(Key key) {
+		if (key == null) {
+			return null;
+		}
+		Result result = cache.get(key);
+		return result != null ? result.toDocuments() : null;
+	}
+
+	public void put(Key key, List<Document> documents) {
+		if (key != null) {
+			cache.put(key, Result.of(documents));
+		}
+	}
+
+	@Override
+	public List<CacheStats> cacheStats() {
+		return List.of(cache.stats());
+	}
+
+	public record Key(String username, long generation, String query, int topK, double similarityThreshold) {
+	}
+
+	private record Result(String[] ids, String[] texts, double[] scores, Map<String, Object>[] metadata,
+	                      long sizeBytes) {
+
+		@SuppressWarnings("unchecked")
+		static Result of(List<Document> documents) {
+			int count = documents.size();
+			String[] ids = new String[count];
+			String[] texts = new String[count];
+			double[] scores = new double[count];
+			Map<String, Object>[] metadata = new Map[count];
+			long bytes = ENTRY_OVERHEAD_BYTES;
+			for (int i = 0; i < count; i++) {
+				Document document = documents.get(i);
+				ids[i] = document.getId();
+				texts[i] = document.getText() != null ? document.getText() : "";
+				scores[i] = document.getScore() != null ? document.getScore() : Double.NaN;
+				metadata[i] = Map.copyOf(withoutNulls(document.getMetadata()));
+				bytes += CHUNK_OVERHEAD_BYTES + 2L * (ids[i].length() + texts[i].length());
+			}
+			return new Result(ids, texts, scores, metadata, bytes);
+		}
+
+		List<Document> toDocuments() {
+			List<Document> documents = new ArrayList<>(ids.length);
+			for (int i = 0; i < ids.length; i++) {
+				documents.add(Document.builder()
+					.id(ids[i])
+					.text(texts[i])
+					.metadata(new HashMap<>(metadata[i]))
+					.score(Double.isNaN(scores[i]) ? null : scores[i])
+					.build());
+			}
+			return documents;
+		}
+
+		private static Map<String, Object> withoutNulls(Map<String, Object> metadata) {
+			Map<String, Object> copy = new HashMap<>(metadata);
+			copy.values().removeIf(value -> value == null);
+			return copy;
+		}
+	}
+}
@@ -1,4 +1,7 @@
 package com.burak.openai.rag;
+
+import com.burak.openai.repository.UserDocumentRepository;
+import com.burak.openai.service.TenantVectorStoreRouter;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.ai.document.Document;
@@ -9,75 +12,106 @@ import org.springframework.ai.vectorstore.VectorStore;
 import org.springframework.ai.vectorstore.filter.FilterExpressionBuilder;
 import org.springframework.util.Assert;
 
+import java.util.ArrayList;
 import java.util.List;
 
 /**
  * Custom document retriever that filters documents by username to ensure
- * users can only access their own uploaded documents.
+ * users can only access their own uploaded documents. The username is taken from the
+ * query's {@link RetrievalContext}.
+ * <p>
+ * With a {@link UserDocumentRepository} the Qdrant search is also restricted to the
+ * documents the user still has, like the hot tier and the lexical index, so the chunks of
+ * a deleted document are neither returned nor cached while their purge is pending.
  */
 public class UserDocumentRetriever implements DocumentRetriever {
 	
 	private static final Logger logger = LoggerFactory.getLogger(UserDocumentRetriever.class);
 	
 	private final VectorStore vectorStore;
+	private final TenantVectorStoreRouter tenantRouter;
+	private final HotVectorTier hotTier;
+	private final RetrievalResultCache resultCache;
+	private final UserDocumentRepository userDocumentRepository;
 	private final int topK;
 	private final double similarityThreshold;
 	
-	// ThreadLocal to store current user context
-	private static final ThreadLocal<String> currentUsername = new ThreadLocal<>();
-	
-	private UserDocumentRetriever(VectorStore vectorStore, int topK, double similarityThreshold) {
+	private UserDocumentRetriever(VectorStore vectorStore, TenantVectorStoreRouter tenantRouter, HotVectorTier hotTier,
+	                              RetrievalResultCache resultCache, UserDocumentRepository userDocumentRepository,
+	                              int topK, double similarityThreshold) {
 		Assert.notNull(vectorStore, "vectorStore cannot be null");
 		this.vectorStore = vectorStore;
+		this.tenantRouter = tenantRouter;
+		this.hotTier = hotTier;
+		this.resultCache = resultCache;
+		this.userDocumentRepository = userDocumentRepository;
 		this.topK = topK;
 		this.similarityThreshold = similarityThreshold;
 	}
 	
-	/**
-	 * Set username for current thread
-	 */
-	public static void setCurrentUsername(String username) {
-		currentUsername.set(username);
-	}
-	
-	/**
-	 * Clear username for current thread
-	 */
-	public static void clearCurrentUsername() {
-		currentUsername.remove();
-	}
-	
 	@Override
 	public List<Document> retrieve(Query query) {
 		Assert.notNull(query, "query cannot be null");
 		
 		String queryText = query.text();
-		String username = currentUsername.get();
-		if(username == null) {
-			username = "burak";
-		}
+		String username = RetrievalContext.username(query);
 		
 		Assert.hasText(queryText, "query text cannot be empty");
-		Assert.hasText(username, "username must be provided via setCurrentUsername()");
 		
 		logger.info("Retrieving documents for user: {} with query: {}", username, queryText);
 		
 		try {
+			var cacheKey = resultCache != null
+				? resultCache.key(username, queryText, topK, similarityThreshold)
+				: null;
+			if (cacheKey != null) {
+				List<Document> cached = resultCache.get(cacheKey);
+				if (cached != null) {
+					logger.info("Found {} cached documents for user: {}", cached.size(), username);
+					return cached;
+				}
+			}
+			
+			if (hotTier != null) {
+				var hotDocuments = hotTier.search(username, queryText, topK, similarityThreshold);
+				if (hotDocuments.isPresent()) {
+					logger.info("Found {} documents for user: {} in the hot tier", hotDocuments.get().size(), username);
+					if (cacheKey != null) {
+						resultCache.put(cacheKey, hotDocuments.get());
+					}
+					return hotDocuments.get();
+				}
+			}
+			
 			// Create filter to only search user's documents
-			var filterExpression = new FilterExpressionBuilder()
-				.eq("username", username)
-				.build();
+			var filter = new FilterExpressionBuilder();
+			var filterExpression = filter.eq("username", username);
+			if (userDocumentRepository != null) {
+				List<Object> documentIds = new ArrayList<>(userDocumentRepository.findDocumentIdsByUsername(username));
+				if (documentIds.isEmpty()) {
+					logger.info("User: {} has no documents", username);
+					if (cacheKey != null) {
+						resultCache.put(cacheKey, List.of());
+					}
+					return List.of();
+				}
+				filterExpression = filter.and(filterExpression, filter.in("documentId", documentIds));
+			}
 			
 			SearchRequest searchRequest = SearchRequest.builder()
 				.query(queryText)
 				.topK(topK)
 				.similarityThreshold(similarityThreshold)
-				.filterExpression(filterExpression)
+				.filterExpression(filterExpression.build())
 				.build();
 			
-			List<Document> documents = vectorStore.similaritySearch(searchRequest);
+			VectorStore userVectorStore = tenantRouter != null ? tenantRouter.vectorStoreFor(username) : vectorStore;
+			List<Document> documents = userVectorStore.similaritySearch(searchRequest);
 			
 			logger.info("Found {} documents for user: {}", documents.size(), username);
+			if (cacheKey != null) {
+				resultCache.put(cacheKey, documents);
+			}
 			
 			return documents;
 			
@@ -93,6 +127,10 @@ public class UserDocumentRetriever implements DocumentRetriever {
 	
 	public static class Builder {
 		private VectorStore vectorStore;
+		private TenantVectorStoreRouter tenantRouter;
+		private HotVectorTier hotTier;
+		private RetrievalResultCache resultCache;
+		private UserDocumentRepository userDocumentRepository;
 		private int topK = 5;
 		private double similarityThreshold = 0.6;
 		
@@ -103,6 +141,40 @@ public class UserDocumentRetriever implements DocumentRetriever {
 			return this;
 		}
 		
+		/**
+		 * Optional router to the collection holding the user's documents; without it every
+		 * search goes to {@link #vectorStore(VectorStore)}.
+		 */
+		public Builder tenantRouter(TenantVectorStoreRouter tenantRouter) {
+			this.tenantRouter = tenantRouter;
+			return this;
+		}
+		
+		/**
+		 * Optional in-process tier consulted before Qdrant.
+		 */
+		public Builder hotTier(HotVectorTier hotTier) {
+			this.hotTier = hotTier;
+			return this;
+		}
+		
+		/**
+		 * Optional cache of results per user document generation.
+		 */
+		public Builder resultCache(RetrievalResultCache resultCache) {
+			this.resultCache = resultCache;
+			return this;
+		}
+		
+		/**
+		 * Optional source of the user's live document ids; without it the search only filters
+		 * by username.
+		 */
+		public Builder userDocumentRepository(UserDocumentRepository userDocumentRepository) {
+			this.userDocumentRepository = userDocumentRepository;
+			return this;
+		}
+		
 		public Builder topK(int topK) {
 			if (topK <= 0) {
 				throw new IllegalArgumentException("topK must be greater than 0");
@@ -121,7 +193,8 @@ public class UserDocumentRetriever implements DocumentRetriever {
 		
 		public UserDocumentRetriever build() {
 			Assert.notNull(vectorStore, "vectorStore must be set");
-			return new UserDocumentRetriever(vectorStore, topK, similarityThreshold);
+			return new UserDocumentRetriever(vectorStore, tenantRouter, hotTier, resultCache, userDocumentRepository,
+				topK, similarityThreshold);
 		}
 	}
 }
\ No newline at end of file
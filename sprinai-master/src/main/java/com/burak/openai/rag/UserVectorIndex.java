@@ -0,0 +1,158 @@
+package com.burak.openai.rag;
+
+import com.burak.openai.service.QdrantPointService.StoredPoint;
+import org.springframework.ai.document.Document;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Immutable flat vector index over one user's chunks.
+ * <p>
+ * All vectors are L2-normalised and packed row by row into a single {@code float[]}, so a
+ * search is one sequential pass computing dot products (equal to cosine similarity) and
+ * keeping the best {@code topK} rows. For the few thousand chunks a student typically has,
+ * this beats a graph index both in build time and, at this size, in query latency.
+ */
+final class UserVectorIndex {
+
+	private static final long POINT_OVERHEAD_BYTES = 256;
+
+	private final String[] ids;
+	private final String[] texts;
+	private final Map<String, Object>[] metadata;
+	private final float[] vectors;
+	private final Map<String, Integer> rowsById;
+	private final int dimensions;
+	private final long sizeBytes;
+
+	@SuppressWarnings("unchecked")
+	UserVectorIndex(List<StoredPoint> points) {
+		int count = points.size();
+		this.dimensions = count == 0 ? 0 : points.get(0).vector().length;
+		this.ids = new String[count];
+		this.texts = new String[count];
+		this.metadata = new Map[count];
+		this.vectors = new float[count * dimensions];
+		this.rowsById = new HashMap<>(count * 2);
+
+		long bytes = (long) vectors.length * Float.BYTES;
+		for (int i = 0; i < count; i++) {
+			StoredPoint point = points.get(i);
+			if (point.vector().length != dimensions) {
+				throw new IllegalArgumentException("Point " + point.id() + " has " + point.vector().length
+					+ " dimensions, expected " + dimensions);
+			}
+			ids[i] = point.id();
+			rowsById.put(point.id(), i);
+			texts[i] = point.text();
+			metadata[i] = point.metadata();
+			System.arraycopy(normalize(point.vector()), 0, vectors, i * dimensions, dimensions);
+			bytes += POINT_OVERHEAD_BYTES + 2L * (point.id().length() + point.text().length());
+		}
+		this.sizeBytes = bytes;
+	}
+
+	int size() {
+		return ids.length;
+	}
+
+	long sizeBytes() {
+		return sizeBytes;
+	}
+
+	/**
+	 * Returns a copy of the normalised vector of the chunk, or {@code null} if the index
+	 * does not contain it.
+	 */
+	float[] vector(String id) {
+		Integer row = rowsById.get(id);
+		if (row == null) {
+			return null;
+		}
+		return Arrays.copyOfRange(vectors, row * dimensions, (row + 1) * dimensions);
+	}
+
+	/**
+	 * Returns the {@code topK} most similar chunks whose cosine similarity to the query is
+	 * at least {@code threshold}, best first, as documents shaped like the ones the Qdrant
+	 * vector store returns.
+	 */
+	List<Document> search(float[] query, int topK, double threshold) {
+		if (ids.length == 0 || query.length != dimensions) {
+			return List.of();
+		}
+		float[] normalizedQuery = normalize(query);
+
+		int[] bestRows = new int[topK];
+		float[] bestScores = new float[topK];
+		int found = 0;
+		for (int row = 0; row < ids.length; row++) {
+			float score = dot(normalizedQuery, row * dimensions);
+			if (score < threshold || (found == topK && score <= bestScores[found - 1])) {
+				continue;
+			}
+			// Insertion into the small sorted top-k arrays
+			int position = found < topK ? found++ : topK - 1;
+			while (position > 0 && bestScores[position - 1] < score) {
+				bestScores[position] = bestScores[position - 1];
+				bestRows[position] = bestRows[position - 1];
+				position--;
+			}
+			bestScores[position] = score;
+			bestRows[position] = row;
+		}
+
+		List<Document> results = new ArrayList<>(found);
+		for (int i = 0; i < found; i++) {
+			int row = bestRows[i];
+			Map<String, Object> documentMetadata = new HashMap<>(metadata[row]);
+			documentMetadata.put("distance", 1.0f - bestScores[i]);
+			results.add(Document.builder()
+				.id(ids[row])
+				.text(texts[row])
+				.metadata(documentMetadata)
+				.score((double) bestScores[i])
+				.build());
+		}
+		return results;
+	}
+
+	/**
+	 * Dot product with four independent accumulators, which lets the JIT overlap the
+	 * floating-point adds instead of serialising them on one register.
+	 */
+	private float dot(float[] query, int offset) {
+		float s0 = 0, s1 = 0, s2 = 0, s3 = 0;
+		int i = 0;
+		for (; i + 3 < dimensions; i += 4) {
+			s0 += query[i] * vectors[offset + i];
+			s1 += query[i + 1] * vectors[offset + i + 1];
+			s2 += query[i + 2] * vectors[offset + i + 2];
+			s3 += query[i + 3] * vectors[offset + i + 3];
+		}
+		for (; i < dimensions; i++) {
+			s0 += query[i] * vectors[offset + i];
+		}
+		return (s0 + s1) + (s2 + s3);
+	}
+
+	private static float[] normalize(float[] vector) {
+		double norm = 0;
+		for (float value : vector) {
+			norm += value * value;
+		}
+		if (norm == 0) {
+			return vector.clone();
+		}
+		float scale = (float) (1.0 / Math.sqrt(norm));
+		float[] normalized = new float[vector.length];
+		for (int i = 0; i < vector.length; i++) {
+			normalized[i] = vector[i] * scale;
+		}
+		return normalized;
+	}
+}
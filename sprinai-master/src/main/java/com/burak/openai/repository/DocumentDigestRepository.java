@@ -0,0 +1,19 @@
+package com.burak.openai.repository;
+
+import com.burak.openai.entity.DocumentDigest;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface DocumentDigestRepository extends JpaRepository<DocumentDigest, Long> {
+	
+	Optional<DocumentDigest> findByDocumentId(String documentId);
+	
+	Optional<DocumentDigest> findFirstByContentHash(String contentHash);
+	
+	List<DocumentDigest> findByDocumentIdIn(Collection<String> documentIds);
+}
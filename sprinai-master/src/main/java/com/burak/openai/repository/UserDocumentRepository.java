@@ -1,7 +1,10 @@
 package com.burak.openai.repository;
 
+import com.burak.openai.entity.DocumentStatus;
 import com.burak.openai.entity.UserDocument;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -16,5 +19,15 @@ public interface UserDocumentRepository extends JpaRepository<UserDocument, Long
 	
 	List<UserDocument> findByDocumentId(String documentId);
 	
+	Optional<UserDocument> findFirstByUsernameAndContentHashAndStatusNot(String username, String contentHash, DocumentStatus status);
+	
+	Optional<UserDocument> findFirstByContentHashAndStatus(String contentHash, DocumentStatus status);
+	
+	@Query("SELECT d.documentId FROM UserDocument d")
+	List<String> findAllDocumentIds();
+	
+	@Query("SELECT d.documentId FROM UserDocument d WHERE d.username = :username")
+	List<String> findDocumentIdsByUsername(@Param("username") String username);
+	
 	void deleteByDocumentId(String documentId);
 }
\ No newline at end of file
@@ -0,0 +1,96 @@
+package com.burak.openai.service;
+
+import org.springframework.util.Assert;
+
+import java.time.Duration;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * AIMD concurrency limit for calls to a rate-limited backend.
+ * <p>
+ * The limit grows by roughly one permit per window of successful calls that finish under
+ * the latency target, shrinks by 10% when a call is slower than the target, and is halved
+ * when the backend reports rate limiting. Callers block in {@link #acquire()} while the
+ * number of in-flight calls is at the current limit.
+ */
+public class AdaptiveConcurrencyLimiter {
+
+	private final int minLimit;
+	private final int maxLimit;
+	private final long targetLatencyNanos;
+
+	private final ReentrantLock lock = new ReentrantLock();
+	private final Condition permitAvailable = lock.newCondition();
+	private double limit;
+	private int inFlight;
+
+	public AdaptiveConcurrencyLimiter(int minLimit, int initialLimit, int maxLimit, Duration targetLatency) {
+		Assert.isTrue(minLimit >= 1, "minLimit must be at least 1");
+		Assert.isTrue(minLimit <= initialLimit && initialLimit <= maxLimit,
+			"limits must satisfy min <= initial <= max");
+		this.minLimit = minLimit;
+		this.maxLimit = maxLimit;
+		this.targetLatencyNanos = targetLatency.toNanos();
+		this.limit = initialLimit;
+	}
+
+	public void acquire() throws InterruptedException {
+		lock.lockInterruptibly();
+		try {
+			while (inFlight >= (int) limit) {
+				permitAvailable.await();
+			}
+			inFlight++;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	public void onSuccess(long latencyNanos) {
+		lock.lock();
+		try {
+			if (latencyNanos > targetLatencyNanos) {
+				limit = Math.max(minLimit, limit * 0.9);
+			} else {
+				limit = Math.min(maxLimit, limit + 1.0 / limit);
+			}
+			release();
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	public void onRateLimited() {
+		lock.lock();
+		try {
+			limit = Math.max(minLimit, limit / 2);
+			release();
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	public void onFailure() {
+		lock.lock();
+		try {
+			release();
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	public int currentLimit() {
+		lock.lock();
+		try {
+			return (int) limit;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	private void release() {
+		inFlight--;
+		permitAvailable.signalAll();
+	}
+}
@@ -0,0 +1,46 @@
+package com.burak.openai.service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.UUID;
+
+/**
+ * Deterministic identity of a stored chunk: the point id is a name-based UUID derived
+ * from the document id, the SHA-256 of the chunk text and, for chunks of page-parallel
+ * PDF extraction, the page number, so writing the same chunk of the same document twice
+ * is an idempotent upsert while the same text on two pages stays two chunks.
+ */
+final class ChunkIdentity {
+
+	/** Metadata/payload key holding the SHA-256 of the chunk text. */
+	static final String CHUNK_HASH = "chunk_hash";
+
+	private ChunkIdentity() {
+	}
+
+	static String chunkHash(String text) {
+		try {
+			MessageDigest digest = MessageDigest.getInstance("SHA-256");
+			return HexFormat.of().formatHex(digest.digest(text.getBytes(StandardCharsets.UTF_8)));
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException("SHA-256 is not available", e);
+		}
+	}
+
+	/**
+	 * @param pageNumber page of the chunk, or {@code null} when the extraction has no pages
+	 */
+	static String chunkId(String documentId, String chunkHash, Integer pageNumber) {
+		String name = pageNumber != null ? documentId + ':' + chunkHash + ':' + pageNumber : documentId + ':' + chunkHash;
+		return UUID.nameUUIDFromBytes(name.getBytes(StandardCharsets.UTF_8)).toString();
+	}
+
+	/**
+	 * Reads the page number from chunk metadata, where it may be any integral type.
+	 */
+	static Integer pageNumber(Object value) {
+		return value instanceof Number number ? number.intValue() : null;
+	}
+}
@@ -0,0 +1,305 @@
+package com.burak.openai.service;
+
+import com.burak.openai.entity.DocumentDigest;
+import com.burak.openai.entity.DocumentStatus;
+import com.burak.openai.entity.UserDocument;
+import com.burak.openai.model.DocumentDigestContent;
+import com.burak.openai.repository.DocumentDigestRepository;
+import com.burak.openai.repository.UserDocumentRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.ai.chat.client.ChatClient;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Builds and serves per-document topic and concept digests for quiz and flashcard
+ * generation.
+ * <p>
+ * The digest of a document only depends on its content, so it is generated once in the
+ * background when the document becomes ACTIVE, from an evenly spaced sample of its stored
+ * chunks, and persisted. Byte-identical documents share one digest without another model
+ * call. A digest generated while the document was replaced or deleted is discarded.
+ * <p>
+ * A document whose digest could not be built (no stored chunks, model or parse failure,
+ * full queue) is not retried before the retry backoff has passed, unless it changes.
+ * <p>
+ * {@link #userDigest(String)} merges the digests that exist for a user's active documents;
+ * it is empty only while none of them has one, and callers then fall back to
+ * retrieval-based content analysis.
+ */
+@Service
+@Slf4j
+public class DocumentDigestService {
+	
+	private final ChatClient digestChatClient;
+	private final DocumentDigestRepository digestRepository;
+	private final UserDocumentRepository userDocumentRepository;
+	private final LexicalChunkStore lexicalChunkStore;
+	private final ObjectMapper objectMapper;
+	private final boolean enabled;
+	private final int inputChars;
+	private final int mergedMaxChars;
+	private final long retryBackoffMillis;
+	private final ThreadPoolExecutor executor;
+	private final Set<String> queued = ConcurrentHashMap.newKeySet();
+	private final Map<String, Long> retryAfter = new ConcurrentHashMap<>();
+	
+	public DocumentDigestService(@Qualifier("documentDigestChatClient") ChatClient digestChatClient,
+	                             DocumentDigestRepository digestRepository,
+	                             UserDocumentRepository userDocumentRepository,
+	                             LexicalChunkStore lexicalChunkStore,
+	                             ObjectMapper objectMapper,
+	                             @Value("${document.digest.enabled:true}") boolean enabled,
+	                             @Value("${document.digest.threads:1}") int threads,
+	                             @Value("${document.digest.queue-capacity:64}") int queueCapacity,
+	                             @Value("${document.digest.input-chars:12000}") int inputChars,
+	                             @Value("${document.digest.merged-max-chars:2000}") int mergedMaxChars,
+	                             @Value("${document.digest.retry-backoff:10m}") Duration retryBackoff) {
+		this.digestChatClient = digestChatClient;
+		this.digestRepository = digestRepository;
+		this.userDocumentRepository = userDocumentRepository;
+		this.lexicalChunkStore = lexicalChunkStore;
+		this.objectMapper = objectMapper;
+		this.enabled = enabled;
+		this.inputChars = inputChars;
+		this.mergedMaxChars = mergedMaxChars;
+		this.retryBackoffMillis = retryBackoff.toMillis();
+		this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+			new ArrayBlockingQueue<>(queueCapacity), new CustomizableThreadFactory("document-digest-"),
+			new ThreadPoolExecutor.AbortPolicy());
+	}
+	
+	@EventListener
+	public void onUserDocumentsChanged(UserDocumentsChangedEvent event) {
+		if (enabled) {
+			retryAfter.remove(event.documentId());
+			queueRefresh(event.documentId());
+		}
+	}
+	
+	/**
+	 * Returns the merged digests of the user's active documents, most recent first, or
+	 * empty when none of them has a digest yet. Each digest gets an equal share of the
+	 * merged size and is cut after its last whole line within it, so no topic or key term
+	 * is cut in half.
+	 */
+	public Optional<String> userDigest(String username) {
+		if (!enabled) {
+			return Optional.empty();
+		}
+		List<UserDocument> documents = userDocumentRepository.findByUsernameOrderByUploadDateDesc(username).stream()
+			.filter(document -> document.getStatus() == DocumentStatus.ACTIVE)
+			.toList();
+		if (documents.isEmpty()) {
+			return Optional.empty();
+		}
+		
+		Map<String, DocumentDigest> digests = digestRepository
+			.findByDocumentIdIn(documents.stream().map(UserDocument::getDocumentId).toList())
+			.stream()
+			.collect(Collectors.toMap(DocumentDigest::getDocumentId, Function.identity()));
+		List<String> rendered = new ArrayList<>(documents.size());
+		for (UserDocument document : documents) {
+			DocumentDigest digest = digests.get(document.getDocumentId());
+			if (digest == null || !Objects.equals(digest.getContentHash(), document.getContentHash())) {
+				queueRefresh(document.getDocumentId());
+			} else {
+				rendered.add(render(document.getOriginalFilename(), digest));
+			}
+		}
+		if (rendered.isEmpty()) {
+			log.info("Digests of user {} are not ready yet, falling back to retrieval", username);
+			return Optional.empty();
+		}
+		if (rendered.size() < documents.size()) {
+			log.info("Using digests of {} of {} documents for user: {}", rendered.size(), documents.size(), username);
+		}
+		
+		// Two characters of every share go to the separator between digests
+		int share = Math.max(1, mergedMaxChars / rendered.size() - 2);
+		List<String> parts = new ArrayList<>(rendered.size());
+		for (String text : rendered) {
+			parts.add(truncateLines(text, share));
+		}
+		return Optional.of(String.join("\n\n", parts));
+	}
+	
+	private void queueRefresh(String documentId) {
+		Long notBefore = retryAfter.get(documentId);
+		if (notBefore != null) {
+			if (System.currentTimeMillis() < notBefore) {
+				return;
+			}
+			retryAfter.remove(documentId, notBefore);
+		}
+		if (!queued.add(documentId)) {
+			return;
+		}
+		try {
+			executor.execute(() -> {
+				queued.remove(documentId);
+				refresh(documentId);
+			});
+		} catch (RejectedExecutionException e) {
+			queued.remove(documentId);
+			deferRetry(documentId);
+			log.warn("Digest queue is full, skipping digest of document {}", documentId);
+		}
+	}
+	
+	private void deferRetry(String documentId) {
+		retryAfter.put(documentId, System.currentTimeMillis() + retryBackoffMillis);
+	}
+	
+	private void refresh(String documentId) {
+		try {
+			Optional<UserDocument> document = userDocumentRepository.findByDocumentId(documentId).stream().findFirst();
+			Optional<DocumentDigest> existing = digestRepository.findByDocumentId(documentId);
+			if (document.isEmpty()) {
+				retryAfter.remove(documentId);
+				existing.ifPresent(digestRepository::delete);
+				return;
+			}
+			UserDocument current = document.get();
+			String contentHash = current.getContentHash();
+			if (current.getStatus() != DocumentStatus.ACTIVE
+				|| existing.isPresent() && contentHash != null && contentHash.equals(existing.get().getContentHash())) {
+				return;
+			}
+			
+			String digest = contentHash != null
+				? digestRepository.findFirstByContentHash(contentHash).map(DocumentDigest::getDigest).orElse(null)
+				: null;
+			if (digest == null) {
+				digest = generate(current);
+				if (digest == null) {
+					deferRetry(documentId);
+					return;
+				}
+			}
+			
+			// The document may have been replaced or deleted while the digest was generated
+			Optional<UserDocument> after = userDocumentRepository.findByDocumentId(documentId).stream().findFirst();
+			if (after.isEmpty() || after.get().getStatus() != DocumentStatus.ACTIVE
+				|| !Objects.equals(after.get().getContentHash(), contentHash)) {
+				log.info("Document {} changed while its digest was generated, discarding it", documentId);
+				return;
+			}
+			
+			DocumentDigest entity = existing.orElseGet(() -> DocumentDigest.builder().documentId(documentId).build());
+			entity.setUsername(current.getUsername());
+			entity.setContentHash(contentHash);
+			entity.setDigest(digest);
+			entity.setCreatedAt(LocalDateTime.now());
+			digestRepository.save(entity);
+			log.info("Stored digest of document {} for user: {}", documentId, current.getUsername());
+		} catch (Exception e) {
+			deferRetry(documentId);
+			log.warn("Could not build digest of document {}: {}", documentId, e.getMessage());
+		}
+	}
+	
+	private String generate(UserDocument document) throws Exception {
+		List<String> chunks = lexicalChunkStore.documentChunks(document.getDocumentId());
+		if (chunks.isEmpty()) {
+			log.info("Document {} has no stored chunks, skipping digest", document.getDocumentId());
+			return null;
+		}
+		
+		long start = System.nanoTime();
+		DocumentDigestContent content = digestChatClient.prompt()
+			.user("Document: " + document.getOriginalFilename() + "\n\nEXCERPTS:\n" + sample(chunks))
+			.call()
+			.entity(DocumentDigestContent.class);
+		log.info("Generated digest of document {} from {} chunks in {} ms", document.getDocumentId(), chunks.size(),
+			TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+		return objectMapper.writeValueAsString(content);
+	}
+	
+	/**
+	 * Joins evenly spaced chunks, in order, up to the input size so that long documents are
+	 * covered from start to end.
+	 */
+	private String sample(List<String> chunks) {
+		long total = chunks.stream().mapToLong(String::length).sum();
+		int stride = (int) Math.max(1, (total + inputChars - 1) / inputChars);
+		StringBuilder excerpts = new StringBuilder();
+		for (int i = 0; i < chunks.size(); i += stride) {
+			String chunk = chunks.get(i);
+			if (!excerpts.isEmpty() && excerpts.length() + chunk.length() > inputChars) {
+				break;
+			}
+			excerpts.append(chunk).append("\n\n");
+		}
+		return excerpts.toString();
+	}
+	
+	/**
+	 * Cuts the text after its last whole line that fits in {@code maxChars}; a first line
+	 * that is too long is cut itself.
+	 */
+	private static String truncateLines(String text, int maxChars) {
+		if (text.length() <= maxChars) {
+			return text;
+		}
+		int end = text.lastIndexOf('\n', maxChars);
+		return end > 0 ? text.substring(0, end) : text.substring(0, maxChars);
+	}
+	
+	private String render(String filename, DocumentDigest digest) {
+		DocumentDigestContent content;
+		try {
+			content = objectMapper.readValue(digest.getDigest(), DocumentDigestContent.class);
+		} catch (Exception e) {
+			return "Document: " + filename;
+		}
+		
+		StringBuilder text = new StringBuilder("Document: ").append(filename).append('\n');
+		if (content.summary() != null) {
+			text.append("Summary: ").append(content.summary()).append('\n');
+		}
+		if (content.topics() != null && !content.topics().isEmpty()) {
+			text.append("Topics:\n");
+			for (DocumentDigestContent.Topic topic : content.topics()) {
+				text.append("- ").append(topic.name());
+				if (topic.keyPoints() != null && !topic.keyPoints().isEmpty()) {
+					text.append(": ").append(String.join("; ", topic.keyPoints()));
+				}
+				text.append('\n');
+			}
+		}
+		if (content.keyTerms() != null && !content.keyTerms().isEmpty()) {
+			text.append("Key terms:\n");
+			for (DocumentDigestContent.KeyTerm keyTerm : content.keyTerms()) {
+				text.append("- ").append(keyTerm.term()).append(": ").append(keyTerm.definition()).append('\n');
+			}
+		}
+		return text.toString().strip();
+	}
+	
+	@PreDestroy
+	public void shutdown() {
+		executor.shutdownNow();
+	}
+}
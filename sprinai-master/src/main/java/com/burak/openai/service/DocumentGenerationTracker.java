@@ -0,0 +1,38 @@
+package com.burak.openai.service;
+
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Per-user "document generation" number, incremented whenever the user's searchable
+ * chunks change. Anything derived from a user's documents can be keyed on the generation
+ * it was computed at, which makes invalidation exact and O(1): a bump simply makes older
+ * keys unreachable. The bump listener runs before any other listener of
+ * {@link UserDocumentsChangedEvent}.
+ */
+@Component
+public class DocumentGenerationTracker {
+
+	private final ConcurrentMap<String, AtomicLong> generations = new ConcurrentHashMap<>();
+
+	public long current(String username) {
+		AtomicLong generation = generations.get(username);
+		return generation != null ? generation.get() : 0;
+	}
+
+	public long bump(String username) {
+		return generations.computeIfAbsent(username, key -> new AtomicLong()).incrementAndGet();
+	}
+
+	@EventListener
+	@Order(Ordered.HIGHEST_PRECEDENCE)
+	public void onUserDocumentsChanged(UserDocumentsChangedEvent event) {
+		bump(event.username());
+	}
+}
@@ -0,0 +1,20 @@
+package com.burak.openai.service;
+
+import java.nio.file.Path;
+
+/**
+ * A spooled upload waiting to be processed by {@link DocumentIngestionPipeline}.
+ * The document id doubles as the job id returned to the client. Jobs that copy an
+ * existing document's vectors carry no spooled file. Replacement jobs ingest a new
+ * revision of an existing document and only touch the chunks that changed.
+ */
+public record DocumentIngestionJob(
+	String documentId,
+	String username,
+	String originalFilename,
+	String contentType,
+	long fileSize,
+	Path spooledFile,
+	boolean replacement
+) {
+}
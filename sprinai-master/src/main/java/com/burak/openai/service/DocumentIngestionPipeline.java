@@ -0,0 +1,562 @@
+package com.burak.openai.service;
+
+import com.burak.openai.chunking.SentenceChunker;
+import com.burak.openai.entity.DocumentStatus;
+import com.burak.openai.entity.UserDocument;
+import com.burak.openai.rag.PIIMasker;
+import com.burak.openai.repository.UserDocumentRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.reader.tika.TikaDocumentReader;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Background ingestion pipeline for uploaded documents: extract -> split -> embed/upsert.
+ * <p>
+ * Every stage runs on its own bounded queue and worker pool. Extraction is additionally
+ * split into a small-file and a large-file lane so that a single huge PDF cannot hold up
+ * the small uploads queued behind it. Admission into the extraction lanes fails fast when
+ * they are full; hand-offs between later stages block the upstream worker instead, which
+ * propagates back-pressure without dropping work.
+ * <p>
+ * In streaming mode the extractor emits the text in bounded windows that flow through
+ * split and embed independently. At most {@code max-in-flight-windows} windows per job
+ * are held between extraction and the vector store, so the heap used by one upload is
+ * bounded by the window size rather than by the file size.
+ * <p>
+ * Long PDFs bypass Tika and are extracted page range by page range in parallel by
+ * {@link PagedPdfExtractor}; each range becomes one window and every chunk keeps the
+ * {@code page_number} of the page it came from.
+ * <p>
+ * Chunk ids are derived from the document id, the chunk's content hash and its page
+ * number, if any, so upserts are idempotent. Every stored chunk is also written to the
+ * {@link LexicalChunkStore} under the same id. Replacing a document with a new revision
+ * therefore only embeds the chunks whose text changed and deletes the ones that
+ * disappeared; the chunks it keeps get the new revision's file metadata.
+ * <p>
+ * Chunks are PII-masked once here, before they are embedded, and stored with the
+ * {@code pii_masked} flag, so retrieval does not have to mask them on every request. The
+ * chunk id is still derived from the unmasked text.
+ * <p>
+ * A job that fails after some windows were stored purges the chunks it wrote once no
+ * window is in flight any more, so a FAILED document does not feed partial content into
+ * retrieval; a failed replacement only loses the chunks it added and keeps the previous
+ * revision.
+ * <p>
+ * Each job keeps an {@link IngestionTrace} and logs one summary line when it ends.
+ */
+@Component
+@Slf4j
+public class DocumentIngestionPipeline {
+
+	private static final int MAX_STATUS_MESSAGE_LENGTH = 1000;
+
+	private static final RejectedExecutionHandler BLOCK_WHEN_FULL = (task, executor) -> {
+		if (executor.isShutdown()) {
+			throw new RejectedExecutionException("Ingestion pipeline is shutting down");
+		}
+		try {
+			executor.getQueue().put(task);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new RejectedExecutionException("Interrupted while waiting for pipeline capacity", e);
+		}
+	};
+
+	private final ParallelEmbeddingWriter embeddingWriter;
+	private final QdrantPointService qdrantPointService;
+	private final LexicalChunkStore lexicalChunkStore;
+	private final VectorPurgeService vectorPurgeService;
+	private final UserDocumentRepository userDocumentRepository;
+	private final ApplicationEventPublisher eventPublisher;
+	private final long largeFileThreshold;
+	private final boolean streamingEnabled;
+	private final int maxInFlightWindows;
+	private final int maxChunks;
+	private final int deleteBatchSize;
+	private final StreamingTextExtractor streamingExtractor;
+	private final PagedPdfExtractor pagedPdfExtractor;
+	private final SentenceChunker chunker;
+	private final double previewSampleRate;
+	private final int previewChars;
+	private final boolean piiMasking;
+
+	private final ThreadPoolExecutor extractExecutor;
+	private final ThreadPoolExecutor largeExtractExecutor;
+	private final ThreadPoolExecutor splitExecutor;
+	private final ThreadPoolExecutor embedExecutor;
+
+	public DocumentIngestionPipeline(ParallelEmbeddingWriter embeddingWriter,
+	                                 QdrantPointService qdrantPointService,
+	                                 LexicalChunkStore lexicalChunkStore,
+	                                 VectorPurgeService vectorPurgeService,
+	                                 UserDocumentRepository userDocumentRepository,
+	                                 PagedPdfExtractor pagedPdfExtractor,
+	                                 ApplicationEventPublisher eventPublisher,
+	                                 @Value("${document.ingestion.large-file-threshold:20MB}") DataSize largeFileThreshold,
+	                                 @Value("${document.ingestion.extract.threads:2}") int extractThreads,
+	                                 @Value("${document.ingestion.extract.large-threads:1}") int largeExtractThreads,
+	                                 @Value("${document.ingestion.split.threads:2}") int splitThreads,
+	                                 @Value("${document.ingestion.embed.threads:2}") int embedThreads,
+	                                 @Value("${document.ingestion.queue-capacity:32}") int queueCapacity,
+	                                 @Value("${document.ingestion.max-chunks:5000}") int maxChunks,
+	                                 @Value("${document.ingestion.chunking.chunk-size:300}") int chunkSize,
+	                                 @Value("${document.ingestion.chunking.overlap-tokens:50}") int overlapTokens,
+	                                 @Value("${document.vectors.purge.batch-size:512}") int deleteBatchSize,
+	                                 @Value("${document.ingestion.streaming.enabled:true}") boolean streamingEnabled,
+	                                 @Value("${document.ingestion.streaming.window-chars:262144}") int windowChars,
+	                                 @Value("${document.ingestion.streaming.max-in-flight-windows:2}") int maxInFlightWindows,
+	                                 @Value("${document.ingestion.trace.preview-sample-rate:0.0}") double previewSampleRate,
+	                                 @Value("${document.ingestion.trace.preview-chars:150}") int previewChars,
+	                                 @Value("${document.ingestion.pii-masking.enabled:true}") boolean piiMasking) {
+		this.embeddingWriter = embeddingWriter;
+		this.qdrantPointService = qdrantPointService;
+		this.lexicalChunkStore = lexicalChunkStore;
+		this.vectorPurgeService = vectorPurgeService;
+		this.userDocumentRepository = userDocumentRepository;
+		this.eventPublisher = eventPublisher;
+		this.largeFileThreshold = largeFileThreshold.toBytes();
+		this.maxChunks = maxChunks;
+		this.deleteBatchSize = deleteBatchSize;
+		this.streamingEnabled = streamingEnabled;
+		this.maxInFlightWindows = maxInFlightWindows;
+		this.previewSampleRate = previewSampleRate;
+		this.previewChars = previewChars;
+		this.piiMasking = piiMasking;
+		this.streamingExtractor = new StreamingTextExtractor(windowChars);
+		this.pagedPdfExtractor = pagedPdfExtractor;
+		this.chunker = SentenceChunker.builder()
+			.chunkSize(chunkSize)
+			.overlapTokens(overlapTokens)
+			.build();
+		this.extractExecutor = newStageExecutor("ingest-extract-", extractThreads, queueCapacity,
+			new ThreadPoolExecutor.AbortPolicy());
+		this.largeExtractExecutor = newStageExecutor("ingest-extract-large-", largeExtractThreads, queueCapacity,
+			new ThreadPoolExecutor.AbortPolicy());
+		this.splitExecutor = newStageExecutor("ingest-split-", splitThreads, queueCapacity, BLOCK_WHEN_FULL);
+		this.embedExecutor = newStageExecutor("ingest-embed-", embedThreads, queueCapacity, BLOCK_WHEN_FULL);
+	}
+
+	/**
+	 * Queues a spooled upload, or a new revision of an existing document, for processing.
+	 *
+	 * @throws RejectedExecutionException if the extraction lane for the file's size class is full
+	 */
+	public void submit(DocumentIngestionJob job) {
+		ThreadPoolExecutor lane = job.fileSize() >= largeFileThreshold ? largeExtractExecutor : extractExecutor;
+		lane.execute(() -> extract(job));
+		log.info("Queued document {} for ingestion ({} bytes, {} lane)", job.documentId(), job.fileSize(),
+			lane == largeExtractExecutor ? "large" : "standard");
+	}
+
+	/**
+	 * Queues a job that reuses the vectors of an already ingested, byte-identical document
+	 * instead of extracting and embedding the upload again.
+	 *
+	 * @throws RejectedExecutionException if the standard extraction lane is full
+	 */
+	public void submitCopy(String sourceDocumentId, DocumentIngestionJob job) {
+		extractExecutor.execute(() -> copy(sourceDocumentId, job));
+		log.info("Queued document {} as a copy of {}", job.documentId(), sourceDocumentId);
+	}
+
+	private void copy(String sourceDocumentId, DocumentIngestionJob job) {
+		try {
+			if (!updateStatus(job, DocumentStatus.EMBEDDING, null, null)) {
+				return;
+			}
+			int copied = qdrantPointService.copyDocumentPoints(sourceDocumentId, job.documentId(), job.username(),
+				job.originalFilename());
+			lexicalChunkStore.copyDocument(sourceDocumentId, job.documentId(), job.username(), job.originalFilename());
+			updateStatus(job, DocumentStatus.ACTIVE, copied, null);
+		} catch (Exception e) {
+			markFailed(job, "copy", e);
+			// A copy always targets a new document, so nothing of it is worth keeping
+			vectorPurgeService.purgeDocument(job.documentId());
+		}
+	}
+
+	private void extract(DocumentIngestionJob job) {
+		IngestionProgress progress = new IngestionProgress(job);
+		try {
+			if (!updateStatus(job, DocumentStatus.EXTRACTING, null, null)) {
+				progress.trace.report("abandoned");
+				return;
+			}
+			if (job.replacement()) {
+				progress.existingChunkIds = qdrantPointService.findDocumentPointIds(job.documentId());
+			}
+
+			long start = System.nanoTime();
+			int pageCount = parallelPageCount(job);
+			if (pageCount > 0) {
+				pagedPdfExtractor.extract(job.spooledFile(), pageCount, baseMetadata(job),
+					pages -> handOffWindow(progress, pages));
+			} else if (streamingEnabled) {
+				streamingExtractor.extract(job.spooledFile(),
+					segment -> handOffWindow(progress, List.of(new Document(segment, baseMetadata(job)))));
+			} else {
+				TikaDocumentReader tikaReader = new TikaDocumentReader(new FileSystemResource(job.spooledFile()));
+				List<Document> documents = tikaReader.get();
+
+				// Add metadata to each document chunk
+				documents.forEach(doc -> doc.getMetadata().putAll(baseMetadata(job)));
+				handOffWindow(progress, documents);
+			}
+			progress.trace.extracted(System.nanoTime() - start);
+
+			progress.extractionFinished();
+		} catch (Exception e) {
+			progress.fail("extraction", e);
+		} finally {
+			deleteSpooledFile(job);
+		}
+	}
+
+	/**
+	 * Returns the page count of PDFs large enough for page-parallel extraction, 0 otherwise.
+	 * PDFs that PDFBox cannot open on its own fall back to the Tika path.
+	 */
+	private int parallelPageCount(DocumentIngestionJob job) {
+		if (!pagedPdfExtractor.supports(job.contentType(), job.originalFilename())) {
+			return 0;
+		}
+		try {
+			return pagedPdfExtractor.parallelPageCount(job.spooledFile());
+		} catch (IOException e) {
+			log.warn("Could not open document {} for page-parallel extraction, using Tika: {}",
+				job.documentId(), e.getMessage());
+			return 0;
+		}
+	}
+
+	/**
+	 * Blocks the extractor while the job already has the maximum number of windows in
+	 * flight, then queues the window for splitting.
+	 */
+	private void handOffWindow(IngestionProgress progress, List<Document> window) {
+		if (progress.isStopped()) {
+			throw new IllegalStateException("Ingestion of " + progress.job.documentId() + " was stopped");
+		}
+		progress.windowStarted();
+		progress.trace.window(window);
+		try {
+			splitExecutor.execute(() -> split(progress, window));
+		} catch (RejectedExecutionException e) {
+			progress.windowFinished();
+			throw e;
+		}
+	}
+
+	private void split(IngestionProgress progress, List<Document> window) {
+		try {
+			if (progress.isStopped()) {
+				progress.windowFinished();
+				return;
+			}
+
+			long start = System.nanoTime();
+			long[] tokens = {0};
+			List<Document> chunks = progress.claimChunks(chunker.split(window, chunkTokens -> tokens[0] += chunkTokens));
+			List<Document> splitDocuments = progress.identify(chunks);
+			progress.trace.split(chunks, tokens[0], System.nanoTime() - start);
+
+			embedExecutor.execute(() -> embed(progress, splitDocuments));
+		} catch (Exception e) {
+			progress.fail("splitting", e);
+			progress.windowFinished();
+		}
+	}
+
+	private void embed(IngestionProgress progress, List<Document> chunks) {
+		try {
+			if (!progress.isStopped() && !chunks.isEmpty()) {
+				long start = System.nanoTime();
+				// Embed and store in vector database, batch by batch
+				embeddingWriter.write(progress.job.username(), chunks);
+				lexicalChunkStore.saveAll(chunks);
+				progress.trace.embedded(chunks.size(), System.nanoTime() - start);
+			}
+			progress.windowFinished();
+		} catch (Exception e) {
+			progress.fail("embedding", e);
+			progress.windowFinished();
+		}
+	}
+
+	private Map<String, Object> baseMetadata(DocumentIngestionJob job) {
+		Map<String, Object> metadata = new HashMap<>();
+		metadata.put("username", job.username());
+		metadata.put("documentId", job.documentId());
+		metadata.put("originalFilename", job.originalFilename());
+		metadata.put("uploadDate", LocalDateTime.now().toString());
+		metadata.put("contentType", job.contentType());
+		return metadata;
+	}
+
+	private void markFailed(DocumentIngestionJob job, String stage, Exception e) {
+		log.error("Ingestion of document {} for user {} failed during {}", job.documentId(), job.username(), stage, e);
+		String message = "Failed during " + stage + ": " + e.getMessage();
+		if (message.length() > MAX_STATUS_MESSAGE_LENGTH) {
+			message = message.substring(0, MAX_STATUS_MESSAGE_LENGTH);
+		}
+		try {
+			updateStatus(job, DocumentStatus.FAILED, null, message);
+		} catch (Exception statusError) {
+			log.error("Could not record failure for document {}", job.documentId(), statusError);
+		}
+	}
+
+	/**
+	 * Persists a status transition. Returns false when the document row no longer exists,
+	 * i.e. it was deleted while the job was in flight and processing should stop; any
+	 * vectors the job already wrote are purged again in that case.
+	 */
+	private boolean updateStatus(DocumentIngestionJob job, DocumentStatus status, Integer chunkCount, String message) {
+		Optional<UserDocument> current = userDocumentRepository.findByDocumentId(job.documentId())
+			.stream()
+			.findFirst();
+		if (current.isEmpty()) {
+			log.info("Document {} was deleted before reaching {}, abandoning ingestion", job.documentId(), status);
+			vectorPurgeService.purgeDocument(job.documentId());
+			return false;
+		}
+
+		UserDocument document = current.get();
+		document.setStatus(status);
+		document.setStatusMessage(message);
+		if (chunkCount != null) {
+			document.setChunkCount(chunkCount);
+		}
+		document.setUpdatedAt(LocalDateTime.now());
+		userDocumentRepository.save(document);
+		if (status.isTerminal()) {
+			eventPublisher.publishEvent(new UserDocumentsChangedEvent(job.username(), job.documentId()));
+		}
+		return true;
+	}
+
+	private void deleteSpooledFile(DocumentIngestionJob job) {
+		if (job.spooledFile() == null) {
+			return;
+		}
+		try {
+			Files.deleteIfExists(job.spooledFile());
+		} catch (IOException e) {
+			log.warn("Could not delete spooled upload {}: {}", job.spooledFile(), e.getMessage());
+		}
+	}
+
+	private static ThreadPoolExecutor newStageExecutor(String threadPrefix, int threads, int queueCapacity,
+	                                                   RejectedExecutionHandler rejectionHandler) {
+		return new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+			new ArrayBlockingQueue<>(queueCapacity), new CustomizableThreadFactory(threadPrefix), rejectionHandler);
+	}
+
+	@PreDestroy
+	public void shutdown() {
+		extractExecutor.shutdownNow();
+		largeExtractExecutor.shutdownNow();
+		splitExecutor.shutdownNow();
+		embedExecutor.shutdownNow();
+	}
+
+	/**
+	 * Tracks the windows of one job across stages and performs the final status transition
+	 * once extraction has finished and every window has been stored.
+	 */
+	private final class IngestionProgress {
+
+		private final DocumentIngestionJob job;
+		private final IngestionTrace trace;
+		private final Semaphore windowPermits = new Semaphore(maxInFlightWindows);
+		private final Set<String> chunkIds = ConcurrentHashMap.newKeySet();
+		private volatile Set<String> existingChunkIds = Set.of();
+		private int inFlightWindows;
+		private int claimedChunks;
+		private boolean extractionFinished;
+		private boolean failed;
+		private boolean purgeScheduled;
+		private volatile boolean stopped;
+
+		private IngestionProgress(DocumentIngestionJob job) {
+			this.job = job;
+			this.trace = new IngestionTrace(job, ThreadLocalRandom.current().nextDouble() < previewSampleRate,
+				previewChars);
+		}
+
+		boolean isStopped() {
+			return stopped;
+		}
+
+		void windowStarted() {
+			try {
+				windowPermits.acquire();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new IllegalStateException("Interrupted while waiting for an ingestion window", e);
+			}
+			synchronized (this) {
+				inFlightWindows++;
+			}
+		}
+
+		/**
+		 * Enforces the per-document chunk limit across all windows of the job.
+		 */
+		synchronized List<Document> claimChunks(List<Document> chunks) {
+			int allowed = Math.max(0, Math.min(chunks.size(), maxChunks - claimedChunks));
+			claimedChunks += allowed;
+			if (allowed < chunks.size()) {
+				log.warn("Document {} exceeds {} chunks, dropping the remainder", job.documentId(), maxChunks);
+			}
+			return allowed == chunks.size() ? chunks : chunks.subList(0, allowed);
+		}
+
+		/**
+		 * Assigns every chunk its deterministic id and returns only the chunks that still
+		 * have to be embedded: duplicates within the document and, for replacements,
+		 * chunks already stored for the previous revision are dropped. The text of the
+		 * returned chunks is PII-masked when masking is enabled.
+		 */
+		List<Document> identify(List<Document> chunks) {
+			List<Document> pending = new ArrayList<>(chunks.size());
+			for (Document chunk : chunks) {
+				String chunkHash = ChunkIdentity.chunkHash(chunk.getText());
+				String chunkId = ChunkIdentity.chunkId(job.documentId(), chunkHash,
+					ChunkIdentity.pageNumber(chunk.getMetadata().get(PagedPdfExtractor.PAGE_NUMBER)));
+				if (!chunkIds.add(chunkId) || existingChunkIds.contains(chunkId)) {
+					continue;
+				}
+				Map<String, Object> metadata = new HashMap<>(chunk.getMetadata());
+				metadata.put(ChunkIdentity.CHUNK_HASH, chunkHash);
+				String text = chunk.getText();
+				if (piiMasking) {
+					text = PIIMasker.mask(text);
+					metadata.put(PIIMasker.PII_MASKED, true);
+				}
+				pending.add(Document.builder().id(chunkId).text(text).metadata(metadata).build());
+			}
+			return pending;
+		}
+
+		void windowFinished() {
+			windowPermits.release();
+			synchronized (this) {
+				inFlightWindows--;
+				completeIfDone();
+				purgeIfFailed();
+			}
+		}
+
+		synchronized void extractionFinished() {
+			extractionFinished = true;
+			if (inFlightWindows > 0 && !stopped) {
+				if (!updateStatus(job, DocumentStatus.EMBEDDING, null, null)) {
+					stopped = true;
+					trace.report("abandoned");
+				}
+			}
+			completeIfDone();
+		}
+
+		synchronized void fail(String stage, Exception e) {
+			if (stopped) {
+				trace.report("abandoned");
+				return;
+			}
+			stopped = true;
+			failed = true;
+			markFailed(job, stage, e);
+			trace.report("failed");
+			purgeIfFailed();
+		}
+
+		private void completeIfDone() {
+			if (!extractionFinished || inFlightWindows > 0 || stopped) {
+				return;
+			}
+			stopped = true;
+			try {
+				if (job.replacement()) {
+					applyRevision();
+				}
+				trace.report(updateStatus(job, DocumentStatus.ACTIVE, chunkIds.size(), null) ? "active" : "abandoned");
+			} catch (Exception e) {
+				failed = true;
+				markFailed(job, "completion", e);
+				trace.report("failed");
+				purgeIfFailed();
+			}
+		}
+
+		/**
+		 * Purges the chunks this job stored, once it has failed and no window can still be
+		 * writing. Chunks a replacement kept from the previous revision are left alone.
+		 */
+		private void purgeIfFailed() {
+			if (!failed || purgeScheduled || inFlightWindows > 0) {
+				return;
+			}
+			purgeScheduled = true;
+			Set<String> written = new HashSet<>(chunkIds);
+			written.removeAll(existingChunkIds);
+			if (!written.isEmpty()) {
+				log.info("Purging {} chunks written by the failed ingestion of document {}", written.size(),
+					job.documentId());
+				vectorPurgeService.purgeChunks(job.username(), job.documentId(), written);
+			}
+		}
+
+		/**
+		 * Deletes the chunks of the previous revision that the new revision no longer has and
+		 * moves the ones it kept to the new revision's file metadata.
+		 */
+		private void applyRevision() {
+			Set<String> vanished = new HashSet<>(existingChunkIds);
+			vanished.removeAll(chunkIds);
+			if (!vanished.isEmpty()) {
+				qdrantPointService.deletePoints(job.username(), vanished, deleteBatchSize);
+				lexicalChunkStore.deleteChunks(vanished);
+			}
+			int kept = existingChunkIds.size() - vanished.size();
+			if (kept > 0) {
+				Set<String> keptIds = new HashSet<>(existingChunkIds);
+				keptIds.retainAll(chunkIds);
+				Map<String, String> revision = new HashMap<>();
+				revision.put("originalFilename", job.originalFilename());
+				revision.put("contentType", job.contentType());
+				revision.put("uploadDate", LocalDateTime.now().toString());
+				qdrantPointService.setPayload(job.username(), keptIds, revision, deleteBatchSize);
+				lexicalChunkStore.updateFilename(job.documentId(), job.originalFilename());
+			}
+			log.info("Replaced document {}: {} chunks kept, {} added, {} removed", job.documentId(),
+				kept, chunkIds.size() - kept, vanished.size());
+		}
+	}
+}
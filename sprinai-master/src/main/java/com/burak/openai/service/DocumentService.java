@@ -1,116 +1,196 @@
 package com.burak.openai.service;
 
+import com.burak.openai.entity.DocumentStatus;
 import com.burak.openai.entity.UserDocument;
+import com.burak.openai.model.DocumentStatusResponse;
 import com.burak.openai.repository.UserDocumentRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.ai.document.Document;
-import org.springframework.ai.reader.tika.TikaDocumentReader;
-import org.springframework.ai.transformer.splitter.TextSplitter;
-import org.springframework.ai.transformer.splitter.TokenTextSplitter;
-import org.springframework.ai.vectorstore.VectorStore;
-import org.springframework.core.io.ByteArrayResource;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.server.ResponseStatusException;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.time.LocalDateTime;
+import java.util.HexFormat;
 import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.RejectedExecutionException;
 
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class DocumentService {
 	
-	private final VectorStore vectorStore;
 	private final UserDocumentRepository userDocumentRepository;
+	private final DocumentIngestionPipeline ingestionPipeline;
+	private final VectorPurgeService vectorPurgeService;
+	private final ApplicationEventPublisher eventPublisher;
 	
+	/**
+	 * Spools the upload to a temp file, records it as PENDING and hands it to the
+	 * ingestion pipeline. Returns the document id, which is also the job id clients
+	 * poll via {@link #getDocumentStatus(String, String)}.
+	 * <p>
+	 * Byte-identical re-uploads are deduplicated by content digest: the same user gets the
+	 * existing document id back, another user gets a new document whose vectors are copied
+	 * from the existing one instead of being extracted and embedded again.
+	 */
 	public String uploadDocument(String username, MultipartFile file) {
+		log.info("Uploading document for user: {}, filename: {}, size: {} bytes",
+			username, file.getOriginalFilename(), file.getSize());
+		
+		SpooledUpload upload;
 		try {
-			log.info("Uploading document for user: {}, filename: {}, size: {} bytes",
-				username, file.getOriginalFilename(), file.getSize());
-			
-			// Generate unique document ID
-			String documentId = UUID.randomUUID().toString();
-			
-			// Save document metadata to database
-			UserDocument userDocument = UserDocument.builder()
-				.documentId(documentId)
-				.username(username)
-				.originalFilename(file.getOriginalFilename())
-				.contentType(file.getContentType())
-				.fileSize(file.getSize())
-				.uploadDate(LocalDateTime.now())
-				.build();
-			
-			userDocumentRepository.save(userDocument);
-			
-			// Process document with Tika
-			ByteArrayResource resource = new ByteArrayResource(file.getBytes()) {
-				@Override
-				public String getFilename() {
-					return file.getOriginalFilename();
-				}
-			};
-			
-			TikaDocumentReader tikaReader = new TikaDocumentReader(resource);
-			List<Document> documents = tikaReader.get();
-			
-			log.info("Tika extracted {} documents from file", documents.size());
-			
-			// Log original content
-			for (int i = 0; i < documents.size(); i++) {
-				Document doc = documents.get(i);
-				log.info("Original document {}: length={}, preview={}",
-					i, doc.getText().length(),
-					doc.getText().substring(0, Math.min(200, doc.getText().length())));
-			}
-			
-			// Add metadata to each document chunk
-			documents.forEach(doc -> {
-				doc.getMetadata().put("username", username);
-				doc.getMetadata().put("documentId", documentId);
-				doc.getMetadata().put("originalFilename", file.getOriginalFilename());
-				doc.getMetadata().put("uploadDate", LocalDateTime.now().toString());
-				doc.getMetadata().put("contentType", file.getContentType());
-			});
-			
-			TextSplitter textSplitter = TokenTextSplitter.builder()
-				.withChunkSize(300)
-				// 1000'e)
-				     // Chunk'lar arası overlap ekle
-				.withMaxNumChunks(5000)
-				.withKeepSeparator(true)
-				.build();
-			
-			List<Document> splitDocuments = textSplitter.split(documents);
-			
-			log.info("Text splitting resulted in {} chunks", splitDocuments.size());
-			
-			// Her chunk'u logla (debug için)
-			for (int i = 0; i < Math.min(5, splitDocuments.size()); i++) {
-				Document chunk = splitDocuments.get(i);
-				log.info("Chunk {}: length={}, content={}",
-					i, chunk.getText().length(),
-					chunk.getText().substring(0, Math.min(150, chunk.getText().length())));
+			upload = spool(file);
+		} catch (IOException e) {
+			log.error("Error spooling document for user: {}", username, e);
+			throw new RuntimeException("Error processing document: " + e.getMessage());
+		}
+		
+		Optional<UserDocument> ownDuplicate = userDocumentRepository
+			.findFirstByUsernameAndContentHashAndStatusNot(username, upload.contentHash(), DocumentStatus.FAILED);
+		if (ownDuplicate.isPresent()) {
+			deleteQuietly(upload.file());
+			log.info("User {} already uploaded this content as document {}, skipping ingestion",
+				username, ownDuplicate.get().getDocumentId());
+			return ownDuplicate.get().getDocumentId();
+		}
+		
+		Optional<UserDocument> sharedSource = userDocumentRepository
+			.findFirstByContentHashAndStatus(upload.contentHash(), DocumentStatus.ACTIVE);
+		
+		// Generate unique document ID
+		String documentId = UUID.randomUUID().toString();
+		
+		// Save document metadata to database
+		UserDocument userDocument = UserDocument.builder()
+			.documentId(documentId)
+			.username(username)
+			.originalFilename(file.getOriginalFilename())
+			.contentType(file.getContentType())
+			.fileSize(file.getSize())
+			.contentHash(upload.contentHash())
+			.uploadDate(LocalDateTime.now())
+			.status(DocumentStatus.PENDING)
+			.updatedAt(LocalDateTime.now())
+			.build();
+		
+		userDocumentRepository.save(userDocument);
+		
+		try {
+			if (sharedSource.isPresent()) {
+				deleteQuietly(upload.file());
+				ingestionPipeline.submitCopy(sharedSource.get().getDocumentId(), new DocumentIngestionJob(documentId,
+					username, file.getOriginalFilename(), file.getContentType(), file.getSize(), null, false));
+			} else {
+				ingestionPipeline.submit(new DocumentIngestionJob(documentId, username, file.getOriginalFilename(),
+					file.getContentType(), file.getSize(), upload.file(), false));
 			}
-			
-			// Store in vector database
-			vectorStore.add(splitDocuments);
-			
-			log.info("Document processing completed successfully. DocumentId: {}, Original docs: {}, Final chunks: {}",
-				documentId, documents.size(), splitDocuments.size());
-			
-			return documentId;
-			
+		} catch (RejectedExecutionException e) {
+			log.warn("Ingestion pipeline is full, rejecting upload {} for user: {}", documentId, username);
+			userDocumentRepository.delete(userDocument);
+			deleteQuietly(upload.file());
+			throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE,
+				"Too many documents are being processed right now. Please try again shortly.");
+		}
+		
+		return documentId;
+	}
+	
+	/**
+	 * Ingests a new revision of an existing document under the same document id. Only
+	 * chunks whose text changed are embedded; chunks that no longer occur are deleted once
+	 * the new revision is stored. Uploading the current revision again is a no-op.
+	 */
+	public String replaceDocument(String username, String documentId, MultipartFile file) {
+		log.info("Replacing document: {} for user: {}, filename: {}, size: {} bytes",
+			documentId, username, file.getOriginalFilename(), file.getSize());
+		
+		UserDocument document = userDocumentRepository.findByUsernameAndDocumentId(username, documentId)
+			.orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Document not found or access denied"));
+		if (!document.getStatus().isTerminal()) {
+			throw new ResponseStatusException(HttpStatus.CONFLICT,
+				"Document is still being processed. Please try again once it has finished.");
+		}
+		
+		SpooledUpload upload;
+		try {
+			upload = spool(file);
 		} catch (IOException e) {
-			log.error("Error processing document for user: {}", username, e);
+			log.error("Error spooling document for user: {}", username, e);
 			throw new RuntimeException("Error processing document: " + e.getMessage());
-		} catch (Exception e) {
-			log.error("Unexpected error processing document for user: {}", username, e);
-			throw new RuntimeException("Unexpected error: " + e.getMessage());
 		}
+		
+		if (document.getStatus() == DocumentStatus.ACTIVE && upload.contentHash().equals(document.getContentHash())) {
+			deleteQuietly(upload.file());
+			log.info("Document {} is unchanged, skipping re-ingestion", documentId);
+			return documentId;
+		}
+		
+		UserDocument previous = UserDocument.builder()
+			.originalFilename(document.getOriginalFilename())
+			.contentType(document.getContentType())
+			.fileSize(document.getFileSize())
+			.contentHash(document.getContentHash())
+			.status(document.getStatus())
+			.statusMessage(document.getStatusMessage())
+			.updatedAt(document.getUpdatedAt())
+			.build();
+		
+		document.setOriginalFilename(file.getOriginalFilename());
+		document.setContentType(file.getContentType());
+		document.setFileSize(file.getSize());
+		document.setContentHash(upload.contentHash());
+		document.setStatus(DocumentStatus.PENDING);
+		document.setStatusMessage(null);
+		document.setUpdatedAt(LocalDateTime.now());
+		userDocumentRepository.save(document);
+		
+		try {
+			ingestionPipeline.submit(new DocumentIngestionJob(documentId, username, file.getOriginalFilename(),
+				file.getContentType(), file.getSize(), upload.file(), true));
+		} catch (RejectedExecutionException e) {
+			log.warn("Ingestion pipeline is full, rejecting replacement of {} for user: {}", documentId, username);
+			document.setOriginalFilename(previous.getOriginalFilename());
+			document.setContentType(previous.getContentType());
+			document.setFileSize(previous.getFileSize());
+			document.setContentHash(previous.getContentHash());
+			document.setStatus(previous.getStatus());
+			document.setStatusMessage(previous.getStatusMessage());
+			document.setUpdatedAt(previous.getUpdatedAt());
+			userDocumentRepository.save(document);
+			deleteQuietly(upload.file());
+			throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE,
+				"Too many documents are being processed right now. Please try again shortly.");
+		}
+		
+		return documentId;
+	}
+	
+	public DocumentStatusResponse getDocumentStatus(String username, String documentId) {
+		UserDocument document = userDocumentRepository.findByUsernameAndDocumentId(username, documentId)
+			.orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Document not found or access denied"));
+		
+		return new DocumentStatusResponse(
+			document.getDocumentId(),
+			document.getOriginalFilename(),
+			document.getStatus(),
+			document.getChunkCount(),
+			document.getStatusMessage(),
+			document.getUploadDate(),
+			document.getUpdatedAt()
+		);
 	}
 	
 	public List<UserDocument> getUserDocuments(String username) {
@@ -125,8 +205,46 @@ public class DocumentService {
 			.orElseThrow(() -> new RuntimeException("Document not found or access denied"));
 		
 		userDocumentRepository.delete(document);
+		eventPublisher.publishEvent(new UserDocumentsChangedEvent(username, documentId));
 		
+		// Vectors are removed in the background; the row is already gone, so the document
+		// disappears from listings immediately and any running ingestion job stops
+		vectorPurgeService.purgeDocument(documentId);
 		
 		log.info("Document deleted successfully: {}", documentId);
 	}
-}
\ No newline at end of file
+	
+	/**
+	 * Copies the multipart content to a temp file so the pipeline can read it after the
+	 * request has completed and the container has discarded the part. The SHA-256 digest
+	 * is computed on the same pass.
+	 */
+	private SpooledUpload spool(MultipartFile file) throws IOException {
+		MessageDigest digest;
+		try {
+			digest = MessageDigest.getInstance("SHA-256");
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException("SHA-256 is not available", e);
+		}
+		
+		Path spooledFile = Files.createTempFile("upload-", ".tmp");
+		try (InputStream in = new DigestInputStream(file.getInputStream(), digest)) {
+			Files.copy(in, spooledFile, StandardCopyOption.REPLACE_EXISTING);
+		} catch (IOException e) {
+			deleteQuietly(spooledFile);
+			throw e;
+		}
+		return new SpooledUpload(spooledFile, HexFormat.of().formatHex(digest.digest()));
+	}
+	
+	private void deleteQuietly(Path path) {
+		try {
+			Files.deleteIfExists(path);
+		} catch (IOException e) {
+			log.warn("Could not delete spooled upload {}: {}", path, e.getMessage());
+		}
+	}
+	
+	private record SpooledUpload(Path file, String contentHash) {
+	}
+}
@@ -8,12 +8,16 @@ import org.springframework.stereotype.Service;
 
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
 
 @Service
 @RequiredArgsConstructor
 public class HelpDeskTicketService {
 	
 	private final HelpDeskTicketRepository helpDeskTicketRepository;
+	private final ConcurrentMap<String, AtomicLong> generations = new ConcurrentHashMap<>();
 	
 	public HelpDeskTicket createTicket(TicketRequest ticketInput, String username) {
 		HelpDeskTicket ticket = HelpDeskTicket.builder()
@@ -23,11 +27,22 @@ public class HelpDeskTicketService {
 			.createdAt(LocalDateTime.now())
 			.eta(LocalDateTime.now().plusDays(7))
 			.build();
-		return helpDeskTicketRepository.save(ticket);
+		HelpDeskTicket saved = helpDeskTicketRepository.save(ticket);
+		generations.computeIfAbsent(username, key -> new AtomicLong()).incrementAndGet();
+		return saved;
 	}
 	
 	public List<HelpDeskTicket> getTicketsByUsername(String username) {
 		return helpDeskTicketRepository.findByUsername(username);
 	}
 	
+	/**
+	 * Per-user ticket generation, incremented whenever a ticket of the user is created, so
+	 * that cached help-desk answers can be keyed on the ticket state they saw.
+	 */
+	public long generation(String username) {
+		AtomicLong generation = generations.get(username);
+		return generation != null ? generation.get() : 0;
+	}
+	
 }
\ No newline at end of file
@@ -0,0 +1,100 @@
+package com.burak.openai.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.ai.document.Document;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Per-job ingestion counters and stage timings, reported in a single log line when the
+ * job ends, so that logging cost does not grow with the size of the document.
+ * <p>
+ * Content previews are only logged for jobs picked by the preview sample rate, and only
+ * at DEBUG.
+ */
+@Slf4j
+final class IngestionTrace {
+
+	private static final int PREVIEW_DOCUMENTS = 3;
+
+	private final DocumentIngestionJob job;
+	private final boolean sampled;
+	private final int previewChars;
+	private final long startNanos = System.nanoTime();
+	private final AtomicBoolean reported = new AtomicBoolean();
+
+	private final LongAdder windows = new LongAdder();
+	private final LongAdder pages = new LongAdder();
+	private final LongAdder characters = new LongAdder();
+	private final LongAdder chunks = new LongAdder();
+	private final LongAdder tokens = new LongAdder();
+	private final LongAdder embeddedChunks = new LongAdder();
+	private final LongAdder splitNanos = new LongAdder();
+	private final LongAdder embedNanos = new LongAdder();
+	private volatile long extractNanos;
+
+	IngestionTrace(DocumentIngestionJob job, boolean sampled, int previewChars) {
+		this.job = job;
+		this.sampled = sampled;
+		this.previewChars = previewChars;
+	}
+
+	void window(List<Document> documents) {
+		windows.increment();
+		for (Document document : documents) {
+			characters.add(document.getText().length());
+			if (document.getMetadata().containsKey(PagedPdfExtractor.PAGE_NUMBER)) {
+				pages.increment();
+			}
+		}
+		preview("extracted", documents);
+	}
+
+	void extracted(long nanos) {
+		extractNanos = nanos;
+	}
+
+	void split(List<Document> windowChunks, long windowTokens, long nanos) {
+		chunks.add(windowChunks.size());
+		tokens.add(windowTokens);
+		splitNanos.add(nanos);
+		preview("chunk", windowChunks);
+	}
+
+	void embedded(int count, long nanos) {
+		embeddedChunks.add(count);
+		embedNanos.add(nanos);
+	}
+
+	/**
+	 * Logs the trace; only the first call per job has an effect.
+	 */
+	void report(String outcome) {
+		if (!reported.compareAndSet(false, true)) {
+			return;
+		}
+		log.info("Ingestion trace document={} user={} outcome={} bytes={} pages={} windows={} characters={} "
+				+ "chunks={} embedded={} tokens={} extractMs={} splitMs={} embedMs={} totalMs={}",
+			job.documentId(), job.username(), outcome, job.fileSize(), pages.sum(), windows.sum(), characters.sum(),
+			chunks.sum(), embeddedChunks.sum(), tokens.sum(), millis(extractNanos), millis(splitNanos.sum()),
+			millis(embedNanos.sum()), millis(System.nanoTime() - startNanos));
+	}
+
+	private void preview(String stage, List<Document> documents) {
+		if (!sampled || !log.isDebugEnabled()) {
+			return;
+		}
+		for (int i = 0; i < Math.min(PREVIEW_DOCUMENTS, documents.size()); i++) {
+			String text = documents.get(i).getText();
+			log.debug("Document {} {} {}: length={}, preview={}", job.documentId(), stage, i, text.length(),
+				text.substring(0, Math.min(previewChars, text.length())));
+		}
+	}
+
+	private static long millis(long nanos) {
+		return TimeUnit.NANOSECONDS.toMillis(nanos);
+	}
+}
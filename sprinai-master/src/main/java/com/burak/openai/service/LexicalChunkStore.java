@@ -0,0 +1,168 @@
+package com.burak.openai.service;
+
+import com.burak.openai.chunking.LexicalAnalyzer;
+import com.burak.openai.rag.PIIMasker;
+import jakarta.annotation.PostConstruct;
+import org.springframework.ai.document.Document;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+/**
+ * Keeps the text and analysed terms of every stored chunk in the application's H2
+ * database, as the durable side of the per-user lexical index. Rows share the chunk ids
+ * of the Qdrant points and are written, copied and deleted alongside them, so lexical and
+ * vector results of the same chunk can be fused by id.
+ */
+@Component
+public class LexicalChunkStore {
+
+	private static final String UPSERT = """
+		MERGE INTO LEXICAL_CHUNKS (id, document_id, username, original_filename, page_number, chunk_hash, content, terms,
+		                           pii_masked)
+		KEY (id) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)
+		""";
+
+	private final JdbcTemplate jdbcTemplate;
+
+	public LexicalChunkStore(JdbcTemplate jdbcTemplate) {
+		this.jdbcTemplate = jdbcTemplate;
+	}
+
+	@PostConstruct
+	public void createTable() {
+		jdbcTemplate.execute("""
+			CREATE TABLE IF NOT EXISTS LEXICAL_CHUNKS (
+			    id VARCHAR(36) PRIMARY KEY,
+			    document_id VARCHAR(255) NOT NULL,
+			    username VARCHAR(255) NOT NULL,
+			    original_filename VARCHAR(1000),
+			    page_number INT,
+			    chunk_hash CHAR(64),
+			    content CHARACTER LARGE OBJECT NOT NULL,
+			    terms CHARACTER LARGE OBJECT NOT NULL,
+			    pii_masked BOOLEAN DEFAULT FALSE NOT NULL
+			)
+			""");
+		// Tables created before ingest-time PII masking lack the flag
+		jdbcTemplate.execute("ALTER TABLE LEXICAL_CHUNKS ADD COLUMN IF NOT EXISTS pii_masked BOOLEAN DEFAULT FALSE NOT NULL");
+		jdbcTemplate.execute("CREATE INDEX IF NOT EXISTS LEXICAL_CHUNKS_USERNAME ON LEXICAL_CHUNKS (username)");
+		jdbcTemplate.execute("CREATE INDEX IF NOT EXISTS LEXICAL_CHUNKS_DOCUMENT ON LEXICAL_CHUNKS (document_id)");
+	}
+
+	/**
+	 * Stores the chunks, which must carry the ids and metadata written to the vector store.
+	 */
+	public void saveAll(List<Document> chunks) {
+		if (chunks.isEmpty()) {
+			return;
+		}
+		List<Object[]> rows = new ArrayList<>(chunks.size());
+		for (Document chunk : chunks) {
+			Map<String, Object> metadata = chunk.getMetadata();
+			rows.add(new Object[] {chunk.getId(), metadata.get("documentId"), metadata.get("username"),
+				metadata.get("originalFilename"), metadata.get(PagedPdfExtractor.PAGE_NUMBER),
+				metadata.get(ChunkIdentity.CHUNK_HASH), chunk.getText(),
+				String.join(" ", LexicalAnalyzer.terms(chunk.getText())), PIIMasker.isMasked(chunk)});
+		}
+		jdbcTemplate.batchUpdate(UPSERT, rows);
+	}
+
+	/**
+	 * Copies the chunks of a document to another document, deriving the new ids the same
+	 * way {@link QdrantPointService#copyDocumentPoints} does.
+	 *
+	 * @return the number of chunks copied
+	 */
+	public int copyDocument(String sourceDocumentId, String targetDocumentId, String targetUsername,
+	                        String targetFilename) {
+		List<Object[]> rows = jdbcTemplate.query(
+			"SELECT page_number, chunk_hash, content, terms, pii_masked FROM LEXICAL_CHUNKS WHERE document_id = ?",
+			(rs, rowNum) -> {
+				String chunkHash = rs.getString("chunk_hash");
+				String id = chunkHash != null
+					? ChunkIdentity.chunkId(targetDocumentId, chunkHash, ChunkIdentity.pageNumber(rs.getObject("page_number")))
+					: UUID.randomUUID().toString();
+				return new Object[] {id, targetDocumentId, targetUsername, targetFilename,
+					rs.getObject("page_number"), chunkHash, rs.getString("content"), rs.getString("terms"),
+					rs.getBoolean("pii_masked")};
+			},
+			sourceDocumentId);
+		if (!rows.isEmpty()) {
+			jdbcTemplate.batchUpdate(UPSERT, rows);
+		}
+		return rows.size();
+	}
+
+	/**
+	 * Sets the file name of every chunk of a document, e.g. after a replacement kept some
+	 * chunks of the previous revision.
+	 */
+	public int updateFilename(String documentId, String originalFilename) {
+		return jdbcTemplate.update("UPDATE LEXICAL_CHUNKS SET original_filename = ? WHERE document_id = ?",
+			originalFilename, documentId);
+	}
+
+	public void deleteChunks(Collection<String> chunkIds) {
+		if (chunkIds.isEmpty()) {
+			return;
+		}
+		jdbcTemplate.batchUpdate("DELETE FROM LEXICAL_CHUNKS WHERE id = ?",
+			chunkIds.stream().map(id -> new Object[] {id}).toList());
+	}
+
+	public int deleteDocument(String documentId) {
+		return jdbcTemplate.update("DELETE FROM LEXICAL_CHUNKS WHERE document_id = ?", documentId);
+	}
+
+	/**
+	 * Removes the chunks of documents that no longer have a row in {@code user_documents}.
+	 */
+	public int deleteOrphans() {
+		return jdbcTemplate.update("""
+			DELETE FROM LEXICAL_CHUNKS c
+			WHERE NOT EXISTS (SELECT 1 FROM user_documents d WHERE d.document_id = c.document_id)
+			""");
+	}
+
+	/**
+	 * Returns the chunk texts of a document by page and insertion order, which is document
+	 * order except for chunks a replacement kept from the previous revision.
+	 */
+	public List<String> documentChunks(String documentId) {
+		return jdbcTemplate.queryForList(
+			"SELECT content FROM LEXICAL_CHUNKS WHERE document_id = ? ORDER BY page_number, _ROWID_",
+			String.class, documentId);
+	}
+
+	/**
+	 * Streams the chunks of the user's existing documents to the consumer.
+	 */
+	public void forEachUserChunk(String username, Consumer<LexicalChunk> consumer) {
+		jdbcTemplate.query("""
+				SELECT c.id, c.document_id, c.original_filename, c.page_number, c.content, c.terms, c.pii_masked
+				FROM LEXICAL_CHUNKS c JOIN user_documents d ON d.document_id = c.document_id
+				WHERE c.username = ?
+				""",
+			rs -> {
+				consumer.accept(new LexicalChunk(rs.getString("id"), rs.getString("document_id"),
+					rs.getString("original_filename"), (Integer) rs.getObject("page_number"),
+					rs.getString("content"), rs.getString("terms"), rs.getBoolean("pii_masked")));
+			},
+			username);
+	}
+
+	/**
+	 * A stored chunk; {@code terms} are the analysed terms separated by single spaces and
+	 * {@code piiMasked} tells whether {@code content} was masked at ingestion.
+	 */
+	public record LexicalChunk(String id, String documentId, String originalFilename, Integer pageNumber,
+	                           String content, String terms, boolean piiMasked) {
+	}
+}
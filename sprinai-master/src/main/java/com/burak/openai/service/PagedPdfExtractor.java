@@ -0,0 +1,214 @@
+package com.burak.openai.service;
+
+import jakarta.annotation.PreDestroy;
+import org.apache.pdfbox.Loader;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.text.PDFTextStripper;
+import org.springframework.ai.document.Document;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+
+/**
+ * Extracts large PDFs page range by page range on a bounded pool shared by all uploads.
+ * <p>
+ * PDFBox documents are not thread safe, so every pool thread working on an upload opens
+ * the PDF once and reuses that {@link PDDocument} for all the ranges it extracts. Each
+ * range produces one {@link Document} per page carrying a {@code page_number} metadata
+ * entry. Ranges are handed to the consumer strictly in page order, and only a
+ * limited number of ranges are extracted ahead of the consumer, so memory stays bounded
+ * even for very long documents.
+ */
+@Component
+public class PagedPdfExtractor {
+
+	public static final String PAGE_NUMBER = "page_number";
+
+	private final boolean enabled;
+	private final int minPages;
+	private final int pagesPerRange;
+	private final int rangesAhead;
+	private final ExecutorService executor;
+
+	public PagedPdfExtractor(@Value("${document.ingestion.pdf.parallel.enabled:true}") boolean enabled,
+	                         @Value("${document.ingestion.pdf.parallel.min-pages:32}") int minPages,
+	                         @Value("${document.ingestion.pdf.parallel.pages-per-range:16}") int pagesPerRange,
+	                         @Value("${document.ingestion.pdf.parallel.threads:0}") int threads) {
+		int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+		this.enabled = enabled;
+		this.minPages = minPages;
+		this.pagesPerRange = pagesPerRange;
+		this.rangesAhead = poolSize * 2;
+		this.executor = Executors.newFixedThreadPool(poolSize, new CustomizableThreadFactory("ingest-pdf-"));
+	}
+
+	public boolean supports(String contentType, String filename) {
+		if (!enabled) {
+			return false;
+		}
+		return "application/pdf".equalsIgnoreCase(contentType)
+			|| (filename != null && filename.toLowerCase().endsWith(".pdf"));
+	}
+
+	/**
+	 * Returns the page count when the PDF is long enough to be worth parallel extraction,
+	 * or 0 when it should go through the regular extractor.
+	 */
+	public int parallelPageCount(Path file) throws IOException {
+		try (PDDocument document = Loader.loadPDF(file.toFile())) {
+			int pages = document.getNumberOfPages();
+			return pages >= minPages ? pages : 0;
+		}
+	}
+
+	/**
+	 * Extracts all pages, handing each range's pages to the consumer in page order.
+	 *
+	 * @param baseMetadata metadata copied onto every page document
+	 */
+	public void extract(Path file, int pageCount, Map<String, Object> baseMetadata,
+	                    Consumer<List<Document>> rangeConsumer) throws IOException {
+		Deque<Future<List<Document>>> pending = new ArrayDeque<>();
+		WorkerDocuments documents = new WorkerDocuments(file);
+		int nextStartPage = 1;
+		try {
+			while (nextStartPage <= pageCount || !pending.isEmpty()) {
+				while (nextStartPage <= pageCount && pending.size() < rangesAhead) {
+					int startPage = nextStartPage;
+					int endPage = Math.min(pageCount, startPage + pagesPerRange - 1);
+					pending.addLast(executor.submit(() -> extractRange(documents, startPage, endPage, baseMetadata)));
+					nextStartPage = endPage + 1;
+				}
+				List<Document> pages = pending.removeFirst().get();
+				if (!pages.isEmpty()) {
+					rangeConsumer.accept(pages);
+				}
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IOException("Interrupted while extracting PDF pages", e);
+		} catch (ExecutionException e) {
+			throw new IOException("PDF page extraction failed: " + e.getCause().getMessage(), e.getCause());
+		} finally {
+			pending.forEach(future -> future.cancel(true));
+			documents.close();
+		}
+	}
+
+	private List<Document> extractRange(WorkerDocuments documents, int startPage, int endPage,
+	                                    Map<String, Object> baseMetadata) throws IOException {
+		List<Document> pages = new ArrayList<>(endPage - startPage + 1);
+		PDDocument document = documents.acquire();
+		try {
+			PDFTextStripper stripper = new PDFTextStripper();
+			for (int page = startPage; page <= endPage; page++) {
+				stripper.setStartPage(page);
+				stripper.setEndPage(page);
+				String text = stripper.getText(document);
+				if (text.isBlank()) {
+					continue;
+				}
+				Map<String, Object> metadata = new HashMap<>(baseMetadata);
+				metadata.put(PAGE_NUMBER, page);
+				pages.add(new Document(text, metadata));
+			}
+		} finally {
+			documents.release();
+		}
+		return pages;
+	}
+
+	@PreDestroy
+	public void shutdown() {
+		executor.shutdownNow();
+	}
+
+	/**
+	 * The documents opened by the pool threads for one extraction, one per thread. Closing
+	 * the set closes every document not in use; a document whose range is still running
+	 * (e.g. after a failure cancelled the extraction) is closed by its thread when the
+	 * range ends.
+	 */
+	private static final class WorkerDocuments {
+
+		private final Path file;
+		private final Map<Thread, PDDocument> documents = new HashMap<>();
+		private final Set<Thread> busy = new HashSet<>();
+		private boolean closed;
+
+		private WorkerDocuments(Path file) {
+			this.file = file;
+		}
+
+		PDDocument acquire() throws IOException {
+			Thread worker = Thread.currentThread();
+			synchronized (this) {
+				if (closed) {
+					throw new IOException("PDF extraction of " + file + " has ended");
+				}
+				PDDocument document = documents.get(worker);
+				if (document != null) {
+					busy.add(worker);
+					return document;
+				}
+			}
+			// Parse outside the lock so that the workers open their documents in parallel
+			PDDocument document = Loader.loadPDF(file.toFile());
+			synchronized (this) {
+				if (closed) {
+					document.close();
+					throw new IOException("PDF extraction of " + file + " has ended");
+				}
+				documents.put(worker, document);
+				busy.add(worker);
+				return document;
+			}
+		}
+
+		synchronized void release() {
+			Thread worker = Thread.currentThread();
+			busy.remove(worker);
+			if (closed) {
+				closeQuietly(documents.remove(worker));
+			}
+		}
+
+		synchronized void close() {
+			closed = true;
+			documents.entrySet().removeIf(entry -> {
+				if (busy.contains(entry.getKey())) {
+					return false;
+				}
+				closeQuietly(entry.getValue());
+				return true;
+			});
+		}
+
+		private static void closeQuietly(PDDocument document) {
+			if (document == null) {
+				return;
+			}
+			try {
+				document.close();
+			} catch (IOException ignored) {
+				// Read-only document; nothing to flush
+			}
+		}
+	}
+}
@@ -0,0 +1,151 @@
+package com.burak.openai.service;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.tokenizer.JTokkitTokenCountEstimator;
+import org.springframework.ai.tokenizer.TokenCountEstimator;
+import org.springframework.ai.vectorstore.VectorStore;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.HttpClientErrorException;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Embeds and upserts chunks in token-budgeted batches that run concurrently on virtual
+ * threads.
+ * <p>
+ * Each batch is a separate {@link VectorStore#add(List)} call, so it is embedded and
+ * upserted as soon as it is ready instead of waiting for the whole document. The number
+ * of batches in flight is shared across all uploads and adapts to the embedding backend:
+ * it grows while calls are fast, shrinks when they slow down and halves on HTTP 429.
+ */
+@Component
+@Slf4j
+public class ParallelEmbeddingWriter {
+
+	private final TenantVectorStoreRouter tenantRouter;
+	private final TokenCountEstimator tokenCountEstimator = new JTokkitTokenCountEstimator();
+	private final AdaptiveConcurrencyLimiter limiter;
+	private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+	private final int batchTokenBudget;
+	private final int maxBatchSize;
+	private final int maxAttempts;
+	private final Duration rateLimitBackoff;
+
+	public ParallelEmbeddingWriter(TenantVectorStoreRouter tenantRouter,
+	                               @Value("${document.ingestion.embedding.batch-token-budget:7000}") int batchTokenBudget,
+	                               @Value("${document.ingestion.embedding.max-batch-size:128}") int maxBatchSize,
+	                               @Value("${document.ingestion.embedding.min-concurrency:1}") int minConcurrency,
+	                               @Value("${document.ingestion.embedding.initial-concurrency:4}") int initialConcurrency,
+	                               @Value("${document.ingestion.embedding.max-concurrency:16}") int maxConcurrency,
+	                               @Value("${document.ingestion.embedding.target-latency:5s}") Duration targetLatency,
+	                               @Value("${document.ingestion.embedding.max-attempts:5}") int maxAttempts,
+	                               @Value("${document.ingestion.embedding.rate-limit-backoff:2s}") Duration rateLimitBackoff) {
+		this.tenantRouter = tenantRouter;
+		this.batchTokenBudget = batchTokenBudget;
+		this.maxBatchSize = maxBatchSize;
+		this.maxAttempts = maxAttempts;
+		this.rateLimitBackoff = rateLimitBackoff;
+		this.limiter = new AdaptiveConcurrencyLimiter(minConcurrency, initialConcurrency, maxConcurrency, targetLatency);
+	}
+
+	/**
+	 * Embeds and stores the chunks of one user, blocking until every batch has been written.
+	 *
+	 * @throws IllegalStateException if a batch still fails after retries
+	 */
+	public void write(String username, List<Document> chunks) {
+		VectorStore vectorStore = tenantRouter.vectorStoreFor(username);
+		List<List<Document>> batches = batch(chunks);
+		List<Future<?>> futures = new ArrayList<>(batches.size());
+		for (List<Document> batch : batches) {
+			futures.add(executor.submit(() -> writeBatch(vectorStore, batch)));
+		}
+
+		try {
+			for (Future<?> future : futures) {
+				future.get();
+			}
+		} catch (InterruptedException e) {
+			futures.forEach(future -> future.cancel(true));
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Interrupted while writing embeddings", e);
+		} catch (ExecutionException e) {
+			futures.forEach(future -> future.cancel(true));
+			throw new IllegalStateException("Embedding batch failed: " + e.getCause().getMessage(), e.getCause());
+		}
+
+		log.debug("Stored {} chunks in {} batches (embedding concurrency limit {})",
+			chunks.size(), batches.size(), limiter.currentLimit());
+	}
+
+	private List<List<Document>> batch(List<Document> chunks) {
+		List<List<Document>> batches = new ArrayList<>();
+		List<Document> current = new ArrayList<>();
+		int currentTokens = 0;
+		for (Document chunk : chunks) {
+			int tokens = tokenCountEstimator.estimate(chunk.getText());
+			if (!current.isEmpty() && (currentTokens + tokens > batchTokenBudget || current.size() >= maxBatchSize)) {
+				batches.add(current);
+				current = new ArrayList<>();
+				currentTokens = 0;
+			}
+			current.add(chunk);
+			currentTokens += tokens;
+		}
+		if (!current.isEmpty()) {
+			batches.add(current);
+		}
+		return batches;
+	}
+
+	private Void writeBatch(VectorStore vectorStore, List<Document> batch) throws InterruptedException {
+		for (int attempt = 1; ; attempt++) {
+			limiter.acquire();
+			long start = System.nanoTime();
+			try {
+				vectorStore.add(batch);
+				limiter.onSuccess(System.nanoTime() - start);
+				return null;
+			} catch (RuntimeException e) {
+				if (!isRateLimited(e)) {
+					limiter.onFailure();
+					throw e;
+				}
+				limiter.onRateLimited();
+				if (attempt >= maxAttempts) {
+					throw e;
+				}
+				log.warn("Embedding backend is rate limiting, retrying batch of {} chunks (attempt {}/{}, limit now {})",
+					batch.size(), attempt, maxAttempts, limiter.currentLimit());
+				Thread.sleep(rateLimitBackoff.toMillis() * attempt);
+			}
+		}
+	}
+
+	private boolean isRateLimited(Throwable error) {
+		for (Throwable current = error; current != null; current = current.getCause()) {
+			if (current instanceof HttpClientErrorException.TooManyRequests) {
+				return true;
+			}
+			String message = current.getMessage();
+			if (message != null && (message.startsWith("429") || message.contains("rate_limit_exceeded"))) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	@PreDestroy
+	public void shutdown() {
+		executor.shutdownNow();
+	}
+}
@@ -0,0 +1,64 @@
+package com.burak.openai.service;
+
+import io.qdrant.client.QdrantClient;
+import io.qdrant.client.grpc.Collections.CollectionInfo;
+import io.qdrant.client.grpc.Collections.KeywordIndexParams;
+import io.qdrant.client.grpc.Collections.PayloadIndexParams;
+import io.qdrant.client.grpc.Collections.PayloadSchemaType;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Set;
+
+import static com.burak.openai.service.QdrantPointService.await;
+
+/**
+ * Creates the keyword payload indexes our filters rely on. {@code initialize-schema} only
+ * creates the vector configuration, so without these every {@code username} or
+ * {@code documentId} filter is evaluated by scanning payloads, and filtered search gets
+ * slower as the whole collection grows. {@code username} is declared as the tenant key,
+ * which lets Qdrant co-locate each user's points.
+ */
+@Component
+@Slf4j
+public class QdrantPayloadIndexer {
+
+	static final String USERNAME = "username";
+	static final String DOCUMENT_ID = "documentId";
+
+	private final QdrantClient qdrantClient;
+	private final boolean enabled;
+
+	public QdrantPayloadIndexer(QdrantClient qdrantClient,
+	                            @Value("${rag.qdrant.payload-indexes.enabled:true}") boolean enabled) {
+		this.qdrantClient = qdrantClient;
+		this.enabled = enabled;
+	}
+
+	/**
+	 * Creates whichever of the payload indexes the collection does not have yet.
+	 */
+	public void ensureIndexes(String collectionName) {
+		if (!enabled) {
+			return;
+		}
+		CollectionInfo info = await(qdrantClient.getCollectionInfoAsync(collectionName));
+		Set<String> indexed = info.getPayloadSchemaMap().keySet();
+		if (!indexed.contains(USERNAME)) {
+			createKeywordIndex(collectionName, USERNAME, true);
+		}
+		if (!indexed.contains(DOCUMENT_ID)) {
+			createKeywordIndex(collectionName, DOCUMENT_ID, false);
+		}
+	}
+
+	private void createKeywordIndex(String collectionName, String field, boolean tenant) {
+		PayloadIndexParams params = PayloadIndexParams.newBuilder()
+			.setKeywordIndexParams(KeywordIndexParams.newBuilder().setIsTenant(tenant).build())
+			.build();
+		await(qdrantClient.createPayloadIndexAsync(collectionName, field, PayloadSchemaType.Keyword, params,
+			true, null, null));
+		log.info("Created keyword payload index on {}.{}{}", collectionName, field, tenant ? " (tenant key)" : "");
+	}
+}
@@ -0,0 +1,351 @@
+package com.burak.openai.service;
+
+import io.qdrant.client.QdrantClient;
+import io.qdrant.client.WithPayloadSelectorFactory;
+import io.qdrant.client.WithVectorsSelectorFactory;
+import io.qdrant.client.grpc.JsonWithInt;
+import io.qdrant.client.grpc.Points.Filter;
+import io.qdrant.client.grpc.Points.PointId;
+import io.qdrant.client.grpc.Points.PointStruct;
+import io.qdrant.client.grpc.Points.RetrievedPoint;
+import io.qdrant.client.grpc.Points.ScrollPoints;
+import io.qdrant.client.grpc.Points.ScrollResponse;
+import io.qdrant.client.grpc.Points.WithPayloadSelector;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+import static io.qdrant.client.ConditionFactory.matchKeyword;
+import static io.qdrant.client.PointIdFactory.id;
+import static io.qdrant.client.ValueFactory.value;
+import static io.qdrant.client.VectorsFactory.vectors;
+
+/**
+ * Point-level operations on the Qdrant collections that the Spring AI {@code VectorStore}
+ * abstraction does not offer, such as scrolling a document's points with their vectors.
+ * Payload keys match the flattened metadata written by the Qdrant vector store. User
+ * operations go to the collection chosen by {@link TenantVectorStoreRouter}; operations
+ * that only know a document id visit every user collection.
+ */
+@Service
+@Slf4j
+public class QdrantPointService {
+
+	private static final int PAGE_SIZE = 256;
+
+	/** Payload key under which the Qdrant vector store keeps the document text. */
+	private static final String CONTENT_KEY = "doc_content";
+
+	private final QdrantClient qdrantClient;
+	private final TenantVectorStoreRouter tenantRouter;
+
+	public QdrantPointService(QdrantClient qdrantClient, TenantVectorStoreRouter tenantRouter) {
+		this.qdrantClient = qdrantClient;
+		this.tenantRouter = tenantRouter;
+	}
+
+	/**
+	 * Copies every point of a document under a new document id and owner, reusing the stored
+	 * vectors instead of embedding the text again.
+	 *
+	 * @return the number of points copied
+	 */
+	public int copyDocumentPoints(String sourceDocumentId, String targetDocumentId, String targetUsername,
+	                              String targetFilename) {
+		Map<String, JsonWithInt.Value> overrides = Map.of(
+			"documentId", value(targetDocumentId),
+			"username", value(targetUsername),
+			"originalFilename", value(targetFilename),
+			"uploadDate", value(LocalDateTime.now().toString()));
+
+		String targetCollection = tenantRouter.collectionFor(targetUsername);
+		int[] copied = {0};
+		scrollAll(documentFilter(sourceDocumentId), WithPayloadSelectorFactory.enable(true), true, page -> {
+			List<PointStruct> points = new ArrayList<>(page.size());
+			for (RetrievedPoint point : page) {
+				Map<String, JsonWithInt.Value> payload = new HashMap<>(point.getPayloadMap());
+				payload.putAll(overrides);
+				JsonWithInt.Value chunkHash = payload.get(ChunkIdentity.CHUNK_HASH);
+				JsonWithInt.Value pageNumber = payload.get(PagedPdfExtractor.PAGE_NUMBER);
+				UUID pointId = chunkHash != null && chunkHash.hasStringValue()
+					? UUID.fromString(ChunkIdentity.chunkId(targetDocumentId, chunkHash.getStringValue(),
+						pageNumber != null && pageNumber.hasIntegerValue() ? (int) pageNumber.getIntegerValue() : null))
+					: UUID.randomUUID();
+				points.add(PointStruct.newBuilder()
+					.setId(id(pointId))
+					.setVectors(vectors(point.getVectors().getVector().getDataList()))
+					.putAllPayload(payload)
+					.build());
+			}
+			await(qdrantClient.upsertAsync(targetCollection, points));
+			copied[0] += points.size();
+		});
+
+		log.info("Copied {} points from document {} to document {}", copied[0], sourceDocumentId, targetDocumentId);
+		return copied[0];
+	}
+
+	/**
+	 * Deletes all points of a document, at most {@code batchSize} ids per delete request.
+	 *
+	 * @return the number of points deleted
+	 */
+	public int deleteDocumentPoints(String documentId, int batchSize) {
+		int deleted = 0;
+		for (String collectionName : tenantRouter.userCollections()) {
+			deleted += deleteDocumentPoints(collectionName, documentId, batchSize);
+		}
+		return deleted;
+	}
+
+	private int deleteDocumentPoints(String collectionName, String documentId, int batchSize) {
+		int deleted = 0;
+		while (true) {
+			ScrollResponse page = await(qdrantClient.scrollAsync(ScrollPoints.newBuilder()
+				.setCollectionName(collectionName)
+				.setFilter(documentFilter(documentId))
+				.setLimit(batchSize)
+				.setWithPayload(WithPayloadSelectorFactory.enable(false))
+				.setWithVectors(WithVectorsSelectorFactory.enable(false))
+				.build()));
+			if (page.getResultCount() == 0) {
+				return deleted;
+			}
+			List<PointId> ids = page.getResultList().stream().map(RetrievedPoint::getId).toList();
+			await(qdrantClient.deleteAsync(collectionName, ids));
+			deleted += ids.size();
+		}
+	}
+
+	/**
+	 * Overwrites the given payload keys of the user's points, at most {@code batchSize} ids
+	 * per request; other keys and the vectors are left as they are. Null values are skipped.
+	 */
+	public void setPayload(String username, Collection<String> pointIds, Map<String, String> payload, int batchSize) {
+		Map<String, JsonWithInt.Value> values = new HashMap<>();
+		payload.forEach((key, fieldValue) -> {
+			if (fieldValue != null) {
+				values.put(key, value(fieldValue));
+			}
+		});
+		String collectionName = tenantRouter.collectionFor(username);
+		List<PointId> batch = new ArrayList<>(Math.min(batchSize, pointIds.size()));
+		for (String pointId : pointIds) {
+			batch.add(id(UUID.fromString(pointId)));
+			if (batch.size() >= batchSize) {
+				await(qdrantClient.setPayloadAsync(collectionName, values, batch, true, null, null));
+				batch = new ArrayList<>(batchSize);
+			}
+		}
+		if (!batch.isEmpty()) {
+			await(qdrantClient.setPayloadAsync(collectionName, values, batch, true, null, null));
+		}
+	}
+
+	/**
+	 * Returns the ids of all points currently stored for a document.
+	 */
+	public Set<String> findDocumentPointIds(String documentId) {
+		Set<String> pointIds = new HashSet<>();
+		scrollAll(documentFilter(documentId), WithPayloadSelectorFactory.enable(false), false, page -> {
+			for (RetrievedPoint point : page) {
+				pointIds.add(point.getId().getUuid());
+			}
+		});
+		return pointIds;
+	}
+
+	/**
+	 * Deletes the given points of a user, at most {@code batchSize} ids per delete request.
+	 */
+	public void deletePoints(String username, Collection<String> pointIds, int batchSize) {
+		String collectionName = tenantRouter.collectionFor(username);
+		List<PointId> batch = new ArrayList<>(Math.min(batchSize, pointIds.size()));
+		for (String pointId : pointIds) {
+			batch.add(id(UUID.fromString(pointId)));
+			if (batch.size() >= batchSize) {
+				await(qdrantClient.deleteAsync(collectionName, batch));
+				batch = new ArrayList<>(batchSize);
+			}
+		}
+		if (!batch.isEmpty()) {
+			await(qdrantClient.deleteAsync(collectionName, batch));
+		}
+	}
+
+	/**
+	 * Loads every point owned by a user, with its text, metadata and vector. Returns empty
+	 * when the user has more than {@code maxPoints} points.
+	 */
+	public Optional<List<StoredPoint>> findUserPoints(String username, int maxPoints) {
+		Filter filter = Filter.newBuilder().addMust(matchKeyword("username", username)).build();
+		List<StoredPoint> points = new ArrayList<>();
+		boolean complete = scrollWhile(tenantRouter.collectionFor(username), filter,
+			WithPayloadSelectorFactory.enable(true), true, page -> {
+				for (RetrievedPoint point : page) {
+					points.add(toStoredPoint(point));
+				}
+				return points.size() <= maxPoints;
+			});
+		return complete ? Optional.of(points) : Optional.empty();
+	}
+
+	/**
+	 * Loads the stored vectors of the given points of a user, keyed by point id. Points
+	 * that no longer exist are missing from the result.
+	 */
+	public Map<String, float[]> findVectors(String username, Collection<String> pointIds) {
+		Map<String, float[]> vectors = new HashMap<>();
+		if (pointIds.isEmpty()) {
+			return vectors;
+		}
+		List<PointId> ids = pointIds.stream().map(pointId -> id(UUID.fromString(pointId))).toList();
+		List<RetrievedPoint> points = await(qdrantClient.retrieveAsync(tenantRouter.collectionFor(username), ids,
+			WithPayloadSelectorFactory.enable(false), WithVectorsSelectorFactory.enable(true), null));
+		for (RetrievedPoint point : points) {
+			vectors.put(point.getId().getUuid(), toVector(point));
+		}
+		return vectors;
+	}
+
+	/**
+	 * Collects the distinct {@code documentId} payload values present in the user
+	 * collections. Points without a document id (e.g. seeded reference data) are ignored.
+	 */
+	public Set<String> findAllDocumentIds() {
+		Set<String> documentIds = new HashSet<>();
+		scrollAll(null, WithPayloadSelectorFactory.include(List.of("documentId")), false, page -> {
+			for (RetrievedPoint point : page) {
+				JsonWithInt.Value documentId = point.getPayloadMap().get("documentId");
+				if (documentId != null && documentId.hasStringValue()) {
+					documentIds.add(documentId.getStringValue());
+				}
+			}
+		});
+		return documentIds;
+	}
+
+	/**
+	 * Pages through all points matching the filter in every user collection, handing each
+	 * page to the consumer. A {@code null} filter scrolls every point.
+	 */
+	void scrollAll(Filter filter, WithPayloadSelector payloadSelector, boolean withVectors,
+	               Consumer<List<RetrievedPoint>> pageConsumer) {
+		for (String collectionName : tenantRouter.userCollections()) {
+			scrollWhile(collectionName, filter, payloadSelector, withVectors, page -> {
+				pageConsumer.accept(page);
+				return true;
+			});
+		}
+	}
+
+	/**
+	 * Pages through the points of one collection matching the filter, stopping as soon as
+	 * the page handler returns false.
+	 *
+	 * @return true if every page was handled
+	 */
+	boolean scrollWhile(String collectionName, Filter filter, WithPayloadSelector payloadSelector,
+	                    boolean withVectors, Predicate<List<RetrievedPoint>> pageHandler) {
+		PointId offset = null;
+		do {
+			ScrollPoints.Builder request = ScrollPoints.newBuilder()
+				.setCollectionName(collectionName)
+				.setLimit(PAGE_SIZE)
+				.setWithPayload(payloadSelector)
+				.setWithVectors(WithVectorsSelectorFactory.enable(withVectors));
+			if (filter != null) {
+				request.setFilter(filter);
+			}
+			if (offset != null) {
+				request.setOffset(offset);
+			}
+
+			ScrollResponse response = await(qdrantClient.scrollAsync(request.build()));
+			if (response.getResultCount() > 0 && !pageHandler.test(response.getResultList())) {
+				return false;
+			}
+			offset = response.hasNextPageOffset() ? response.getNextPageOffset() : null;
+		} while (offset != null);
+		return true;
+	}
+
+	private static StoredPoint toStoredPoint(RetrievedPoint point) {
+		Map<String, Object> metadata = new HashMap<>();
+		String text = "";
+		for (Map.Entry<String, JsonWithInt.Value> entry : point.getPayloadMap().entrySet()) {
+			if (CONTENT_KEY.equals(entry.getKey())) {
+				text = entry.getValue().getStringValue();
+			} else {
+				metadata.put(entry.getKey(), toJava(entry.getValue()));
+			}
+		}
+		return new StoredPoint(point.getId().getUuid(), text, metadata, toVector(point));
+	}
+
+	private static float[] toVector(RetrievedPoint point) {
+		List<Float> data = point.getVectors().getVector().getDataList();
+		float[] vector = new float[data.size()];
+		for (int i = 0; i < vector.length; i++) {
+			vector[i] = data.get(i);
+		}
+		return vector;
+	}
+
+	/**
+	 * Converts a Qdrant payload value into the plain Java value the vector store would
+	 * have put into the document metadata.
+	 */
+	private static Object toJava(JsonWithInt.Value value) {
+		return switch (value.getKindCase()) {
+			case BOOL_VALUE -> value.getBoolValue();
+			case INTEGER_VALUE -> value.getIntegerValue();
+			case DOUBLE_VALUE -> value.getDoubleValue();
+			case STRING_VALUE -> value.getStringValue();
+			case LIST_VALUE -> value.getListValue().getValuesList().stream().map(QdrantPointService::toJava).toList();
+			case STRUCT_VALUE -> {
+				Map<String, Object> struct = new HashMap<>();
+				value.getStructValue().getFieldsMap().forEach((key, field) -> struct.put(key, toJava(field)));
+				yield struct;
+			}
+			default -> null;
+		};
+	}
+
+	static Filter documentFilter(String documentId) {
+		return Filter.newBuilder()
+			.addMust(matchKeyword("documentId", documentId))
+			.build();
+	}
+
+	/**
+	 * A stored chunk as loaded from Qdrant.
+	 */
+	public record StoredPoint(String id, String text, Map<String, Object> metadata, float[] vector) {
+	}
+
+	static <T> T await(Future<T> future) {
+		try {
+			return future.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Interrupted while waiting for Qdrant", e);
+		} catch (ExecutionException e) {
+			throw new IllegalStateException("Qdrant request failed: " + e.getCause().getMessage(), e.getCause());
+		}
+	}
+}
@@ -0,0 +1,121 @@
+package com.burak.openai.service;
+
+import org.apache.tika.exception.TikaException;
+import org.apache.tika.io.TikaInputStream;
+import org.apache.tika.metadata.Metadata;
+import org.apache.tika.parser.AutoDetectParser;
+import org.apache.tika.parser.ParseContext;
+import org.apache.tika.parser.Parser;
+import org.apache.tika.sax.BodyContentHandler;
+import org.springframework.util.Assert;
+import org.xml.sax.SAXException;
+import org.xml.sax.helpers.DefaultHandler;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.util.function.Consumer;
+
+/**
+ * Extracts text from a file with Tika without ever building the full document text.
+ * <p>
+ * Characters are collected into a window of at most {@code windowChars}; whenever the
+ * window fills up it is cut at the last paragraph or sentence boundary and handed to the
+ * segment consumer, so the text held in memory per extraction stays bounded by the window
+ * size instead of by the file size.
+ */
+public class StreamingTextExtractor {
+
+	private final int windowChars;
+	private final AutoDetectParser parser = new AutoDetectParser();
+
+	public StreamingTextExtractor(int windowChars) {
+		Assert.isTrue(windowChars >= 1024, "windowChars must be at least 1024");
+		this.windowChars = windowChars;
+	}
+
+	/**
+	 * Parses the file and emits its text as consecutive segments.
+	 *
+	 * @return the number of characters extracted
+	 */
+	public long extract(Path file, Consumer<String> segmentConsumer) throws IOException {
+		WindowingHandler windowingHandler = new WindowingHandler(segmentConsumer);
+		ParseContext context = new ParseContext();
+		context.set(Parser.class, parser);
+
+		try (InputStream stream = TikaInputStream.get(file)) {
+			parser.parse(stream, new BodyContentHandler(windowingHandler), new Metadata(), context);
+		} catch (SAXException | TikaException e) {
+			throw new IOException("Text extraction failed: " + e.getMessage(), e);
+		}
+		windowingHandler.flushRemaining();
+		return windowingHandler.totalChars;
+	}
+
+	private final class WindowingHandler extends DefaultHandler {
+
+		private final Consumer<String> segmentConsumer;
+		private final StringBuilder window = new StringBuilder();
+		private long totalChars;
+
+		private WindowingHandler(Consumer<String> segmentConsumer) {
+			this.segmentConsumer = segmentConsumer;
+		}
+
+		@Override
+		public void characters(char[] ch, int start, int length) {
+			window.append(ch, start, length);
+			totalChars += length;
+			if (window.length() >= windowChars) {
+				emitUpToBoundary();
+			}
+		}
+
+		@Override
+		public void ignorableWhitespace(char[] ch, int start, int length) {
+			characters(ch, start, length);
+		}
+
+		private void emitUpToBoundary() {
+			int cut = findBoundary();
+			emit(window.substring(0, cut));
+			window.delete(0, cut);
+		}
+
+		/**
+		 * Prefers a paragraph break, then a line break, then a sentence end within the last
+		 * quarter of the window; falls back to a hard cut at the window size.
+		 */
+		private int findBoundary() {
+			int limit = Math.min(window.length(), windowChars);
+			int floor = limit - limit / 4;
+			int paragraph = window.lastIndexOf("\n\n", limit - 2);
+			if (paragraph >= floor) {
+				return paragraph + 2;
+			}
+			int line = window.lastIndexOf("\n", limit - 1);
+			if (line >= floor) {
+				return line + 1;
+			}
+			int sentence = window.lastIndexOf(". ", limit - 2);
+			if (sentence >= floor) {
+				return sentence + 2;
+			}
+			return limit;
+		}
+
+		private void flushRemaining() {
+			if (!window.isEmpty()) {
+				emit(window.toString());
+				window.setLength(0);
+			}
+		}
+
+		private void emit(String segment) {
+			if (!segment.isBlank()) {
+				segmentConsumer.accept(segment);
+			}
+		}
+	}
+}
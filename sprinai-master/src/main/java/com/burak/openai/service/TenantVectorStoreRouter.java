@@ -0,0 +1,134 @@
+package com.burak.openai.service;
+
+import io.qdrant.client.QdrantClient;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.ai.vectorstore.VectorStore;
+import org.springframework.ai.vectorstore.qdrant.QdrantVectorStore;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Decides which Qdrant collection holds a user's documents.
+ * <p>
+ * In {@code shared} mode (the default) every user lives in the configured collection and
+ * is separated by the indexed {@code username} tenant key. In {@code cohort} mode users
+ * are spread over {@code cohort-count} collections named {@code <collection>-cohort-<n>}
+ * by a stable hash of the username, which keeps each collection, and therefore each
+ * filtered search, small as the user base grows. The configured collection keeps any
+ * shared reference data in both modes.
+ */
+@Component
+@Slf4j
+public class TenantVectorStoreRouter {
+
+	public enum Mode {
+		SHARED, COHORT
+	}
+
+	private final QdrantClient qdrantClient;
+	private final EmbeddingModel embeddingModel;
+	private final VectorStore defaultVectorStore;
+	private final QdrantPayloadIndexer payloadIndexer;
+	private final String defaultCollection;
+	private final Mode mode;
+	private final int cohortCount;
+	private final ConcurrentMap<String, VectorStore> cohortStores = new ConcurrentHashMap<>();
+
+	public TenantVectorStoreRouter(QdrantClient qdrantClient,
+	                               EmbeddingModel embeddingModel,
+	                               VectorStore defaultVectorStore,
+	                               QdrantPayloadIndexer payloadIndexer,
+	                               @Value("${spring.ai.vectorstore.qdrant.collection-name}") String defaultCollection,
+	                               @Value("${rag.tenancy.mode:shared}") String mode,
+	                               @Value("${rag.tenancy.cohort-count:4}") int cohortCount) {
+		this.qdrantClient = qdrantClient;
+		this.embeddingModel = embeddingModel;
+		this.defaultVectorStore = defaultVectorStore;
+		this.payloadIndexer = payloadIndexer;
+		this.defaultCollection = defaultCollection;
+		this.mode = Mode.valueOf(mode.trim().toUpperCase(Locale.ROOT));
+		this.cohortCount = cohortCount;
+		if (this.mode == Mode.COHORT && cohortCount < 1) {
+			throw new IllegalArgumentException("rag.tenancy.cohort-count must be at least 1");
+		}
+	}
+
+	public Mode mode() {
+		return mode;
+	}
+
+	public String collectionFor(String username) {
+		if (mode == Mode.SHARED) {
+			return defaultCollection;
+		}
+		return cohortCollection(Math.floorMod(username.hashCode(), cohortCount));
+	}
+
+	public VectorStore vectorStoreFor(String username) {
+		if (mode == Mode.SHARED) {
+			return defaultVectorStore;
+		}
+		return cohortStores.computeIfAbsent(collectionFor(username), this::createCohortStore);
+	}
+
+	/**
+	 * All collections that can hold user documents, for operations that only know a
+	 * document id.
+	 */
+	public List<String> userCollections() {
+		List<String> collections = new ArrayList<>();
+		collections.add(defaultCollection);
+		if (mode == Mode.COHORT) {
+			for (int cohort = 0; cohort < cohortCount; cohort++) {
+				collections.add(cohortCollection(cohort));
+			}
+		}
+		return collections;
+	}
+
+	/**
+	 * Creates the cohort collections and the payload indexes of every collection. Failures
+	 * are logged rather than failing startup; cohort collections are also created lazily.
+	 */
+	@EventListener(ApplicationReadyEvent.class)
+	public void initializeCollections() {
+		try {
+			if (mode == Mode.COHORT) {
+				for (int cohort = 0; cohort < cohortCount; cohort++) {
+					cohortStores.computeIfAbsent(cohortCollection(cohort), this::createCohortStore);
+				}
+			}
+			payloadIndexer.ensureIndexes(defaultCollection);
+			log.info("Vector store tenancy mode {} over collections {}", mode, userCollections());
+		} catch (Exception e) {
+			log.warn("Could not initialize Qdrant collections: {}", e.getMessage());
+		}
+	}
+
+	private VectorStore createCohortStore(String collectionName) {
+		QdrantVectorStore store = QdrantVectorStore.builder(qdrantClient, embeddingModel)
+			.collectionName(collectionName)
+			.initializeSchema(true)
+			.build();
+		try {
+			store.afterPropertiesSet();
+		} catch (Exception e) {
+			throw new IllegalStateException("Could not initialize Qdrant collection " + collectionName, e);
+		}
+		payloadIndexer.ensureIndexes(collectionName);
+		return store;
+	}
+
+	private String cohortCollection(int cohort) {
+		return defaultCollection + "-cohort-" + cohort;
+	}
+}
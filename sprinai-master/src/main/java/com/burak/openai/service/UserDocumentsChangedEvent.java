@@ -0,0 +1,9 @@
+package com.burak.openai.service;
+
+/**
+ * Published whenever the set of searchable chunks of a user changes: a document finished
+ * ingestion (or failed part-way), was replaced or was deleted. Listeners holding derived,
+ * per-user retrieval state drop it on this event.
+ */
+public record UserDocumentsChangedEvent(String username, String documentId) {
+}
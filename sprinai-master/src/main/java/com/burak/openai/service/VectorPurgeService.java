@@ -0,0 +1,142 @@
+package com.burak.openai.service;
+
+import com.burak.openai.repository.UserDocumentRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Removes the vectors of deleted documents from Qdrant, together with their chunks in the
+ * {@link LexicalChunkStore}, and the chunks that failed ingestion jobs had already written.
+ * <p>
+ * Purges run in the background, delete in id batches and are retried with exponential
+ * backoff. A periodic reconciliation pass catches anything a purge missed (for example
+ * chunks written by an ingestion job that was still running when its document was
+ * deleted) by removing every point whose {@code documentId} has no row in
+ * {@code user_documents}.
+ */
+@Service
+@Slf4j
+public class VectorPurgeService {
+
+	private final QdrantPointService qdrantPointService;
+	private final LexicalChunkStore lexicalChunkStore;
+	private final UserDocumentRepository userDocumentRepository;
+	private final ApplicationEventPublisher eventPublisher;
+	private final int batchSize;
+	private final int maxAttempts;
+	private final Duration initialBackoff;
+	private final boolean reconcileEnabled;
+	private final ScheduledExecutorService executor =
+		Executors.newSingleThreadScheduledExecutor(new CustomizableThreadFactory("vector-purge-"));
+
+	public VectorPurgeService(QdrantPointService qdrantPointService,
+	                          LexicalChunkStore lexicalChunkStore,
+	                          UserDocumentRepository userDocumentRepository,
+	                          ApplicationEventPublisher eventPublisher,
+	                          @Value("${document.vectors.purge.batch-size:512}") int batchSize,
+	                          @Value("${document.vectors.purge.max-attempts:5}") int maxAttempts,
+	                          @Value("${document.vectors.purge.initial-backoff:2s}") Duration initialBackoff,
+	                          @Value("${document.vectors.reconcile.enabled:true}") boolean reconcileEnabled) {
+		this.qdrantPointService = qdrantPointService;
+		this.lexicalChunkStore = lexicalChunkStore;
+		this.userDocumentRepository = userDocumentRepository;
+		this.eventPublisher = eventPublisher;
+		this.batchSize = batchSize;
+		this.maxAttempts = maxAttempts;
+		this.initialBackoff = initialBackoff;
+		this.reconcileEnabled = reconcileEnabled;
+	}
+
+	/**
+	 * Schedules removal of all vectors belonging to the document and returns immediately.
+	 */
+	public void purgeDocument(String documentId) {
+		executor.execute(() -> attemptPurge("document " + documentId, () -> {
+			int deleted = qdrantPointService.deleteDocumentPoints(documentId, batchSize);
+			int lexicalDeleted = lexicalChunkStore.deleteDocument(documentId);
+			log.info("Purged {} vectors and {} lexical chunks of document {}", deleted, lexicalDeleted, documentId);
+		}, 1));
+	}
+
+	/**
+	 * Schedules removal of some chunks of a document that stays, e.g. the chunks a failed
+	 * ingestion job had already written, and returns immediately. Reconciliation does not
+	 * catch these, since the document row still exists. Once they are gone the user's
+	 * documents are reported as changed again, so retrieval state cached while they were
+	 * still searchable is dropped.
+	 */
+	public void purgeChunks(String username, String documentId, Collection<String> chunkIds) {
+		executor.execute(() -> attemptPurge(chunkIds.size() + " chunks of document " + documentId, () -> {
+			qdrantPointService.deletePoints(username, chunkIds, batchSize);
+			lexicalChunkStore.deleteChunks(chunkIds);
+			log.info("Purged {} chunks of document {}", chunkIds.size(), documentId);
+			eventPublisher.publishEvent(new UserDocumentsChangedEvent(username, documentId));
+		}, 1));
+	}
+
+	private void attemptPurge(String target, Purge purge, int attempt) {
+		try {
+			purge.run();
+		} catch (Exception e) {
+			if (attempt >= maxAttempts) {
+				log.error("Giving up purging vectors of {} after {} attempts", target, attempt, e);
+				return;
+			}
+			long delay = initialBackoff.toMillis() << (attempt - 1);
+			log.warn("Purging vectors of {} failed (attempt {}/{}), retrying in {} ms: {}",
+				target, attempt, maxAttempts, delay, e.getMessage());
+			executor.schedule(() -> attemptPurge(target, purge, attempt + 1), delay, TimeUnit.MILLISECONDS);
+		}
+	}
+
+	@Scheduled(initialDelayString = "${document.vectors.reconcile.initial-delay:10m}",
+		fixedDelayString = "${document.vectors.reconcile.interval:1h}")
+	public void reconcileOrphanedVectors() {
+		if (!reconcileEnabled) {
+			return;
+		}
+		try {
+			int lexicalOrphans = lexicalChunkStore.deleteOrphans();
+			if (lexicalOrphans > 0) {
+				log.info("Vector reconciliation removed {} orphaned lexical chunks", lexicalOrphans);
+			}
+
+			// Read the vector side first so that documents created during the scan are never
+			// mistaken for orphans
+			Set<String> orphaned = new HashSet<>(qdrantPointService.findAllDocumentIds());
+			orphaned.removeAll(userDocumentRepository.findAllDocumentIds());
+
+			if (orphaned.isEmpty()) {
+				log.debug("Vector reconciliation found no orphaned documents");
+				return;
+			}
+			log.info("Vector reconciliation found {} orphaned documents, purging", orphaned.size());
+			orphaned.forEach(this::purgeDocument);
+		} catch (Exception e) {
+			log.error("Vector reconciliation failed", e);
+		}
+	}
+
+	@PreDestroy
+	public void shutdown() {
+		executor.shutdownNow();
+	}
+
+	@FunctionalInterface
+	private interface Purge {
+		void run() throws Exception;
+	}
+}
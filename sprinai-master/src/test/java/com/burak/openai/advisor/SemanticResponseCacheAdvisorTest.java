@@ -0,0 +1,137 @@
+package com.burak.openai.advisor;
+
+import com.burak.openai.rag.RetrievalContext;
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.chat.client.ChatClientRequest;
+import org.springframework.ai.chat.client.ChatClientResponse;
+import org.springframework.ai.chat.client.advisor.api.CallAdvisor;
+import org.springframework.ai.chat.client.advisor.api.CallAdvisorChain;
+import org.springframework.ai.chat.messages.AssistantMessage;
+import org.springframework.ai.chat.messages.Message;
+import org.springframework.ai.chat.messages.SystemMessage;
+import org.springframework.ai.chat.messages.UserMessage;
+import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.ai.chat.model.Generation;
+import org.springframework.ai.chat.prompt.Prompt;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.ai.embedding.EmbeddingRequest;
+import org.springframework.ai.embedding.EmbeddingResponse;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SemanticResponseCacheAdvisorTest {
+
+	private static final SystemMessage SYSTEM = new SystemMessage("Answer from the user's documents.");
+
+	private final CountingChain chain = new CountingChain();
+	private final SemanticResponseCacheAdvisor advisor = SemanticResponseCacheAdvisor.builder()
+		.clientName("userDocumentChatClient")
+		.embeddingModel(new TopicEmbeddingModel())
+		.cache(new SemanticResponseCache(true, DataSize.ofMegabytes(1), Duration.ofMinutes(30), 64))
+		.build();
+
+	@Test
+	void paraphraseOnLaterTurnHitsCache() {
+		String first = call(List.of(SYSTEM, new UserMessage("What does photosynthesis produce?")));
+
+		String later = call(List.of(SYSTEM,
+			new UserMessage("What does photosynthesis produce?"), new AssistantMessage(first),
+			new UserMessage("Explain the light reactions of chloroplasts"), new AssistantMessage("answer 2"),
+			new UserMessage("Which substances are produced by photosynthesis in plants?")));
+
+		assertThat(later).isEqualTo(first);
+		assertThat(chain.calls).isEqualTo(1);
+	}
+
+	@Test
+	void shortFollowUpIsNeitherServedNorStored() {
+		List<Message> conversation = List.of(SYSTEM,
+			new UserMessage("What does photosynthesis produce?"), new AssistantMessage("Glucose and oxygen."),
+			new UserMessage("Explain more"));
+
+		call(conversation);
+		call(conversation);
+
+		assertThat(chain.calls).isEqualTo(2);
+	}
+
+	@Test
+	void followUpReferringBackIsNotServedFromCache() {
+		call(List.of(SYSTEM, new UserMessage("Which gases does photosynthesis use and release?")));
+
+		call(List.of(SYSTEM,
+			new UserMessage("List the stages of the water cycle"), new AssistantMessage("Evaporation, condensation, ..."),
+			new UserMessage("Which gases does photosynthesis use in the second one?")));
+
+		assertThat(chain.calls).isEqualTo(2);
+	}
+
+	@Test
+	void detectsFollowUpsOnlyOnLaterTurns() {
+		List<Message> history = List.of(new UserMessage("q"), new AssistantMessage("a"));
+
+		assertThat(SemanticResponseCacheAdvisor.isFollowUp(List.of(), "Explain more")).isFalse();
+		assertThat(SemanticResponseCacheAdvisor.isFollowUp(history, "yes")).isTrue();
+		assertThat(SemanticResponseCacheAdvisor.isFollowUp(history, "Bunu biraz daha açıklar mısın lütfen?")).isTrue();
+		assertThat(SemanticResponseCacheAdvisor.isFollowUp(history, "What are the main causes of inflation?")).isFalse();
+	}
+
+	private String call(List<Message> messages) {
+		ChatClientRequest request = ChatClientRequest.builder()
+			.prompt(new Prompt(messages))
+			.context(Map.of(RetrievalContext.USERNAME, "alice"))
+			.build();
+		return advisor.adviseCall(request, chain).chatResponse().getResult().getOutput().getText();
+	}
+
+	/**
+	 * Answers every call with a distinct text and counts the calls that reached the model.
+	 */
+	private static final class CountingChain implements CallAdvisorChain {
+
+		private int calls;
+
+		@Override
+		public ChatClientResponse nextCall(ChatClientRequest chatClientRequest) {
+			calls++;
+			return ChatClientResponse.builder()
+				.chatResponse(new ChatResponse(List.of(new Generation(new AssistantMessage("answer " + calls)))))
+				.context(Map.of())
+				.build();
+		}
+
+		@Override
+		public List<CallAdvisor> getCallAdvisors() {
+			return new ArrayList<>();
+		}
+	}
+
+	/**
+	 * Maps texts about photosynthesis to one direction and everything else to another, so
+	 * paraphrases are identical and unrelated questions are orthogonal.
+	 */
+	private static final class TopicEmbeddingModel implements EmbeddingModel {
+
+		@Override
+		public float[] embed(String text) {
+			return text.toLowerCase().contains("photosynthesis") ? new float[] {1, 0, 0} : new float[] {0, 1, 0};
+		}
+
+		@Override
+		public float[] embed(Document document) {
+			return embed(document.getText());
+		}
+
+		@Override
+		public EmbeddingResponse call(EmbeddingRequest request) {
+			throw new UnsupportedOperationException();
+		}
+	}
+}
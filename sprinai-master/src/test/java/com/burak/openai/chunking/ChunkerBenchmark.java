@@ -0,0 +1,91 @@
+package com.burak.openai.chunking;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.reader.tika.TikaDocumentReader;
+import org.springframework.ai.transformer.splitter.TokenTextSplitter;
+import org.springframework.core.io.ClassPathResource;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Chunking throughput on the bundled HR policy PDF: {@link SentenceChunker} versus the
+ * {@link TokenTextSplitter} configuration the ingestion pipeline used before.
+ * <p>
+ * Besides operations per second, every benchmark reports a {@code megabytes} counter,
+ * i.e. MB of UTF-8 source text chunked per second. Run with
+ * {@code mvn test-compile exec:java} (the exec plugin in the pom points at this class) or
+ * from the IDE.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "--enable-preview")
+@State(Scope.Benchmark)
+public class ChunkerBenchmark {
+
+	private List<Document> documents;
+	private String text;
+	private double megabytes;
+	private SentenceChunker sentenceChunker;
+	private TokenTextSplitter tokenTextSplitter;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		documents = new TikaDocumentReader(new ClassPathResource("Eazybytes_HR_Policies.pdf")).get();
+		text = documents.stream().map(Document::getText).collect(Collectors.joining("\n\n"));
+		megabytes = text.getBytes(StandardCharsets.UTF_8).length / 1_000_000.0;
+		sentenceChunker = SentenceChunker.builder().chunkSize(300).overlapTokens(50).build();
+		tokenTextSplitter = TokenTextSplitter.builder()
+			.withChunkSize(300)
+			.withKeepSeparator(true)
+			.build();
+	}
+
+	@State(Scope.Thread)
+	@AuxCounters(AuxCounters.Type.OPERATIONS)
+	public static class Throughput {
+
+		public double megabytes;
+	}
+
+	@Benchmark
+	public List<TextChunk> sentenceChunkerOffsets(Throughput throughput) {
+		throughput.megabytes += megabytes;
+		return sentenceChunker.chunk(text);
+	}
+
+	@Benchmark
+	public List<Document> sentenceChunkerDocuments(Throughput throughput) {
+		throughput.megabytes += megabytes;
+		return sentenceChunker.split(documents);
+	}
+
+	@Benchmark
+	public List<Document> tokenTextSplitter(Throughput throughput) {
+		throughput.megabytes += megabytes;
+		return tokenTextSplitter.split(documents);
+	}
+
+	public static void main(String[] args) throws RunnerException {
+		new Runner(new OptionsBuilder().include(ChunkerBenchmark.class.getSimpleName()).build()).run();
+	}
+}
@@ -0,0 +1,46 @@
+package com.burak.openai.chunking;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class LexicalAnalyzerTest {
+
+	@Test
+	void courseCodeSpellingsShareConcatenatedTerm() {
+		assertThat(LexicalAnalyzer.terms("CS-101")).containsExactly("cs", "101", "cs101");
+		assertThat(LexicalAnalyzer.terms("CS101")).containsExactly("cs101");
+		assertThat(LexicalAnalyzer.terms("cs 101")).containsExactly("cs", "101", "cs101");
+	}
+
+	@Test
+	void joinedWordsAlsoProduceCompound() {
+		assertThat(LexicalAnalyzer.terms("Navier-Stokes equations"))
+			.containsExactly("navier", "stokes", "navierstokes", "equations");
+	}
+
+	@Test
+	void wordsSeparatedBySpaceAreNotConcatenated() {
+		assertThat(LexicalAnalyzer.terms("linear algebra notes, 2024"))
+			.containsExactly("linear", "algebra", "notes", "2024");
+	}
+
+	@Test
+	void turkishDottedAndDotlessIFoldToI() {
+		assertThat(LexicalAnalyzer.terms("İstanbul")).containsExactly("istanbul");
+		assertThat(LexicalAnalyzer.terms("ISTANBUL")).containsExactly("istanbul");
+		assertThat(LexicalAnalyzer.terms("ılık ılgın")).containsExactly("ilik", "ilgin");
+	}
+
+	@Test
+	void diacriticsAreStripped() {
+		assertThat(LexicalAnalyzer.terms("Öğrenci çalışması"))
+			.containsExactly("ogrenci", "calismasi");
+	}
+
+	@Test
+	void maskingPlaceholdersAreNotIndexed() {
+		assertThat(LexicalAnalyzer.terms("Call [REDACTED_PHONE] or mail [REDACTED_EMAIL]."))
+			.containsExactly("call", "or", "mail");
+	}
+}
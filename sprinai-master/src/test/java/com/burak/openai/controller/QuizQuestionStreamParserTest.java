@@ -0,0 +1,97 @@
+package com.burak.openai.controller;
+
+import com.burak.openai.model.QuizOptions;
+import com.burak.openai.model.QuizQuestion;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class QuizQuestionStreamParserTest {
+
+	private static final String FIRST = """
+		{"question": "What is 2 + 2?", "options": {"A": "3", "B": "4", "C": "5", "D": "6"}, "answer": "B"}""";
+	private static final String SECOND = """
+		{"question": "Capital of Turkey?", "options": {"A": "Ankara", "B": "Izmir", "C": "Bursa", "D": "Antalya"}, "answer": "A"}""";
+
+	private final QuizQuestionStreamParser parser = new QuizQuestionStreamParser(new ObjectMapper());
+
+	@Test
+	void questionSplitAcrossChunksIsReturnedWhenItCloses() {
+		String response = "{\"questions\": [" + FIRST + ", " + SECOND + "]}";
+		int split = response.indexOf("\"4\"");
+
+		assertThat(parser.feed(response.substring(0, split))).isEmpty();
+		List<QuizQuestion> questions = parser.feed(response.substring(split));
+
+		assertThat(questions).extracting(QuizQuestion::answer).containsExactly("B", "A");
+		assertThat(questions.get(0).options()).isEqualTo(new QuizOptions("3", "4", "5", "6"));
+	}
+
+	@Test
+	void questionsAreReturnedOneCharacterAtATime() {
+		String response = "{\"questions\": [" + FIRST + ", " + SECOND + "]}";
+		List<QuizQuestion> questions = new ArrayList<>();
+		List<Integer> completedAt = new ArrayList<>();
+		for (int i = 0; i < response.length(); i++) {
+			List<QuizQuestion> fed = parser.feed(response.substring(i, i + 1));
+			if (!fed.isEmpty()) {
+				completedAt.add(i);
+			}
+			questions.addAll(fed);
+		}
+
+		assertThat(questions).extracting(QuizQuestion::question).containsExactly("What is 2 + 2?", "Capital of Turkey?");
+		assertThat(completedAt.get(0)).isLessThan(response.indexOf(SECOND));
+	}
+
+	@Test
+	void leadingMarkdownFenceIsSkipped() {
+		List<QuizQuestion> questions = new ArrayList<>();
+		questions.addAll(parser.feed("```json\n"));
+		questions.addAll(parser.feed("{\"questions\": [" + FIRST + "]}"));
+		questions.addAll(parser.feed("\n```"));
+
+		assertThat(questions).extracting(QuizQuestion::answer).containsExactly("B");
+	}
+
+	@Test
+	void nestedOptionsAreBoundAndOnlyRootQuestionsAreReturned() {
+		String response = "{\"info\": {\"questions\": [" + FIRST + "]}, \"questions\": [" + SECOND + "]}";
+
+		List<QuizQuestion> questions = parser.feed(response);
+
+		assertThat(questions).hasSize(1);
+		assertThat(questions.get(0).options()).isEqualTo(new QuizOptions("Ankara", "Izmir", "Bursa", "Antalya"));
+		assertThat(questions.get(0).answer()).isEqualTo("A");
+	}
+
+	@Test
+	void questionWithInvalidAnswerLetterIsDropped() {
+		String invalid = """
+			{"question": "Which?", "options": {"A": "1", "B": "2", "C": "3", "D": "4"}, "answer": "E"}""";
+
+		List<QuizQuestion> questions = parser.feed("{\"questions\": [" + invalid + ", " + FIRST + "]}");
+
+		assertThat(questions).extracting(QuizQuestion::question).containsExactly("What is 2 + 2?");
+	}
+
+	@Test
+	void questionWithMissingOptionIsDropped() {
+		String invalid = """
+			{"question": "Which?", "options": {"A": "1", "B": "2", "C": "3"}, "answer": "A"}""";
+
+		assertThat(parser.feed("{\"questions\": [" + invalid + "]}")).isEmpty();
+	}
+
+	@Test
+	void textAfterRootObjectIsIgnored() {
+		List<QuizQuestion> questions = new ArrayList<>(parser.feed("{\"questions\": [" + FIRST + "]}\n```\nHope this helps! {"));
+		questions.addAll(parser.feed("\"questions\": [" + SECOND + "]}"));
+
+		assertThat(questions).extracting(QuizQuestion::answer).containsExactly("B");
+	}
+}
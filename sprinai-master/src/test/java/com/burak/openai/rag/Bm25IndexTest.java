@@ -0,0 +1,69 @@
+package com.burak.openai.rag;
+
+import com.burak.openai.chunking.LexicalAnalyzer;
+import com.burak.openai.service.LexicalChunkStore.LexicalChunk;
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.document.Document;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class Bm25IndexTest {
+
+	private static final List<LexicalChunk> CHUNKS = List.of(
+		chunk("a", "Qdrant stores the vectors of every chunk."),
+		chunk("b", "The lecture covers sorting algorithms and their complexity."),
+		chunk("c", "Qdrant vector search with a payload filter on the vector id."),
+		chunk("d", "Vector spaces and linear maps."),
+		chunk("e", "Exam dates are announced on the course page."));
+
+	@Test
+	void returnsMatchingChunksBestScoreFirst() {
+		// c matches both terms; d and a match one term each, and the shorter d ranks higher
+		List<Document> results = new Bm25Index("alice", CHUNKS).search(LexicalAnalyzer.terms("qdrant vector"), 10);
+
+		assertThat(results).extracting(Document::getId).containsExactly("c", "d", "a");
+		assertThat(results).extracting(Document::getScore).isSortedAccordingTo((x, y) -> Double.compare(y, x));
+	}
+
+	@Test
+	void keepsOnlyTopK() {
+		List<Document> results = new Bm25Index("alice", CHUNKS).search(LexicalAnalyzer.terms("qdrant vector"), 2);
+
+		assertThat(results).extracting(Document::getId).containsExactly("c", "d");
+	}
+
+	@Test
+	void matchesCourseCodeWrittenWithSpace() {
+		List<LexicalChunk> chunks = List.of(
+			chunk("x", "Syllabus for CS-101, spring term."),
+			chunk("y", "Room 101 is on the first floor."));
+
+		List<Document> results = new Bm25Index("alice", chunks).search(LexicalAnalyzer.terms("cs101"), 5);
+
+		assertThat(results).extracting(Document::getId).containsExactly("x");
+	}
+
+	@Test
+	void resultsCarryChunkMetadata() {
+		Document result = new Bm25Index("alice", CHUNKS).search(LexicalAnalyzer.terms("sorting"), 1).get(0);
+
+		assertThat(result.getId()).isEqualTo("b");
+		assertThat(result.getMetadata())
+			.containsEntry("username", "alice")
+			.containsEntry("documentId", "doc-b")
+			.containsEntry("page_number", 1);
+	}
+
+	@Test
+	void noMatchingTermsReturnsNothing() {
+		assertThat(new Bm25Index("alice", CHUNKS).search(LexicalAnalyzer.terms("thermodynamics"), 5)).isEmpty();
+		assertThat(new Bm25Index("alice", List.of()).search(LexicalAnalyzer.terms("qdrant"), 5)).isEmpty();
+	}
+
+	private static LexicalChunk chunk(String id, String content) {
+		return new LexicalChunk(id, "doc-" + id, id + ".pdf", 1, content,
+			String.join(" ", LexicalAnalyzer.terms(content)), false);
+	}
+}
@@ -0,0 +1,31 @@
+package com.burak.openai.rag;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PIIMaskerTest {
+
+	@Test
+	void masksPhoneNumbers() {
+		for (String phone : new String[] {
+			"+90 532 123 45 67", "+905321234567", "05321234567", "5321234567", "0532 123 45 67",
+			"(555) 123-4567", "555-123-4567", "555.123.4567", "+1 555 123 4567", "2125551234"}) {
+			assertThat(PIIMasker.mask("Call " + phone + " today")).isEqualTo("Call [REDACTED_PHONE] today");
+		}
+	}
+
+	@Test
+	void keepsOtherNumbers() {
+		for (String number : new String[] {
+			"ISBN 0306406152", "ISBN 9780306406157", "ISBN 978-0-306-40615-7", "id 1234567890",
+			"T.C. 12345678901", "date 2024-10-18", "total 1055512345", "row 2120551234"}) {
+			assertThat(PIIMasker.mask(number)).isEqualTo(number);
+		}
+	}
+
+	@Test
+	void masksEmails() {
+		assertThat(PIIMasker.mask("Mail ayse.yilmaz@example.com now")).isEqualTo("Mail [REDACTED_EMAIL] now");
+	}
+}